@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.core.jmh;
+
+import java.util.Collection;
+import java.util.Random;
+import org.apache.beam.runners.core.ActiveWindowSet;
+import org.apache.beam.runners.core.InMemoryStateInternals;
+import org.apache.beam.runners.core.MergingActiveWindowSet;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.transforms.windowing.IntervalWindow;
+import org.apache.beam.sdk.transforms.windowing.Sessions;
+import org.apache.beam.sdk.transforms.windowing.WindowFn;
+import org.apache.beam.sdk.transforms.windowing.WindowMappingFn;
+import org.joda.time.Duration;
+import org.joda.time.Instant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link MergingActiveWindowSet} with session windows.
+ *
+ * <p>Models a skewed user-session workload, in the style of Nexmark Query 11: a single key has
+ * many ACTIVE sessions and every bundle brings an element which falls into one of them, most often
+ * one of the most recent. Each invocation loads the active window set, merges the element's NEW
+ * window, and persists the result, as {@code ReduceFnRunner} does for every bundle.
+ */
+public class MergingActiveWindowSetBenchmark {
+  private static final Duration GAP = Duration.millis(10);
+
+  /** A key with many ACTIVE sessions. */
+  @State(Scope.Thread)
+  public static class ActiveSessions {
+    @Param({"10", "1000", "100000"})
+    int numSessions;
+
+    /**
+     * Whether to hide the {@link Sessions} window function behind a delegate, which causes every
+     * window for the key to be considered on each merge.
+     */
+    @Param({"false", "true"})
+    boolean considerAllWindows;
+
+    WindowFn<Object, IntervalWindow> windowFn;
+    InMemoryStateInternals<String> state;
+    final Random random = new Random(314159);
+
+    @Setup
+    public void setup() throws Exception {
+      Sessions sessions = Sessions.withGapDuration(GAP);
+      windowFn = considerAllWindows ? new DelegatingSessions(sessions) : sessions;
+      state = InMemoryStateInternals.forKey("key");
+
+      MergingActiveWindowSet<IntervalWindow> set = new MergingActiveWindowSet<>(windowFn, state);
+      for (int i = 0; i < numSessions; i++) {
+        set.addActiveForTesting(sessionWindow(i));
+      }
+      set.persist();
+    }
+
+    /** Returns the window for an element falling inside a session, most likely a recent one. */
+    IntervalWindow nextElementWindow() {
+      int age = (int) (numSessions * Math.pow(random.nextDouble(), 4));
+      IntervalWindow session = sessionWindow(numSessions - 1 - age);
+      return new IntervalWindow(session.start().plus(Duration.millis(random.nextInt(10))), GAP);
+    }
+
+    /** Session {@code i} spans twice the gap, leaving a gap between it and the next session. */
+    private static IntervalWindow sessionWindow(int i) {
+      Instant start = new Instant(40L * i);
+      return new IntervalWindow(start, start.plus(GAP).plus(GAP));
+    }
+  }
+
+  @Benchmark
+  public void mergeElementIntoActiveSession(ActiveSessions sessions, Blackhole bh)
+      throws Exception {
+    MergingActiveWindowSet<IntervalWindow> set =
+        new MergingActiveWindowSet<>(sessions.windowFn, sessions.state);
+    set.ensureWindowExists(sessions.nextElementWindow());
+    set.merge(
+        new ActiveWindowSet.MergeCallback<IntervalWindow>() {
+          @Override
+          public void prefetchOnMerge(
+              Collection<IntervalWindow> toBeMerged, IntervalWindow mergeResult) {}
+
+          @Override
+          public void onMerge(Collection<IntervalWindow> toBeMerged, IntervalWindow mergeResult) {
+            bh.consume(mergeResult);
+          }
+        });
+    set.cleanupTemporaryWindows();
+    set.persist();
+  }
+
+  /** Behaves exactly like the wrapped {@link Sessions}, but is not recognizable as one. */
+  private static class DelegatingSessions extends WindowFn<Object, IntervalWindow> {
+    private final Sessions delegate;
+
+    DelegatingSessions(Sessions delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Collection<IntervalWindow> assignWindows(AssignContext c) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void mergeWindows(MergeContext c) throws Exception {
+      delegate.mergeWindows(
+          delegate.new MergeContext() {
+            @Override
+            public Collection<IntervalWindow> windows() {
+              return c.windows();
+            }
+
+            @Override
+            public void merge(Collection<IntervalWindow> toBeMerged, IntervalWindow mergeResult)
+                throws Exception {
+              c.merge(toBeMerged, mergeResult);
+            }
+          });
+    }
+
+    @Override
+    public boolean isCompatible(WindowFn<?, ?> other) {
+      return delegate.isCompatible(other);
+    }
+
+    @Override
+    public Coder<IntervalWindow> windowCoder() {
+      return delegate.windowCoder();
+    }
+
+    @Override
+    public WindowMappingFn<IntervalWindow> getDefaultWindowMappingFn() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
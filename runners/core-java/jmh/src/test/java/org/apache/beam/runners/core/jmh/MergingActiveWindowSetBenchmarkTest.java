@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.core.jmh;
+
+import org.apache.beam.runners.core.jmh.MergingActiveWindowSetBenchmark.ActiveSessions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Tests for {@link MergingActiveWindowSetBenchmark}. */
+@RunWith(JUnit4.class)
+public class MergingActiveWindowSetBenchmarkTest {
+  private final Blackhole bh =
+      new Blackhole(
+          "Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.");
+
+  @Test
+  public void testMergeElementIntoActiveSession() throws Exception {
+    for (boolean considerAllWindows : new boolean[] {false, true}) {
+      ActiveSessions sessions = new ActiveSessions();
+      sessions.numSessions = 100;
+      sessions.considerAllWindows = considerAllWindows;
+      sessions.setup();
+      for (int i = 0; i < 100; i++) {
+        new MergingActiveWindowSetBenchmark().mergeElementIntoActiveSession(sessions, bh);
+      }
+    }
+  }
+}
@@ -21,16 +21,12 @@ import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Pr
 import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkState;
 
-import java.util.NavigableSet;
-import java.util.NoSuchElementException;
-import java.util.TreeSet;
+import java.util.Objects;
 import org.apache.beam.sdk.state.TimeDomain;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.util.WindowTracing;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.MoreObjects;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions;
-import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.HashBasedTable;
-import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Table;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Instant;
 
@@ -40,17 +36,14 @@ import org.joda.time.Instant;
 })
 public class InMemoryTimerInternals implements TimerInternals {
 
-  /** The current set timers by namespace and ID. */
-  Table<StateNamespace, String, TimerData> existingTimers = HashBasedTable.create();
+  /** Pending input watermark timers by namespace and ID, in timestamp order. */
+  private final TimerHeap<TimerKey> watermarkTimers = new TimerHeap<>();
 
-  /** Pending input watermark timers, in timestamp order. */
-  private final NavigableSet<TimerData> watermarkTimers = new TreeSet<>();
+  /** Pending processing time timers by namespace and ID, in timestamp order. */
+  private final TimerHeap<TimerKey> processingTimers = new TimerHeap<>();
 
-  /** Pending processing time timers, in timestamp order. */
-  private final NavigableSet<TimerData> processingTimers = new TreeSet<>();
-
-  /** Pending synchronized processing time timers, in timestamp order. */
-  private final NavigableSet<TimerData> synchronizedProcessingTimers = new TreeSet<>();
+  /** Pending synchronized processing time timers by namespace and ID, in timestamp order. */
+  private final TimerHeap<TimerKey> synchronizedProcessingTimers = new TimerHeap<>();
 
   /** Current input watermark. */
   private Instant inputWatermarkTime = BoundedWindow.TIMESTAMP_MIN_VALUE;
@@ -74,7 +67,9 @@ public class InMemoryTimerInternals implements TimerInternals {
 
   /** Returns true when there are still timers to be fired. */
   public boolean hasPendingTimers() {
-    return !existingTimers.isEmpty();
+    return !watermarkTimers.isEmpty()
+        || !processingTimers.isEmpty()
+        || !synchronizedProcessingTimers.isEmpty();
   }
 
   /**
@@ -82,23 +77,11 @@ public class InMemoryTimerInternals implements TimerInternals {
    * timers scheduled in that time domain.
    */
   public @Nullable Instant getNextTimer(TimeDomain domain) {
-    try {
-      switch (domain) {
-        case EVENT_TIME:
-          return watermarkTimers.first().getTimestamp();
-        case PROCESSING_TIME:
-          return processingTimers.first().getTimestamp();
-        case SYNCHRONIZED_PROCESSING_TIME:
-          return synchronizedProcessingTimers.first().getTimestamp();
-        default:
-          throw new IllegalArgumentException("Unexpected time domain: " + domain);
-      }
-    } catch (NoSuchElementException exc) {
-      return null;
-    }
+    @Nullable TimerData next = timersForDomain(domain).peek();
+    return next == null ? null : next.getTimestamp();
   }
 
-  private NavigableSet<TimerData> timersForDomain(TimeDomain domain) {
+  private TimerHeap<TimerKey> timersForDomain(TimeDomain domain) {
     switch (domain) {
       case EVENT_TIME:
         return watermarkTimers;
@@ -131,39 +114,41 @@ public class InMemoryTimerInternals implements TimerInternals {
   public void setTimer(TimerData timerData) {
     WindowTracing.trace("{}.setTimer: {}", SIMPLE_NAME, timerData);
 
-    @Nullable String colKey = timerData.getTimerId() + '+' + timerData.getTimerFamilyId();
-    TimerData existing = existingTimers.get(timerData.getNamespace(), colKey);
+    TimerKey key =
+        new TimerKey(
+            timerData.getNamespace(), timerData.getTimerId(), timerData.getTimerFamilyId());
+    TimerHeap<TimerKey> timers = timersForDomain(timerData.getDomain());
+    TimerData existing = timers.get(key);
     if (existing == null) {
-      existingTimers.put(timerData.getNamespace(), colKey, timerData);
-      timersForDomain(timerData.getDomain()).add(timerData);
-    } else {
-      checkArgument(
-          timerData.getDomain().equals(existing.getDomain()),
-          "Attempt to set %s for time domain %s, but it is already set for time domain %s",
-          timerData.getTimerId(),
-          timerData.getDomain(),
-          existing.getDomain());
-
-      if (!timerData.getTimestamp().equals(existing.getTimestamp())) {
-        NavigableSet<TimerData> timers = timersForDomain(timerData.getDomain());
-        timers.remove(existing);
-        timers.add(timerData);
-        existingTimers.put(timerData.getNamespace(), colKey, timerData);
+      for (TimeDomain domain : TimeDomain.values()) {
+        TimerData existingInOtherDomain = timersForDomain(domain).get(key);
+        checkArgument(
+            existingInOtherDomain == null,
+            "Attempt to set %s for time domain %s, but it is already set for time domain %s",
+            timerData.getTimerId(),
+            timerData.getDomain(),
+            domain);
       }
+      timers.put(key, timerData);
+    } else if (!timerData.getTimestamp().equals(existing.getTimestamp())) {
+      // Updates the pending timer in place.
+      timers.put(key, timerData);
     }
   }
 
   @Override
   public void deleteTimer(
       StateNamespace namespace, String timerId, String timerFamilyId, TimeDomain timeDomain) {
-    TimerData removedTimer = existingTimers.remove(namespace, timerId + '+' + timerFamilyId);
-    if (removedTimer != null) {
-      Preconditions.checkState(
-          removedTimer.getDomain().equals(timeDomain),
-          "%s doesn't match time domain %s of timer",
-          timeDomain,
-          removedTimer.getDomain());
-      timersForDomain(timeDomain).remove(removedTimer);
+    TimerKey key = new TimerKey(namespace, timerId, timerFamilyId);
+    if (timersForDomain(timeDomain).remove(key) == null) {
+      for (TimeDomain domain : TimeDomain.values()) {
+        TimerData existing = timersForDomain(domain).get(key);
+        Preconditions.checkState(
+            existing == null,
+            "%s doesn't match time domain %s of timer",
+            timeDomain,
+            domain);
+      }
     }
   }
 
@@ -171,9 +156,11 @@ public class InMemoryTimerInternals implements TimerInternals {
   @Deprecated
   @Override
   public void deleteTimer(StateNamespace namespace, String timerId, String timerFamilyId) {
-    TimerData removedTimer = existingTimers.remove(namespace, timerId + '+' + timerFamilyId);
-    if (removedTimer != null) {
-      timersForDomain(removedTimer.getDomain()).remove(removedTimer);
+    TimerKey key = new TimerKey(namespace, timerId, timerFamilyId);
+    for (TimeDomain domain : TimeDomain.values()) {
+      if (timersForDomain(domain).remove(key) != null) {
+        return;
+      }
     }
   }
 
@@ -321,15 +308,45 @@ public class InMemoryTimerInternals implements TimerInternals {
   }
 
   private @Nullable TimerData removeNextTimer(Instant currentTime, TimeDomain domain) {
-    NavigableSet<TimerData> timers = timersForDomain(domain);
+    TimerHeap<TimerKey> timers = timersForDomain(domain);
 
-    if (!timers.isEmpty() && currentTime.isAfter(timers.first().getTimestamp())) {
-      TimerData timer = timers.pollFirst();
-      existingTimers.remove(
-          timer.getNamespace(), timer.getTimerId() + '+' + timer.getTimerFamilyId());
-      return timer;
+    @Nullable TimerData next = timers.peek();
+    if (next != null && currentTime.isAfter(next.getTimestamp())) {
+      return timers.poll();
     } else {
       return null;
     }
   }
+
+  /** Identifies a timer by namespace, ID and family ID. */
+  private static final class TimerKey {
+    private final StateNamespace namespace;
+    private final String timerId;
+    private final String timerFamilyId;
+
+    private TimerKey(StateNamespace namespace, String timerId, String timerFamilyId) {
+      this.namespace = namespace;
+      this.timerId = timerId;
+      this.timerFamilyId = timerFamilyId;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TimerKey)) {
+        return false;
+      }
+      TimerKey that = (TimerKey) o;
+      return namespace.equals(that.namespace)
+          && timerId.equals(that.timerId)
+          && timerFamilyId.equals(that.timerFamilyId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(namespace, timerId, timerFamilyId);
+    }
+  }
 }
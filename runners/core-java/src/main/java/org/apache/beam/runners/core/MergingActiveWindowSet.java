@@ -22,6 +22,7 @@ import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Pr
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -33,6 +34,8 @@ import org.apache.beam.sdk.coders.MapCoder;
 import org.apache.beam.sdk.coders.SetCoder;
 import org.apache.beam.sdk.state.ValueState;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.apache.beam.sdk.transforms.windowing.IntervalWindow;
+import org.apache.beam.sdk.transforms.windowing.Sessions;
 import org.apache.beam.sdk.transforms.windowing.WindowFn;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterables;
@@ -166,10 +169,12 @@ public class MergingActiveWindowSet<W extends BoundedWindow> implements ActiveWi
     private final List<Collection<W>> allToBeMerged;
     private final List<W> allMergeResults;
     private final Set<W> seen;
+    private final Collection<W> windows;
 
-    public MergeContextImpl(MergeCallback<W> mergeCallback) {
+    public MergeContextImpl(MergeCallback<W> mergeCallback, Collection<W> windows) {
       windowFn.super();
       this.mergeCallback = mergeCallback;
+      this.windows = windows;
       allToBeMerged = new ArrayList<>();
       allMergeResults = new ArrayList<>();
       seen = new HashSet<>();
@@ -177,7 +182,7 @@ public class MergingActiveWindowSet<W extends BoundedWindow> implements ActiveWi
 
     @Override
     public Collection<W> windows() {
-      return activeWindowToStateAddressWindows.keySet();
+      return windows;
     }
 
     @Override
@@ -220,7 +225,7 @@ public class MergingActiveWindowSet<W extends BoundedWindow> implements ActiveWi
 
   @Override
   public void merge(MergeCallback<W> mergeCallback) throws Exception {
-    MergeContextImpl context = new MergeContextImpl(mergeCallback);
+    MergeContextImpl context = new MergeContextImpl(mergeCallback, windowsToConsiderForMerge());
 
     // See what the window function does with the NEW and already ACTIVE windows.
     // Entering userland.
@@ -230,6 +235,92 @@ public class MergingActiveWindowSet<W extends BoundedWindow> implements ActiveWi
     context.recordMerges();
   }
 
+  /**
+   * Return the windows {@link #windowFn} needs to see to compute all merges.
+   *
+   * <p>{@link Sessions} only merges intersecting windows, and since every earlier merge was
+   * complete the ACTIVE windows do not intersect one another. So only the NEW windows and the
+   * ACTIVE windows intersecting them can take part in a merge. Rather than having the window
+   * function sort and scan every window for the key, which for keys with many sessions is paid for
+   * every bundle, the NEW windows are coalesced into sorted disjoint spans which each ACTIVE window
+   * is checked against with a binary search.
+   */
+  private Collection<W> windowsToConsiderForMerge() {
+    if (!windowFn.getClass().equals(Sessions.class)) {
+      return activeWindowToStateAddressWindows.keySet();
+    }
+
+    List<IntervalWindow> newWindows = new ArrayList<>();
+    List<IntervalWindow> activeWindows = new ArrayList<>();
+    for (Map.Entry<W, Set<W>> entry : activeWindowToStateAddressWindows.entrySet()) {
+      IntervalWindow window = (IntervalWindow) entry.getKey();
+      if (entry.getValue().isEmpty()) {
+        newWindows.add(window);
+      } else {
+        activeWindows.add(window);
+      }
+    }
+    if (newWindows.isEmpty() || activeWindows.isEmpty()) {
+      return activeWindowToStateAddressWindows.keySet();
+    }
+
+    List<IntervalWindow> newSpans = coalesce(newWindows);
+    Set<W> result = new HashSet<>();
+    for (IntervalWindow window : newWindows) {
+      @SuppressWarnings("unchecked")
+      W newWindow = (W) window;
+      result.add(newWindow);
+    }
+    for (IntervalWindow window : activeWindows) {
+      if (intersectsAny(newSpans, window)) {
+        @SuppressWarnings("unchecked")
+        W activeWindow = (W) window;
+        result.add(activeWindow);
+      }
+    }
+    return result;
+  }
+
+  /** Return the spans of the unions of intersecting {@code windows}, ordered by start. */
+  private static List<IntervalWindow> coalesce(List<IntervalWindow> windows) {
+    Collections.sort(windows);
+    List<IntervalWindow> spans = new ArrayList<>();
+    IntervalWindow current = null;
+    for (IntervalWindow window : windows) {
+      if (current == null) {
+        current = window;
+      } else if (current.intersects(window)) {
+        current = current.span(window);
+      } else {
+        spans.add(current);
+        current = window;
+      }
+    }
+    spans.add(current);
+    return spans;
+  }
+
+  /**
+   * Return whether {@code window} intersects any of the disjoint {@code spans}, which are ordered
+   * by start and hence also by end. Only the last span starting before {@code window} ends can
+   * intersect it.
+   */
+  private static boolean intersectsAny(List<IntervalWindow> spans, IntervalWindow window) {
+    int low = 0;
+    int high = spans.size() - 1;
+    int candidate = -1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (spans.get(mid).start().isBefore(window.end())) {
+        candidate = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return candidate >= 0 && spans.get(candidate).intersects(window);
+  }
+
   /**
    * A {@link WindowFn#mergeWindows} call has determined that {@code toBeMerged} (which must all be
    * ACTIVE}) should be considered equivalent to {@code activeWindow} (which is either a member of
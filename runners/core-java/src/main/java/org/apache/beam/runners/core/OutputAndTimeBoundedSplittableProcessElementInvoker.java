@@ -17,6 +17,7 @@
  */
 package org.apache.beam.runners.core;
 
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkArgument;
 import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkState;
 
@@ -50,6 +51,7 @@ import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollectionView;
 import org.apache.beam.sdk.values.Row;
 import org.apache.beam.sdk.values.TupleTag;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterables;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.util.concurrent.Futures;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -60,6 +62,19 @@ import org.joda.time.Instant;
  * A {@link SplittableProcessElementInvoker} that requests a checkpoint after the {@link
  * DoFn.ProcessElement} call either outputs at least a given number of elements (in total over all
  * outputs), or runs for the given duration.
+ *
+ * <p>When created with a {@code maxAdaptiveNumOutputs} larger than {@code maxNumOutputs}, the
+ * invoker runs in an adaptive mode:
+ *
+ * <ul>
+ *   <li>The number of outputs after which a checkpoint is requested follows the observed output
+ *       rate, aiming for a checkpoint every {@code maxDuration}, between {@code maxNumOutputs} and
+ *       {@code maxAdaptiveNumOutputs}. A fast {@link DoFn} is then no longer checkpointed after a
+ *       small fixed number of outputs.
+ *   <li>A residual which the {@link DoFn} asked to resume without delay may be processed right away
+ *       by the caller (see {@link #canResumeImmediately}) instead of being checkpointed and resumed
+ *       later. All such consecutive calls share a single output and time budget.
+ * </ul>
  */
 @SuppressWarnings({
   "rawtypes", // TODO(https://github.com/apache/beam/issues/20447)
@@ -78,6 +93,19 @@ public class OutputAndTimeBoundedSplittableProcessElementInvoker<
   private final int maxNumOutputs;
   private final Duration maxDuration;
   private final Supplier<BundleFinalizer> bundleFinalizer;
+  private final int maxAdaptiveNumOutputs;
+  private final Supplier<Instant> clock;
+
+  // The number of outputs after which a checkpoint is requested. Only changes in adaptive mode.
+  private int currentMaxNumOutputs;
+
+  // Whether the next call continues the previous one, sharing its output and time budget.
+  private boolean continuesPreviousCall;
+  private int budgetNumOutputs;
+  private long budgetStartMillis;
+
+  // Describes the last call, for deciding whether its residual can be resumed immediately.
+  private boolean lastCallCheckpointedByRunner;
 
   /**
    * Creates a new invoker from components.
@@ -104,6 +132,71 @@ public class OutputAndTimeBoundedSplittableProcessElementInvoker<
       int maxNumOutputs,
       Duration maxDuration,
       Supplier<BundleFinalizer> bundleFinalizer) {
+    this(
+        fn,
+        pipelineOptions,
+        output,
+        sideInputReader,
+        executor,
+        maxNumOutputs,
+        maxDuration,
+        bundleFinalizer,
+        maxNumOutputs);
+  }
+
+  /**
+   * Creates a new invoker from components, which runs in adaptive mode if {@code
+   * maxAdaptiveNumOutputs} is larger than {@code maxNumOutputs}.
+   *
+   * @param maxAdaptiveNumOutputs Upper bound on the number of outputs after which a checkpoint will
+   *     be requested when adapting to the observed output rate.
+   * @see #OutputAndTimeBoundedSplittableProcessElementInvoker(DoFn, PipelineOptions,
+   *     OutputWindowedValue, SideInputReader, ScheduledExecutorService, int, Duration, Supplier)
+   */
+  public OutputAndTimeBoundedSplittableProcessElementInvoker(
+      DoFn<InputT, OutputT> fn,
+      PipelineOptions pipelineOptions,
+      OutputWindowedValue<OutputT> output,
+      SideInputReader sideInputReader,
+      ScheduledExecutorService executor,
+      int maxNumOutputs,
+      Duration maxDuration,
+      Supplier<BundleFinalizer> bundleFinalizer,
+      int maxAdaptiveNumOutputs) {
+    this(
+        fn,
+        pipelineOptions,
+        output,
+        sideInputReader,
+        executor,
+        maxNumOutputs,
+        maxDuration,
+        bundleFinalizer,
+        maxAdaptiveNumOutputs,
+        Instant::now);
+  }
+
+  /**
+   * Creates a new invoker which measures the duration of calls with {@code clock}. The checkpoint
+   * after {@code maxDuration} is still scheduled on {@code executor}.
+   */
+  @VisibleForTesting
+  OutputAndTimeBoundedSplittableProcessElementInvoker(
+      DoFn<InputT, OutputT> fn,
+      PipelineOptions pipelineOptions,
+      OutputWindowedValue<OutputT> output,
+      SideInputReader sideInputReader,
+      ScheduledExecutorService executor,
+      int maxNumOutputs,
+      Duration maxDuration,
+      Supplier<BundleFinalizer> bundleFinalizer,
+      int maxAdaptiveNumOutputs,
+      Supplier<Instant> clock) {
+    checkArgument(
+        maxAdaptiveNumOutputs >= maxNumOutputs,
+        "maxAdaptiveNumOutputs %s must not be smaller than maxNumOutputs %s",
+        maxAdaptiveNumOutputs,
+        maxNumOutputs);
     this.fn = fn;
     this.pipelineOptions = pipelineOptions;
     this.output = output;
@@ -112,6 +205,53 @@ public class OutputAndTimeBoundedSplittableProcessElementInvoker<
     this.maxNumOutputs = maxNumOutputs;
     this.maxDuration = maxDuration;
     this.bundleFinalizer = bundleFinalizer;
+    this.maxAdaptiveNumOutputs = maxAdaptiveNumOutputs;
+    this.currentMaxNumOutputs = maxNumOutputs;
+    this.clock = clock;
+  }
+
+  private boolean isAdaptive() {
+    return maxAdaptiveNumOutputs > maxNumOutputs;
+  }
+
+  /**
+   * Returns whether the residual of {@code result}, returned by the last call, can be processed
+   * right away. This is the case in adaptive mode, when the {@link DoFn} asked to resume without
+   * delay and the budget shared by the calls since the last checkpoint is not exhausted yet. The
+   * next call then continues with the remainder of that budget.
+   */
+  @Override
+  public boolean canResumeImmediately(Result result) {
+    continuesPreviousCall =
+        isAdaptive()
+            && result.getResidualRestriction() != null
+            && result.getContinuation().shouldResume()
+            && !result.getContinuation().resumeDelay().isLongerThan(Duration.ZERO)
+            && !lastCallCheckpointedByRunner
+            && budgetNumOutputs < currentMaxNumOutputs
+            && clock.get().getMillis() - budgetStartMillis < maxDuration.getMillis();
+    return continuesPreviousCall;
+  }
+
+  @VisibleForTesting
+  int getCurrentMaxNumOutputs() {
+    return currentMaxNumOutputs;
+  }
+
+  /**
+   * Moves the number of outputs after which a checkpoint is requested halfway towards the number
+   * of outputs the last call would have produced in {@code maxDuration} at its observed rate.
+   */
+  private void adaptMaxNumOutputs(int numOutputs, long elapsedMillis) {
+    if (!isAdaptive() || numOutputs == 0) {
+      return;
+    }
+    double outputsPerMilli = numOutputs / (double) Math.max(1L, elapsedMillis);
+    long target =
+        Math.min(
+            maxAdaptiveNumOutputs,
+            Math.max(maxNumOutputs, (long) (outputsPerMilli * maxDuration.getMillis())));
+    currentMaxNumOutputs = (int) ((currentMaxNumOutputs + target) / 2);
   }
 
   @Override
@@ -121,7 +261,19 @@ public class OutputAndTimeBoundedSplittableProcessElementInvoker<
       final RestrictionTracker<RestrictionT, PositionT> tracker,
       final WatermarkEstimator<WatermarkEstimatorStateT> watermarkEstimator,
       final Map<String, PCollectionView<?>> sideInputMapping) {
-    final ProcessContext processContext = new ProcessContext(element, tracker, watermarkEstimator);
+    long startMillis = clock.get().getMillis();
+    if (!continuesPreviousCall) {
+      budgetNumOutputs = 0;
+      budgetStartMillis = startMillis;
+    }
+    continuesPreviousCall = false;
+    final ProcessContext processContext =
+        new ProcessContext(
+            element,
+            tracker,
+            watermarkEstimator,
+            Math.max(1, currentMaxNumOutputs - budgetNumOutputs),
+            Math.max(0L, maxDuration.getMillis() - (startMillis - budgetStartMillis)));
 
     DoFn.ProcessContinuation cont =
         invoker.invokeProcessElement(
@@ -228,6 +380,9 @@ public class OutputAndTimeBoundedSplittableProcessElementInvoker<
     @Nullable
     KV<RestrictionT, KV<Instant, WatermarkEstimatorStateT>> residual =
         processContext.getTakenCheckpoint();
+    lastCallCheckpointedByRunner = residual != null;
+    budgetNumOutputs += processContext.numOutputs;
+    adaptMaxNumOutputs(processContext.numOutputs, clock.get().getMillis() - startMillis);
     if (cont.shouldResume()) {
       checkState(
           !processContext.hasClaimFailed,
@@ -278,6 +433,8 @@ public class OutputAndTimeBoundedSplittableProcessElementInvoker<
     private boolean hasClaimFailed;
 
     private int numOutputs;
+    private final int maxNumOutputs;
+    private final long maxDurationMillis;
     // Checkpoint may be initiated either when the given number of outputs is reached,
     // or when the call runs for the given duration. It must be initiated at most once,
     // even if these events happen almost at the same time.
@@ -294,11 +451,15 @@ public class OutputAndTimeBoundedSplittableProcessElementInvoker<
     public ProcessContext(
         WindowedValue<InputT> element,
         RestrictionTracker<RestrictionT, PositionT> tracker,
-        WatermarkEstimator<WatermarkEstimatorStateT> watermarkEstimator) {
+        WatermarkEstimator<WatermarkEstimatorStateT> watermarkEstimator,
+        int maxNumOutputs,
+        long maxDurationMillis) {
       fn.super();
       this.element = element;
       this.tracker = RestrictionTrackers.observe(tracker, this);
       this.watermarkEstimator = WatermarkEstimators.threadSafe(watermarkEstimator);
+      this.maxNumOutputs = maxNumOutputs;
+      this.maxDurationMillis = maxDurationMillis;
     }
 
     @Override
@@ -312,7 +473,7 @@ public class OutputAndTimeBoundedSplittableProcessElementInvoker<
         // the original restriction, i.e. pointless.
         this.scheduledCheckpoint =
             executor.schedule(
-                (Runnable) this::takeCheckpointNow, maxDuration.getMillis(), TimeUnit.MILLISECONDS);
+                (Runnable) this::takeCheckpointNow, maxDurationMillis, TimeUnit.MILLISECONDS);
       }
       ++numClaimedBlocks;
     }
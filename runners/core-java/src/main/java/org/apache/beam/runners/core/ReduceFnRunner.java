@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -32,6 +33,7 @@ import org.apache.beam.runners.core.GroupByKeyViaGroupByKeyOnly.GroupByKeyOnly;
 import org.apache.beam.runners.core.ReduceFnContextFactory.StateStyle;
 import org.apache.beam.runners.core.StateNamespaces.WindowNamespace;
 import org.apache.beam.runners.core.TimerInternals.TimerData;
+import org.apache.beam.runners.core.triggers.DefaultTriggerStateMachine;
 import org.apache.beam.runners.core.triggers.ExecutableTriggerStateMachine;
 import org.apache.beam.runners.core.triggers.TriggerStateMachineContextFactory;
 import org.apache.beam.runners.core.triggers.TriggerStateMachineRunner;
@@ -55,6 +57,7 @@ import org.apache.beam.sdk.values.WindowingStrategy.AccumulationMode;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.FluentIterable;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableSet;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterables;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Duration;
 import org.joda.time.Instant;
@@ -208,6 +211,16 @@ public class ReduceFnRunner<K, InputT, OutputT, W extends BoundedWindow> {
    */
   private final NonEmptyPanes<K, W> nonEmptyPanes;
 
+  /**
+   * Whether elements can be processed one window at a time rather than one element at a time.
+   *
+   * <p>This holds for non-merging windows with the default trigger, whose per-element behavior
+   * depends only on the window. In that case the trigger, pane, timer and hold bookkeeping is done
+   * once per window for each call to {@link #processElements}, and only the {@link ReduceFn} sees
+   * every element.
+   */
+  private final boolean batchElementsPerWindow;
+
   public ReduceFnRunner(
       K key,
       WindowingStrategy<?, W> windowingStrategy,
@@ -249,6 +262,8 @@ public class ReduceFnRunner<K, InputT, OutputT, W extends BoundedWindow> {
             options);
 
     this.watermarkHold = new WatermarkHold<>(timerInternals, windowingStrategy);
+    this.batchElementsPerWindow =
+        canProcessElementsPerWindow(this.windowingStrategy, triggerStateMachine);
     this.triggerRunner =
         new TriggerStateMachineRunner<>(
             triggerStateMachine,
@@ -262,6 +277,18 @@ public class ReduceFnRunner<K, InputT, OutputT, W extends BoundedWindow> {
         : new MergingActiveWindowSet<>(windowingStrategy.getWindowFn(), stateInternals);
   }
 
+  /**
+   * Returns whether elements for the given strategy and trigger may be processed in per-window
+   * batches. See {@link #batchElementsPerWindow}.
+   */
+  @VisibleForTesting
+  static boolean canProcessElementsPerWindow(
+      WindowingStrategy<?, ?> windowingStrategy,
+      ExecutableTriggerStateMachine triggerStateMachine) {
+    return windowingStrategy.getWindowFn().isNonMerging()
+        && triggerStateMachine.getSpec() instanceof DefaultTriggerStateMachine;
+  }
+
   @VisibleForTesting
   boolean isFinished(W window) {
     return triggerRunner.isClosed(contextFactory.base(window, StateStyle.DIRECT).state());
@@ -355,9 +382,14 @@ public class ReduceFnRunner<K, InputT, OutputT, W extends BoundedWindow> {
           mergedWindow, contextFactory.base(mergedWindow, StateStyle.DIRECT).state());
     }
 
-    // Process each element, using the updated activeWindows determined by mergeWindows.
-    for (WindowedValue<InputT> value : values) {
-      processElement(windowToMergeResult, value);
+    if (batchElementsPerWindow) {
+      // No merging took place, so the windows are exactly those assigned to the elements.
+      processElementsPerWindow(values);
+    } else {
+      // Process each element, using the updated activeWindows determined by mergeWindows.
+      for (WindowedValue<InputT> value : values) {
+        processElement(windowToMergeResult, value);
+      }
     }
 
     // Filter to windows that are firing.
@@ -626,6 +658,68 @@ public class ReduceFnRunner<K, InputT, OutputT, W extends BoundedWindow> {
     }
   }
 
+  /**
+   * Process all elements grouped by the window they belong to. Only valid if {@link
+   * #batchElementsPerWindow} is set.
+   *
+   * <p>The result is the same as calling {@link #processElement} for each value, but the trigger
+   * is consulted, the window is activated, the garbage collection timer is set and the watermark
+   * holds are written once per window instead of once per element.
+   */
+  private void processElementsPerWindow(Iterable<WindowedValue<InputT>> values) throws Exception {
+    Map<W, List<WindowedValue<InputT>>> valuesByWindow = new LinkedHashMap<>();
+    for (WindowedValue<InputT> value : values) {
+      for (BoundedWindow untypedWindow : value.getWindows()) {
+        @SuppressWarnings("unchecked")
+        W window = (W) untypedWindow;
+        valuesByWindow.computeIfAbsent(window, w -> new ArrayList<>()).add(value);
+      }
+    }
+
+    for (Map.Entry<W, List<WindowedValue<InputT>>> entry : valuesByWindow.entrySet()) {
+      W window = entry.getKey();
+      List<WindowedValue<InputT>> windowValues = entry.getValue();
+      ReduceFn<K, InputT, OutputT, W>.Context directContext =
+          contextFactory.base(window, StateStyle.DIRECT);
+      if (triggerRunner.isClosed(directContext.state())) {
+        // This window has already been closed.
+        droppedDueToClosedWindow.inc(windowValues.size());
+        WindowTracing.debug(
+            "ReduceFnRunner.processElementsPerWindow: Dropping {} elements for key:{}; window:{} "
+                + "since window is no longer active at inputWatermark:{}; outputWatermark:{}",
+            windowValues.size(),
+            key,
+            window,
+            timerInternals.currentInputWatermarkTime(),
+            timerInternals.currentOutputWatermarkTime());
+        continue;
+      }
+
+      activeWindows.ensureWindowIsActive(window);
+      ReduceFn<K, InputT, OutputT, W>.Context renamedContext =
+          contextFactory.base(window, StateStyle.RENAMED);
+
+      nonEmptyPanes.recordContent(renamedContext.state());
+      scheduleGarbageCollectionTimer(directContext);
+      watermarkHold.addHolds(
+          renamedContext, Iterables.transform(windowValues, WindowedValue::getTimestamp));
+
+      // Execute the reduceFn, which will buffer or combine each value as appropriate
+      for (WindowedValue<InputT> value : windowValues) {
+        reduceFn.processValue(
+            contextFactory.forValue(
+                window, value.getValue(), value.getTimestamp(), StateStyle.RENAMED));
+      }
+
+      // The default trigger reacts to the window alone, so one invocation covers every element.
+      triggerRunner.processValue(
+          window,
+          windowValues.get(0).getTimestamp(),
+          directContext.timers(),
+          directContext.state());
+    }
+  }
+
   /** A descriptor of the activation for a window based on a timer. */
   private class WindowActivation {
     public final ReduceFn<K, InputT, OutputT, W>.Context directContext;
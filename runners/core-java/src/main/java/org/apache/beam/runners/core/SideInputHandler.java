@@ -90,6 +90,13 @@ public class SideInputHandler implements ReadyCheckingSideInputReader {
   /** State tag for the actual contents of each side input per window. */
   private final Map<PCollectionView<?>, StateTag<ValueState<Iterable<?>>>> sideInputContentsTags;
 
+  /**
+   * The windows known to be ready for each side input, so that {@link #isReady} does not need to
+   * read the available windows from state for every element. Windows are never removed from the
+   * available windows, so this only ever grows along with them.
+   */
+  private final Map<PCollectionView<?>, Set<BoundedWindow>> knownReadyWindows;
+
   /**
    * Creates a new {@code SideInputHandler} for the given side inputs that uses the given {@code
    * StateInternals} to store side input data and side-input meta data.
@@ -100,6 +107,7 @@ public class SideInputHandler implements ReadyCheckingSideInputReader {
     this.stateInternals = stateInternals;
     this.availableWindowsTags = new HashMap<>();
     this.sideInputContentsTags = new HashMap<>();
+    this.knownReadyWindows = new HashMap<>();
 
     for (PCollectionView<?> sideInput : sideInputs) {
       checkArgument(
@@ -128,6 +136,7 @@ public class SideInputHandler implements ReadyCheckingSideInputReader {
               "side-input-data-" + sideInput.getTagInternal().getId(),
               (Coder) IterableCoder.of(sideInput.getCoderInternal()));
       sideInputContentsTags.put(sideInput, stateTag);
+      knownReadyWindows.put(sideInput, new HashSet<>());
     }
   }
 
@@ -150,6 +159,7 @@ public class SideInputHandler implements ReadyCheckingSideInputReader {
       stateInternals
           .state(StateNamespaces.global(), availableWindowsTags.get(sideInput))
           .add(window);
+      knownReadyWindows.get(sideInput).add(window);
     }
   }
 
@@ -203,10 +213,18 @@ public class SideInputHandler implements ReadyCheckingSideInputReader {
 
   @Override
   public boolean isReady(PCollectionView<?> sideInput, BoundedWindow window) {
+    Set<BoundedWindow> knownReady = knownReadyWindows.get(sideInput);
+    if (knownReady.contains(window)) {
+      return true;
+    }
+    // The state may have been restored, or written through another handler sharing it.
     Set<BoundedWindow> readyWindows =
         stateInternals.state(StateNamespaces.global(), availableWindowsTags.get(sideInput)).read();
-
-    return readyWindows != null && readyWindows.contains(window);
+    if (readyWindows == null || !readyWindows.contains(window)) {
+      return false;
+    }
+    knownReady.addAll(readyWindows);
+    return true;
   }
 
   @Override
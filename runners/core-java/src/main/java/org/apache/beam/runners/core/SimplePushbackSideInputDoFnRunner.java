@@ -44,6 +44,9 @@ public class SimplePushbackSideInputDoFnRunner<InputT, OutputT>
 
   // Initialized in startBundle()
   private @Nullable Set<BoundedWindow> notReadyWindows;
+  // Side inputs do not become unavailable once ready, so windows found ready stay ready. Like
+  // notReadyWindows, this is only kept for the duration of a bundle, bounding its size.
+  private @Nullable Set<BoundedWindow> readyWindows;
 
   public static <InputT, OutputT> SimplePushbackSideInputDoFnRunner<InputT, OutputT> create(
       DoFnRunner<InputT, OutputT> underlying,
@@ -69,6 +72,7 @@ public class SimplePushbackSideInputDoFnRunner<InputT, OutputT>
   @Override
   public void startBundle() {
     notReadyWindows = new HashSet<>();
+    readyWindows = new HashSet<>();
     underlying.startBundle();
   }
 
@@ -95,6 +99,9 @@ public class SimplePushbackSideInputDoFnRunner<InputT, OutputT>
   }
 
   private boolean isReady(BoundedWindow mainInputWindow) {
+    if (readyWindows.contains(mainInputWindow)) {
+      return true;
+    }
     if (notReadyWindows.contains(mainInputWindow)) {
       return false;
     }
@@ -104,6 +111,7 @@ public class SimplePushbackSideInputDoFnRunner<InputT, OutputT>
         return false;
       }
     }
+    readyWindows.add(mainInputWindow);
     return true;
   }
 
@@ -127,6 +135,7 @@ public class SimplePushbackSideInputDoFnRunner<InputT, OutputT>
   @Override
   public void finishBundle() {
     notReadyWindows = null;
+    readyWindows = null;
     underlying.finishBundle();
   }
 }
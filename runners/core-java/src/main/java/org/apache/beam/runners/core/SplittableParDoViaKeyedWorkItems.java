@@ -465,118 +465,27 @@ public class SplittableParDoViaKeyedWorkItems {
         watermarkEstimatorStateT = watermarkEstimatorState.read();
       }
 
-      final WatermarkEstimator<WatermarkEstimatorStateT> watermarkEstimator =
-          invoker.invokeNewWatermarkEstimator(
-              new BaseArgumentProvider<InputT, OutputT>() {
-                @Override
-                public InputT element(DoFn<InputT, OutputT> doFn) {
-                  return elementAndRestriction.getKey().getValue();
-                }
-
-                @Override
-                public Object restriction() {
-                  return elementAndRestriction.getValue();
-                }
-
-                @Override
-                public Instant timestamp(DoFn<InputT, OutputT> doFn) {
-                  return elementAndRestriction.getKey().getTimestamp();
-                }
-
-                @Override
-                public PipelineOptions pipelineOptions() {
-                  return c.getPipelineOptions();
-                }
-
-                @Override
-                public PaneInfo paneInfo(DoFn<InputT, OutputT> doFn) {
-                  return elementAndRestriction.getKey().getPane();
-                }
-
-                @Override
-                public BoundedWindow window() {
-                  return Iterables.getOnlyElement(elementAndRestriction.getKey().getWindows());
-                }
-
-                @Override
-                public Object watermarkEstimatorState() {
-                  return watermarkEstimatorStateT;
-                }
-
-                @Override
-                public Object sideInput(String tagId) {
-                  PCollectionView<?> view = sideInputMapping.get(tagId);
-                  if (view == null) {
-                    throw new IllegalArgumentException("calling getSideInput() with unknown view");
-                  }
-                  return sideInputReader.get(
-                      view, view.getWindowMappingFn().getSideInputWindow(window()));
-                }
-
-                @Override
-                public String getErrorContext() {
-                  return ProcessFn.class.getSimpleName() + ".invokeNewWatermarkEstimator";
-                }
-              });
-
-      final RestrictionTracker<RestrictionT, PositionT> tracker =
-          invoker.invokeNewTracker(
-              new BaseArgumentProvider<InputT, OutputT>() {
-                @Override
-                public InputT element(DoFn<InputT, OutputT> doFn) {
-                  return elementAndRestriction.getKey().getValue();
-                }
-
-                @Override
-                public Object restriction() {
-                  return elementAndRestriction.getValue();
-                }
-
-                @Override
-                public Instant timestamp(DoFn<InputT, OutputT> doFn) {
-                  return elementAndRestriction.getKey().getTimestamp();
-                }
-
-                @Override
-                public PipelineOptions pipelineOptions() {
-                  return c.getPipelineOptions();
-                }
-
-                @Override
-                public PaneInfo paneInfo(DoFn<InputT, OutputT> doFn) {
-                  return elementAndRestriction.getKey().getPane();
-                }
-
-                @Override
-                public BoundedWindow window() {
-                  return Iterables.getOnlyElement(elementAndRestriction.getKey().getWindows());
-                }
-
-                @Override
-                public Object sideInput(String tagId) {
-                  PCollectionView<?> view = sideInputMapping.get(tagId);
-                  if (view == null) {
-                    throw new IllegalArgumentException("calling getSideInput() with unknown view");
-                  }
-                  return sideInputReader.get(
-                      view, view.getWindowMappingFn().getSideInputWindow(window()));
-                }
-
-                @Override
-                public String getErrorContext() {
-                  return ProcessFn.class.getSimpleName() + ".invokeNewTracker";
-                }
-              });
+      KV<WindowedValue<InputT>, RestrictionT> remaining = elementAndRestriction;
+      WatermarkEstimatorStateT remainingWatermarkEstimatorState = watermarkEstimatorStateT;
       SplittableProcessElementInvoker<
                   InputT, OutputT, RestrictionT, PositionT, WatermarkEstimatorStateT>
               .Result
-          result =
-              processElementInvoker.invokeProcessElement(
-                  invoker,
-                  elementAndRestriction.getKey(),
-                  tracker,
-                  watermarkEstimator,
-                  sideInputMapping);
+          result;
+      while (true) {
+        result =
+            processElementInvoker.invokeProcessElement(
+                invoker,
+                remaining.getKey(),
+                newTracker(c, remaining),
+                newWatermarkEstimator(c, remaining, remainingWatermarkEstimatorState),
+                sideInputMapping);
+        if (!processElementInvoker.canResumeImmediately(result)) {
+          break;
+        }
+        // Continue with the residual right away, saving a round trip through state and a timer.
+        remaining = KV.of(remaining.getKey(), result.getResidualRestriction());
+        remainingWatermarkEstimatorState = result.getFutureWatermarkEstimatorState();
+      }
 
       // Save state for resuming.
       if (result.getResidualRestriction() == null) {
@@ -603,6 +512,115 @@ public class SplittableParDoViaKeyedWorkItems {
               stateNamespace, wakeupTime, wakeupTime, TimeDomain.PROCESSING_TIME));
     }
 
+    private WatermarkEstimator<WatermarkEstimatorStateT> newWatermarkEstimator(
+        ProcessContext c,
+        KV<WindowedValue<InputT>, RestrictionT> elementAndRestriction,
+        WatermarkEstimatorStateT watermarkEstimatorStateT) {
+      return invoker.invokeNewWatermarkEstimator(
+          new BaseArgumentProvider<InputT, OutputT>() {
+            @Override
+            public InputT element(DoFn<InputT, OutputT> doFn) {
+              return elementAndRestriction.getKey().getValue();
+            }
+
+            @Override
+            public Object restriction() {
+              return elementAndRestriction.getValue();
+            }
+
+            @Override
+            public Instant timestamp(DoFn<InputT, OutputT> doFn) {
+              return elementAndRestriction.getKey().getTimestamp();
+            }
+
+            @Override
+            public PipelineOptions pipelineOptions() {
+              return c.getPipelineOptions();
+            }
+
+            @Override
+            public PaneInfo paneInfo(DoFn<InputT, OutputT> doFn) {
+              return elementAndRestriction.getKey().getPane();
+            }
+
+            @Override
+            public BoundedWindow window() {
+              return Iterables.getOnlyElement(elementAndRestriction.getKey().getWindows());
+            }
+
+            @Override
+            public Object watermarkEstimatorState() {
+              return watermarkEstimatorStateT;
+            }
+
+            @Override
+            public Object sideInput(String tagId) {
+              PCollectionView<?> view = sideInputMapping.get(tagId);
+              if (view == null) {
+                throw new IllegalArgumentException("calling getSideInput() with unknown view");
+              }
+              return sideInputReader.get(
+                  view, view.getWindowMappingFn().getSideInputWindow(window()));
+            }
+
+            @Override
+            public String getErrorContext() {
+              return ProcessFn.class.getSimpleName() + ".invokeNewWatermarkEstimator";
+            }
+          });
+    }
+
+    private RestrictionTracker<RestrictionT, PositionT> newTracker(
+        ProcessContext c, KV<WindowedValue<InputT>, RestrictionT> elementAndRestriction) {
+      return invoker.invokeNewTracker(
+          new BaseArgumentProvider<InputT, OutputT>() {
+            @Override
+            public InputT element(DoFn<InputT, OutputT> doFn) {
+              return elementAndRestriction.getKey().getValue();
+            }
+
+            @Override
+            public Object restriction() {
+              return elementAndRestriction.getValue();
+            }
+
+            @Override
+            public Instant timestamp(DoFn<InputT, OutputT> doFn) {
+              return elementAndRestriction.getKey().getTimestamp();
+            }
+
+            @Override
+            public PipelineOptions pipelineOptions() {
+              return c.getPipelineOptions();
+            }
+
+            @Override
+            public PaneInfo paneInfo(DoFn<InputT, OutputT> doFn) {
+              return elementAndRestriction.getKey().getPane();
+            }
+
+            @Override
+            public BoundedWindow window() {
+              return Iterables.getOnlyElement(elementAndRestriction.getKey().getWindows());
+            }
+
+            @Override
+            public Object sideInput(String tagId) {
+              PCollectionView<?> view = sideInputMapping.get(tagId);
+              if (view == null) {
+                throw new IllegalArgumentException("calling getSideInput() with unknown view");
+              }
+              return sideInputReader.get(
+                  view, view.getWindowMappingFn().getSideInputWindow(window()));
+            }
+
+            @Override
+            public String getErrorContext() {
+              return ProcessFn.class.getSimpleName() + ".invokeNewTracker";
+            }
+          });
+    }
+
     private DoFnInvoker.ArgumentProvider<InputT, OutputT> wrapOptionsAsSetup(
         final PipelineOptions options) {
       return new BaseArgumentProvider<InputT, OutputT>() {
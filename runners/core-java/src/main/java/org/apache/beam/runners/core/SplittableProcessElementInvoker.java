@@ -91,4 +91,13 @@ public abstract class SplittableProcessElementInvoker<
       RestrictionTracker<RestrictionT, PositionT> tracker,
       WatermarkEstimator<WatermarkEstimatorStateT> watermarkEstimator,
       Map<String, PCollectionView<?>> sideInputMapping);
+
+  /**
+   * Returns whether the residual restriction of {@code result}, just returned by {@link
+   * #invokeProcessElement}, may be processed right away by another call, rather than being
+   * checkpointed and resumed later. Returns {@code false} by default.
+   */
+  public boolean canResumeImmediately(Result result) {
+    return false;
+  }
 }
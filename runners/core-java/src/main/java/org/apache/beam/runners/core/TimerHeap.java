@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.core;
+
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.beam.runners.core.TimerInternals.TimerData;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An indexed binary min-heap of {@link TimerData}, holding at most one timer per key.
+ *
+ * <p>Timers are ordered by timestamp, then by their natural ordering. Unlike a {@link
+ * java.util.TreeSet}, setting a timer whose key is already present coalesces with the existing
+ * timer: its entry is updated and moved in place in O(log n), without allocating, and setting an
+ * equal timer is a no-op. This suits stateful {@code DoFn}s which reset the same timer for every
+ * element.
+ *
+ * <p>The timestamps of the heap entries are held in a primitive array so that most comparisons
+ * never need to look at the {@link TimerData} itself.
+ *
+ * <p>This class is not thread safe.
+ *
+ * @param <K> the type of key identifying a timer, such as its namespace and id.
+ */
+@SuppressWarnings({
+  "nullness" // TODO(https://github.com/apache/beam/issues/20497)
+})
+public class TimerHeap<K> {
+  private static final int INITIAL_CAPACITY = 16;
+
+  /** The position of a key's timer in the heap. Allocated once per key. */
+  private static final class Entry<K> {
+    private final K key;
+    private TimerData timer;
+    private int position;
+
+    private Entry(K key, TimerData timer) {
+      this.key = key;
+      this.timer = timer;
+    }
+  }
+
+  private final Map<K, Entry<K>> entries = new HashMap<>();
+
+  @SuppressWarnings("unchecked")
+  private Entry<K>[] heap = (Entry<K>[]) new Entry<?>[INITIAL_CAPACITY];
+
+  private long[] timestamps = new long[INITIAL_CAPACITY];
+  private int size = 0;
+
+  /** Returns the number of timers in the heap. */
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Returns the timer set for {@code key}, or {@code null} if there is none. */
+  public @Nullable TimerData get(K key) {
+    Entry<K> entry = entries.get(key);
+    return entry == null ? null : entry.timer;
+  }
+
+  /**
+   * Sets the timer for {@code key}, replacing and returning any timer previously set for it.
+   * Returns {@code null} if there was none.
+   */
+  public @Nullable TimerData put(K key, TimerData timer) {
+    checkNotNull(timer);
+    Entry<K> entry = entries.get(key);
+    if (entry == null) {
+      entry = new Entry<>(key, timer);
+      entries.put(key, entry);
+      ensureCapacity(size + 1);
+      entry.position = size;
+      heap[size] = entry;
+      timestamps[size] = timer.getTimestamp().getMillis();
+      size++;
+      siftUp(entry.position);
+      return null;
+    }
+
+    TimerData previous = entry.timer;
+    if (previous.equals(timer)) {
+      return previous;
+    }
+    entry.timer = timer;
+    timestamps[entry.position] = timer.getTimestamp().getMillis();
+    if (compare(timer.getTimestamp().getMillis(), timer, previous) < 0) {
+      siftUp(entry.position);
+    } else {
+      siftDown(entry.position);
+    }
+    return previous;
+  }
+
+  /** Removes and returns the timer set for {@code key}, or {@code null} if there is none. */
+  public @Nullable TimerData remove(K key) {
+    Entry<K> entry = entries.remove(key);
+    if (entry == null) {
+      return null;
+    }
+    removeAt(entry.position);
+    return entry.timer;
+  }
+
+  /** Returns the earliest timer, or {@code null} if the heap is empty. */
+  public @Nullable TimerData peek() {
+    return size == 0 ? null : heap[0].timer;
+  }
+
+  /** Removes and returns the earliest timer, or {@code null} if the heap is empty. */
+  public @Nullable TimerData poll() {
+    if (size == 0) {
+      return null;
+    }
+    Entry<K> first = heap[0];
+    entries.remove(first.key);
+    removeAt(0);
+    return first.timer;
+  }
+
+  /** Returns the timers in the heap, in order. */
+  public List<TimerData> toSortedList() {
+    List<TimerData> result = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      result.add(heap[i].timer);
+    }
+    result.sort((a, b) -> compare(a.getTimestamp().getMillis(), a, b));
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return toSortedList().toString();
+  }
+
+  private void removeAt(int position) {
+    size--;
+    if (position == size) {
+      heap[size] = null;
+      return;
+    }
+    Entry<K> last = heap[size];
+    heap[size] = null;
+    move(last, position, timestamps[size]);
+    siftDown(position);
+    if (heap[position] == last) {
+      siftUp(position);
+    }
+  }
+
+  private void siftUp(int position) {
+    Entry<K> entry = heap[position];
+    long timestamp = timestamps[position];
+    while (position > 0) {
+      int parent = (position - 1) >>> 1;
+      if (compareTo(timestamp, entry.timer, parent) >= 0) {
+        break;
+      }
+      move(heap[parent], position, timestamps[parent]);
+      position = parent;
+    }
+    move(entry, position, timestamp);
+  }
+
+  private void siftDown(int position) {
+    Entry<K> entry = heap[position];
+    long timestamp = timestamps[position];
+    int half = size >>> 1;
+    while (position < half) {
+      int child = 2 * position + 1;
+      int right = child + 1;
+      if (right < size && compareTo(timestamps[right], heap[right].timer, child) < 0) {
+        child = right;
+      }
+      if (compareTo(timestamp, entry.timer, child) <= 0) {
+        break;
+      }
+      move(heap[child], position, timestamps[child]);
+      position = child;
+    }
+    move(entry, position, timestamp);
+  }
+
+  private void move(Entry<K> entry, int position, long timestamp) {
+    heap[position] = entry;
+    timestamps[position] = timestamp;
+    entry.position = position;
+  }
+
+  /**
+   * Compares {@code timer}, whose timestamp is {@code timestamp}, with the timer at {@code
+   * position} in the heap.
+   */
+  private int compareTo(long timestamp, TimerData timer, int position) {
+    int result = Long.compare(timestamp, timestamps[position]);
+    return result != 0 ? result : timer.compareTo(heap[position].timer);
+  }
+
+  private static int compare(long timestamp, TimerData timer, TimerData other) {
+    int result = Long.compare(timestamp, other.getTimestamp().getMillis());
+    return result != 0 ? result : timer.compareTo(other);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > heap.length) {
+      int newCapacity = Math.max(capacity, heap.length * 2);
+      heap = Arrays.copyOf(heap, newCapacity);
+      timestamps = Arrays.copyOf(timestamps, newCapacity);
+    }
+  }
+}
@@ -109,6 +109,53 @@ class WatermarkHold<W extends BoundedWindow> implements Serializable {
     return hold;
   }
 
+  /**
+   * Add holds for a batch of elements with the given {@code timestamps}, all of which belong to the
+   * window in {@code context}.
+   *
+   * <p>This is equivalent to calling {@link #addHolds} once per element, but the element holds are
+   * combined locally with the window strategy's {@link TimestampCombiner} so that each hold state
+   * is written at most once for the whole batch.
+   */
+  public void addHolds(ReduceFn<?, ?, ?, W>.Context context, Iterable<Instant> timestamps) {
+    Instant outputWM = timerInternals.currentOutputWatermarkTime();
+    Instant inputWM = timerInternals.currentInputWatermarkTime();
+    boolean windowTooLate = context.window().maxTimestamp().isBefore(inputWM);
+    TimestampCombiner timestampCombiner = windowingStrategy.getTimestampCombiner();
+
+    @Nullable Instant elementHold = null;
+    boolean anyTooLate = false;
+    for (Instant timestamp : timestamps) {
+      Instant shifted = shift(timestamp, context.window());
+      if (windowTooLate || (outputWM != null && shifted.isBefore(outputWM))) {
+        anyTooLate = true;
+      } else {
+        elementHold =
+            elementHold == null ? shifted : timestampCombiner.combine(elementHold, shifted);
+      }
+    }
+
+    if (elementHold != null) {
+      checkState(
+          !elementHold.isAfter(BoundedWindow.TIMESTAMP_MAX_VALUE),
+          "Element hold %s is beyond end-of-time",
+          elementHold);
+      context.state().access(elementHoldTag).add(elementHold);
+    }
+    WindowTracing.trace(
+        "WatermarkHold.addHolds: combined element hold at {} for "
+            + "key:{}; window:{}; inputWatermark:{}; outputWatermark:{}",
+        elementHold,
+        context.key(),
+        context.window(),
+        inputWM,
+        outputWM);
+
+    if (anyTooLate) {
+      addGarbageCollectionHold(context, false /*paneIsEmpty*/);
+    }
+  }
+
   /**
    * Return {@code timestamp}, possibly shifted forward in time according to the window strategy's
    * output time function.
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -245,4 +246,45 @@ public class MergingActiveWindowSetTest {
     // For then on we are back to the eager case.
     assertEquals(ImmutableSet.of(window(1, 10)), set.readStateAddresses(window(1, 12)));
   }
+
+  @Test
+  public void testMergeWithManyActiveSessions() throws Exception {
+    // Disjoint ACTIVE windows 0+10, 15+10, ..., 1485+10.
+    long[] instants = new long[100];
+    for (int i = 0; i < instants.length; i++) {
+      instants[i] = 15L * i;
+    }
+    add(instants);
+    set.merge(callback);
+    activate(Collections.emptyMap(), instants);
+    cleanup();
+    assertEquals(100, set.getActiveAndNewWindows().size());
+
+    // A NEW window bridging two ACTIVE windows merges just those.
+    add(8);
+    Map<IntervalWindow, IntervalWindow> map =
+        merge(ImmutableList.of(window(0, 10), window(8, 10), window(15, 10)), window(0, 25));
+    activate(map, 8);
+    assertEquals(99, set.getActiveAndNewWindows().size());
+    assertEquals(ImmutableSet.of(window(0, 10)), set.readStateAddresses(window(0, 25)));
+    cleanup();
+
+    // Intersecting NEW windows are merged together with the ACTIVE windows either one meets.
+    add(48, 56);
+    map =
+        merge(
+            ImmutableList.of(window(45, 10), window(48, 10), window(56, 10), window(60, 10)),
+            window(45, 25));
+    activate(map, 48, 56);
+    assertEquals(98, set.getActiveAndNewWindows().size());
+    assertEquals(ImmutableSet.of(window(45, 10)), set.readStateAddresses(window(45, 25)));
+    cleanup();
+
+    // A NEW window after all ACTIVE windows merges with nothing.
+    add(1600);
+    set.merge(callback);
+    activate(Collections.emptyMap(), 1600);
+    assertEquals(99, set.getActiveAndNewWindows().size());
+    cleanup();
+  }
 }
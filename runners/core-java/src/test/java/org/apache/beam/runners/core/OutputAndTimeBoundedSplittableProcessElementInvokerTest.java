@@ -26,11 +26,18 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import org.apache.beam.sdk.io.range.OffsetRange;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.transforms.DoFn;
@@ -57,6 +64,9 @@ import org.junit.rules.ExpectedException;
 public class OutputAndTimeBoundedSplittableProcessElementInvokerTest {
   @Rule public transient ExpectedException e = ExpectedException.none();
 
+  // Current time of the clocks of the invokers created by newInvoker(fn, n, tickMillis).
+  private long clockMillis = 0;
+
   private static class SomeFn extends DoFn<Void, String> {
     private final Duration sleepBeforeFirstClaim;
     private final int numOutputsPerProcessCall;
@@ -108,52 +118,82 @@ public class OutputAndTimeBoundedSplittableProcessElementInvokerTest {
 
   private SplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void>.Result runTest(
       DoFn<Void, String> fn, OffsetRange initialRestriction) throws Exception {
-    SplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void> invoker =
-        new OutputAndTimeBoundedSplittableProcessElementInvoker<>(
-            fn,
-            PipelineOptionsFactory.create(),
-            new OutputWindowedValue<String>() {
-              @Override
-              public void outputWindowedValue(
-                  String output,
-                  Instant timestamp,
-                  Collection<? extends BoundedWindow> windows,
-                  PaneInfo pane) {}
-
-              @Override
-              public <AdditionalOutputT> void outputWindowedValue(
-                  TupleTag<AdditionalOutputT> tag,
-                  AdditionalOutputT output,
-                  Instant timestamp,
-                  Collection<? extends BoundedWindow> windows,
-                  PaneInfo pane) {}
-            },
-            NullSideInputReader.empty(),
-            Executors.newSingleThreadScheduledExecutor(),
-            1000,
-            Duration.standardSeconds(3),
-            () -> {
-              throw new UnsupportedOperationException("BundleFinalizer not configured for test.");
-            });
-
-    SplittableProcessElementInvoker.Result rval =
-        invoker.invokeProcessElement(
-            DoFnInvokers.invokerFor(fn),
-            WindowedValue.of(null, Instant.now(), GlobalWindow.INSTANCE, PaneInfo.NO_FIRING),
-            new OffsetRangeTracker(initialRestriction),
-            new WatermarkEstimator<Void>() {
-              @Override
-              public Instant currentWatermark() {
-                return GlobalWindow.TIMESTAMP_MIN_VALUE;
-              }
-
-              @Override
-              public Void getState() {
-                return null;
-              }
-            },
-            Collections.emptyMap());
-    return rval;
+    return invoke(
+        newInvoker(fn, Executors.newSingleThreadScheduledExecutor(), 1000, Instant::now),
+        fn,
+        initialRestriction);
+  }
+
+  /**
+   * Returns an invoker whose clock advances by {@code tickMillis} whenever it is read, and which
+   * never takes a checkpoint because {@code maxDuration} passed.
+   */
+  private OutputAndTimeBoundedSplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void>
+      newInvoker(DoFn<Void, String> fn, int maxAdaptiveNumOutputs, long tickMillis) {
+    ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+    doReturn(mock(ScheduledFuture.class))
+        .when(executor)
+        .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    return newInvoker(
+        fn, executor, maxAdaptiveNumOutputs, () -> new Instant(clockMillis += tickMillis));
+  }
+
+  private OutputAndTimeBoundedSplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void>
+      newInvoker(
+          DoFn<Void, String> fn,
+          ScheduledExecutorService executor,
+          int maxAdaptiveNumOutputs,
+          Supplier<Instant> clock) {
+    return new OutputAndTimeBoundedSplittableProcessElementInvoker<>(
+        fn,
+        PipelineOptionsFactory.create(),
+        new OutputWindowedValue<String>() {
+          @Override
+          public void outputWindowedValue(
+              String output,
+              Instant timestamp,
+              Collection<? extends BoundedWindow> windows,
+              PaneInfo pane) {}
+
+          @Override
+          public <AdditionalOutputT> void outputWindowedValue(
+              TupleTag<AdditionalOutputT> tag,
+              AdditionalOutputT output,
+              Instant timestamp,
+              Collection<? extends BoundedWindow> windows,
+              PaneInfo pane) {}
+        },
+        NullSideInputReader.empty(),
+        executor,
+        1000,
+        Duration.standardSeconds(3),
+        () -> {
+          throw new UnsupportedOperationException("BundleFinalizer not configured for test.");
+        },
+        maxAdaptiveNumOutputs,
+        clock);
+  }
+
+  private SplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void>.Result invoke(
+      SplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void> invoker,
+      DoFn<Void, String> fn,
+      OffsetRange restriction) {
+    return invoker.invokeProcessElement(
+        DoFnInvokers.invokerFor(fn),
+        WindowedValue.of(null, Instant.now(), GlobalWindow.INSTANCE, PaneInfo.NO_FIRING),
+        new OffsetRangeTracker(restriction),
+        new WatermarkEstimator<Void>() {
+          @Override
+          public Instant currentWatermark() {
+            return GlobalWindow.TIMESTAMP_MIN_VALUE;
+          }
+
+          @Override
+          public Void getState() {
+            return null;
+          }
+        },
+        Collections.emptyMap());
   }
 
   @Test
@@ -208,6 +248,75 @@ public class OutputAndTimeBoundedSplittableProcessElementInvokerTest {
     assertEquals(new OffsetRange(5, 10), res.getResidualRestriction());
   }
 
+  @Test
+  public void testResumeImmediatelyNotAllowedByDefault() throws Exception {
+    SomeFn fn = new SomeFn(Duration.ZERO, 5, Duration.ZERO);
+    OutputAndTimeBoundedSplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void>
+        invoker = newInvoker(fn, 1000, 1);
+    SplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void>.Result res =
+        invoke(invoker, fn, new OffsetRange(0, 10));
+    assertEquals(new OffsetRange(5, 10), res.getResidualRestriction());
+    assertFalse(invoker.canResumeImmediately(res));
+    assertEquals(1000, invoker.getCurrentMaxNumOutputs());
+  }
+
+  @Test
+  public void testAdaptiveResumesImmediatelyWithinSharedBudget() throws Exception {
+    SomeFn fn = new SomeFn(Duration.ZERO, 10, Duration.ZERO);
+    OutputAndTimeBoundedSplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void>
+        invoker = newInvoker(fn, 5000, 1);
+    SplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void>.Result res =
+        invoke(invoker, fn, new OffsetRange(0, 100000));
+    assertEquals(new OffsetRange(10, 100000), res.getResidualRestriction());
+
+    int numCalls = 1;
+    while (invoker.canResumeImmediately(res)) {
+      res = invoke(invoker, fn, res.getResidualRestriction());
+      ++numCalls;
+    }
+    // At 10 outputs per millisecond the output budget converges to 4999 outputs. The calls stop
+    // resuming immediately once they have used it up together, long before the time budget.
+    OffsetRange residualRange = res.getResidualRestriction();
+    assertEquals(4999, invoker.getCurrentMaxNumOutputs());
+    assertEquals(500, numCalls);
+    assertEquals(new OffsetRange(4999, 100000), residualRange);
+
+    // A new call after a checkpoint starts with a fresh budget.
+    res = invoke(invoker, fn, residualRange);
+    assertEquals(
+        new OffsetRange(residualRange.getFrom() + 10, 100000), res.getResidualRestriction());
+  }
+
+  @Test
+  public void testAdaptiveMaxNumOutputsFollowsThroughput() throws Exception {
+    SomeFn fn = new SomeFn(Duration.ZERO, Integer.MAX_VALUE, Duration.ZERO);
+    OutputAndTimeBoundedSplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void>
+        invoker = newInvoker(fn, 5000, 1);
+    SplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void>.Result res =
+        invoke(invoker, fn, new OffsetRange(0, 100000));
+    // The first call is checkpointed after the initial number of outputs, but the DoFn produced
+    // them within a millisecond, so the limit moves halfway towards the maximum of 5000.
+    assertEquals(new OffsetRange(1000, 100000), res.getResidualRestriction());
+    assertFalse(invoker.canResumeImmediately(res));
+    assertEquals(3000, invoker.getCurrentMaxNumOutputs());
+
+    res = invoke(invoker, fn, res.getResidualRestriction());
+    assertEquals(new OffsetRange(4000, 100000), res.getResidualRestriction());
+    assertEquals(4000, invoker.getCurrentMaxNumOutputs());
+  }
+
+  @Test
+  public void testAdaptiveMaxNumOutputsStaysAtMinimumForSlowFn() throws Exception {
+    SomeFn fn = new SomeFn(Duration.ZERO, Integer.MAX_VALUE, Duration.ZERO);
+    // Each call takes the whole maxDuration of 3 seconds to produce its 1000 outputs.
+    OutputAndTimeBoundedSplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void>
+        invoker = newInvoker(fn, 5000, 3000);
+    SplittableProcessElementInvoker<Void, String, OffsetRange, Long, Void>.Result res =
+        invoke(invoker, fn, new OffsetRange(0, 100000));
+    assertEquals(new OffsetRange(1000, 100000), res.getResidualRestriction());
+    assertEquals(1000, invoker.getCurrentMaxNumOutputs());
+  }
+
   @Test
   public void testInvokeProcessElementOutputDisallowedBeforeTryClaim() throws Exception {
     DoFn<Void, String> brokenFn =
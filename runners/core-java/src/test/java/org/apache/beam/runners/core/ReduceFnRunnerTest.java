@@ -44,7 +44,9 @@ import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 import org.apache.beam.runners.core.metrics.MetricsContainerImpl;
+import org.apache.beam.runners.core.triggers.AfterPaneStateMachine;
 import org.apache.beam.runners.core.triggers.DefaultTriggerStateMachine;
+import org.apache.beam.runners.core.triggers.ExecutableTriggerStateMachine;
 import org.apache.beam.runners.core.triggers.TriggerStateMachine;
 import org.apache.beam.sdk.coders.VarIntCoder;
 import org.apache.beam.sdk.metrics.MetricName;
@@ -399,6 +401,77 @@ public class ReduceFnRunnerTest {
         WindowMatchers.valueWithPaneInfo(PaneInfo.createPane(false, false, Timing.LATE, 1, 1)));
   }
 
+  /**
+   * Tests that a bundle holding several elements for several non-merging windows, which is
+   * processed one window at a time, produces the expected panes and watermark holds.
+   */
+  @Test
+  public void testMultipleElementsPerWindowWithDefaultTrigger() throws Exception {
+    WindowingStrategy<?, IntervalWindow> strategy =
+        WindowingStrategy.of((WindowFn<?, IntervalWindow>) FixedWindows.of(Duration.millis(10)))
+            .withTrigger(DefaultTrigger.of())
+            .withTimestampCombiner(TimestampCombiner.EARLIEST)
+            .withMode(AccumulationMode.ACCUMULATING_FIRED_PANES)
+            .withAllowedLateness(Duration.millis(100));
+
+    ReduceFnTester<Integer, Integer, IntervalWindow> tester =
+        ReduceFnTester.combining(strategy, Sum.ofIntegers(), VarIntCoder.of());
+
+    tester.advanceInputWatermark(new Instant(0));
+    tester.injectElements(
+        TimestampedValue.of(1, new Instant(5)),
+        TimestampedValue.of(2, new Instant(1)),
+        TimestampedValue.of(3, new Instant(12)),
+        TimestampedValue.of(4, new Instant(3)));
+    assertEquals(new Instant(1), tester.getWatermarkHold());
+
+    // Fires [0, 10) ON_TIME; [10, 20) keeps holding the output watermark.
+    tester.advanceInputWatermark(new Instant(10));
+    assertThat(
+        tester.extractOutput(),
+        contains(
+            isSingleWindowedValue(
+                equalTo(7), 1, 0, 10, PaneInfo.createPane(true, false, Timing.ON_TIME, 0, 0))));
+    assertEquals(new Instant(12), tester.getWatermarkHold());
+
+    // A late element for [0, 10) and an on time element for [10, 20) in the same bundle.
+    tester.injectElements(
+        TimestampedValue.of(5, new Instant(2)), TimestampedValue.of(10, new Instant(15)));
+    assertThat(
+        tester.extractOutput(),
+        contains(
+            isSingleWindowedValue(
+                equalTo(12), 9, 0, 10, PaneInfo.createPane(false, false, Timing.LATE, 1, 1))));
+    assertEquals(new Instant(12), tester.getWatermarkHold());
+
+    tester.advanceInputWatermark(new Instant(100));
+    assertThat(
+        tester.extractOutput(),
+        contains(
+            isSingleWindowedValue(
+                equalTo(13), 12, 10, 20, PaneInfo.createPane(true, false, Timing.ON_TIME, 0, 0))));
+  }
+
+  @Test
+  public void testCanProcessElementsPerWindow() throws Exception {
+    WindowingStrategy<?, IntervalWindow> fixed =
+        WindowingStrategy.of((WindowFn<?, IntervalWindow>) FixedWindows.of(Duration.millis(10)));
+    WindowingStrategy<?, IntervalWindow> sessions =
+        WindowingStrategy.of(
+            (WindowFn<?, IntervalWindow>) Sessions.withGapDuration(Duration.millis(10)));
+
+    assertTrue(
+        ReduceFnRunner.canProcessElementsPerWindow(
+            fixed, ExecutableTriggerStateMachine.create(DefaultTriggerStateMachine.of())));
+    assertFalse(
+        ReduceFnRunner.canProcessElementsPerWindow(
+            sessions, ExecutableTriggerStateMachine.create(DefaultTriggerStateMachine.of())));
+    assertFalse(
+        ReduceFnRunner.canProcessElementsPerWindow(
+            fixed,
+            ExecutableTriggerStateMachine.create(AfterPaneStateMachine.elementCountAtLeast(2))));
+  }
+
   @Test
   public void testOnElementCombiningDiscarding() throws Exception {
     // Test basic execution of a trigger using a non-combining window set and discarding mode.
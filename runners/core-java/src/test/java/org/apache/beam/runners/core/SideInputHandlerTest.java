@@ -116,6 +116,33 @@ public class SideInputHandlerTest {
     assertFalse(sideInputHandler.isReady(view1, secondWindow));
   }
 
+  @Test
+  public void testIsReadyForWindowsAddedThroughSharedState() {
+    long view1WindowSize = 100;
+    PCollection<String> pc = Pipeline.create().apply(Create.of("1"));
+    PCollectionView<Iterable<String>> view1 =
+        pc.apply(Window.into(FixedWindows.of(Duration.millis(view1WindowSize))))
+            .apply(View.asIterable());
+
+    // Both handlers use the same state, as after restoring from a checkpoint.
+    StateInternals stateInternals = InMemoryStateInternals.<Void>forKey(null);
+    SideInputHandler readingHandler = new SideInputHandler(ImmutableList.of(view1), stateInternals);
+    SideInputHandler writingHandler = new SideInputHandler(ImmutableList.of(view1), stateInternals);
+
+    IntervalWindow window = new IntervalWindow(new Instant(0), new Instant(view1WindowSize));
+    assertFalse(readingHandler.isReady(view1, window));
+
+    writingHandler.addSideInputValue(
+        view1,
+        valuesInWindow(
+            materializeValuesFor(view1.getPipeline().getOptions(), View.asIterable(), "Hello"),
+            new Instant(0),
+            window));
+
+    assertTrue(readingHandler.isReady(view1, window));
+    assertTrue(readingHandler.isReady(view1, window));
+  }
+
   @Test
   public void testNewInputReplacesPreviousInput() {
     long view1WindowSize = 100;
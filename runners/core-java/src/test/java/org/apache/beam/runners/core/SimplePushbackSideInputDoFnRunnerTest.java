@@ -26,6 +26,8 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -274,6 +276,31 @@ public class SimplePushbackSideInputDoFnRunnerTest {
         containsInAnyOrder(ImmutableList.copyOf(multiWindow.explodeWindows()).toArray()));
   }
 
+  @Test
+  public void processElementSideInputReadyCheckedOncePerBundle() {
+    when(reader.isReady(Mockito.eq(singletonView), Mockito.any(BoundedWindow.class)))
+        .thenReturn(true);
+
+    SimplePushbackSideInputDoFnRunner<Integer, Integer> runner =
+        createRunner(ImmutableList.of(singletonView));
+
+    IntervalWindow window = new IntervalWindow(new Instant(-500L), new Instant(0L));
+    WindowedValue<Integer> first =
+        WindowedValue.of(2, new Instant(-2), window, PaneInfo.ON_TIME_AND_ONLY_FIRING);
+    WindowedValue<Integer> second =
+        WindowedValue.of(3, new Instant(-3), window, PaneInfo.ON_TIME_AND_ONLY_FIRING);
+    assertThat(runner.processElementInReadyWindows(first), emptyIterable());
+    assertThat(runner.processElementInReadyWindows(second), emptyIterable());
+    assertThat(underlying.inputElems, contains(first, second));
+    verify(reader, times(1)).isReady(Mockito.eq(singletonView), Mockito.any(BoundedWindow.class));
+
+    // Readiness is checked again in the next bundle.
+    runner.finishBundle();
+    runner.startBundle();
+    assertThat(runner.processElementInReadyWindows(first), emptyIterable());
+    verify(reader, times(2)).isReady(Mockito.eq(singletonView), Mockito.any(BoundedWindow.class));
+  }
+
   @Test
   public void processElementNoSideInputs() {
     SimplePushbackSideInputDoFnRunner<Integer, Integer> runner = createRunner(ImmutableList.of());
@@ -147,6 +147,27 @@ public class SplittableParDoProcessFnTest {
         int maxOutputsPerBundle,
         Duration maxBundleDuration)
         throws Exception {
+      this(
+          currentProcessingTime,
+          fn,
+          inputCoder,
+          restrictionCoder,
+          watermarkEstimatorStateCoder,
+          maxOutputsPerBundle,
+          maxBundleDuration,
+          maxOutputsPerBundle);
+    }
+
+    ProcessFnTester(
+        Instant currentProcessingTime,
+        final DoFn<InputT, OutputT> fn,
+        Coder<InputT> inputCoder,
+        Coder<RestrictionT> restrictionCoder,
+        Coder<WatermarkEstimatorStateT> watermarkEstimatorStateCoder,
+        int maxOutputsPerBundle,
+        Duration maxBundleDuration,
+        int maxAdaptiveOutputsPerBundle)
+        throws Exception {
       // The exact windowing strategy doesn't matter in this test, but it should be able to
       // encode IntervalWindow's because that's what all tests here use.
       WindowingStrategy<InputT, BoundedWindow> windowingStrategy =
@@ -190,7 +211,8 @@ public class SplittableParDoProcessFnTest {
               Executors.newSingleThreadScheduledExecutor(Executors.defaultThreadFactory()),
               maxOutputsPerBundle,
               maxBundleDuration,
-              () -> bundleFinalizer));
+              () -> bundleFinalizer,
+              maxAdaptiveOutputsPerBundle));
       // Do not clone since ProcessFn references non-serializable DoFnTester itself
       // through the state/timer/output callbacks.
       this.tester.setCloningBehavior(DoFnTester.CloningBehavior.DO_NOT_CLONE);
@@ -508,6 +530,29 @@ public class SplittableParDoProcessFnTest {
     assertFalse(tester.advanceProcessingTimeBy(Duration.standardSeconds(1)));
   }
 
+  @Test
+  public void testResumesImmediatelyInAdaptiveMode() throws Exception {
+    DoFn<Integer, String> fn = new CounterFn(1);
+    Instant base = Instant.now();
+    dateTimeProvider.setDateTimeFixed(base.getMillis());
+    ProcessFnTester<Integer, String, OffsetRange, Long, Void> tester =
+        new ProcessFnTester<>(
+            base,
+            fn,
+            BigEndianIntegerCoder.of(),
+            SerializableCoder.of(OffsetRange.class),
+            VoidCoder.of(),
+            MAX_OUTPUTS_PER_BUNDLE,
+            MAX_BUNDLE_DURATION,
+            2 * MAX_OUTPUTS_PER_BUNDLE);
+
+    // The residual of each call is processed right away rather than on a timer.
+    tester.startElement(42, new OffsetRange(0, 3));
+    assertThat(tester.takeOutputElements(), contains("42", "43", "44"));
+    assertFalse(tester.advanceProcessingTimeBy(Duration.standardSeconds(1)));
+    assertEquals(0, tester.takeOutputElements().size());
+  }
+
   @Test
   public void testCheckpointsAfterNumOutputs() throws Exception {
     int max = 100;
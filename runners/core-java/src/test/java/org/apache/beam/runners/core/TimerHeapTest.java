@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.core;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import org.apache.beam.runners.core.TimerInternals.TimerData;
+import org.apache.beam.sdk.state.TimeDomain;
+import org.joda.time.Instant;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link TimerHeap}. */
+@RunWith(JUnit4.class)
+public class TimerHeapTest {
+
+  private static final StateNamespace NS1 = new StateNamespaceForTest("NS1");
+
+  private static TimerData timer(String id, long timestamp) {
+    return TimerData.of(
+        id, NS1, new Instant(timestamp), new Instant(timestamp), TimeDomain.EVENT_TIME);
+  }
+
+  @Test
+  public void testPollInTimestampOrder() {
+    TimerHeap<String> heap = new TimerHeap<>();
+    TimerData first = timer("a", 5);
+    TimerData second = timer("b", 10);
+    TimerData third = timer("c", 20);
+    heap.put("c", third);
+    heap.put("a", first);
+    heap.put("b", second);
+
+    assertThat(heap.size(), equalTo(3));
+    assertThat(heap.toSortedList(), contains(first, second, third));
+    assertThat(heap.peek(), equalTo(first));
+    assertThat(heap.poll(), equalTo(first));
+    assertThat(heap.poll(), equalTo(second));
+    assertThat(heap.poll(), equalTo(third));
+    assertThat(heap.poll(), nullValue());
+    assertThat(heap.isEmpty(), equalTo(true));
+  }
+
+  @Test
+  public void testPutCoalescesByKey() {
+    TimerHeap<String> heap = new TimerHeap<>();
+    TimerData early = timer("a", 5);
+    TimerData late = timer("a", 50);
+    TimerData other = timer("b", 10);
+
+    assertThat(heap.put("a", early), nullValue());
+    heap.put("b", other);
+    assertThat(heap.put("a", early), equalTo(early));
+    assertThat(heap.size(), equalTo(2));
+
+    assertThat(heap.put("a", late), equalTo(early));
+    assertThat(heap.size(), equalTo(2));
+    assertThat(heap.get("a"), equalTo(late));
+    assertThat(heap.poll(), equalTo(other));
+    assertThat(heap.poll(), equalTo(late));
+
+    heap.put("a", late);
+    heap.put("b", other);
+    heap.put("a", early);
+    assertThat(heap.poll(), equalTo(early));
+    assertThat(heap.poll(), equalTo(other));
+  }
+
+  @Test
+  public void testRemove() {
+    TimerHeap<String> heap = new TimerHeap<>();
+    TimerData first = timer("a", 5);
+    TimerData second = timer("b", 10);
+    heap.put("a", first);
+    heap.put("b", second);
+
+    assertThat(heap.remove("a"), equalTo(first));
+    assertThat(heap.remove("a"), nullValue());
+    assertThat(heap.get("a"), nullValue());
+    assertThat(heap.peek(), equalTo(second));
+    assertThat(heap.size(), equalTo(1));
+  }
+
+  @Test
+  public void testMatchesSortedMapUnderRandomUpdates() {
+    Random random = new Random(17);
+    TimerHeap<String> heap = new TimerHeap<>();
+    TreeMap<String, TimerData> expected = new TreeMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      String key = Integer.toString(random.nextInt(200));
+      int operation = random.nextInt(4);
+      if (operation == 0) {
+        assertThat(heap.remove(key), equalTo(expected.remove(key)));
+      } else if (operation == 1 && !expected.isEmpty()) {
+        TimerData polled = heap.poll();
+        assertThat(polled, equalTo(expected.values().stream().sorted().findFirst().get()));
+        expected.remove(polled.getTimerId());
+      } else {
+        TimerData timer = timer(key, random.nextInt(1000));
+        assertThat(heap.put(key, timer), equalTo(expected.put(key, timer)));
+      }
+      assertThat(heap.size(), equalTo(expected.size()));
+    }
+
+    List<TimerData> drained = new ArrayList<>();
+    while (!heap.isEmpty()) {
+      drained.add(heap.poll());
+    }
+    List<TimerData> sorted = new ArrayList<>(expected.values());
+    sorted.sort(null);
+    assertThat(drained, equalTo(sorted));
+  }
+}
@@ -18,8 +18,8 @@
 package org.apache.beam.runners.direct;
 
 import java.util.Map;
-import java.util.NavigableSet;
 import org.apache.beam.runners.core.StateNamespace;
+import org.apache.beam.runners.core.TimerHeap;
 import org.apache.beam.runners.core.TimerInternals;
 import org.apache.beam.runners.direct.WatermarkManager.TimerUpdate;
 import org.apache.beam.runners.direct.WatermarkManager.TimerUpdate.TimerUpdateBuilder;
@@ -27,7 +27,6 @@ import org.apache.beam.runners.direct.WatermarkManager.TransformWatermarks;
 import org.apache.beam.sdk.state.TimeDomain;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Maps;
-import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Sets;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Instant;
 
@@ -39,7 +38,7 @@ class DirectTimerInternals implements TimerInternals {
   private final Clock processingTimeClock;
   private final TransformWatermarks watermarks;
   private final TimerUpdateBuilder timerUpdateBuilder;
-  private final Map<TimeDomain, NavigableSet<TimerData>> modifiedTimers;
+  private final Map<TimeDomain, TimerHeap<String>> modifiedTimers;
   private final Map<String, TimerData> modifiedTimerIds;
 
   public static DirectTimerInternals create(
@@ -53,9 +52,9 @@ class DirectTimerInternals implements TimerInternals {
     this.watermarks = watermarks;
     this.timerUpdateBuilder = timerUpdateBuilder;
     this.modifiedTimers = Maps.newHashMap();
-    this.modifiedTimers.put(TimeDomain.EVENT_TIME, Sets.newTreeSet());
-    this.modifiedTimers.put(TimeDomain.PROCESSING_TIME, Sets.newTreeSet());
-    this.modifiedTimers.put(TimeDomain.SYNCHRONIZED_PROCESSING_TIME, Sets.newTreeSet());
+    this.modifiedTimers.put(TimeDomain.EVENT_TIME, new TimerHeap<>());
+    this.modifiedTimers.put(TimeDomain.PROCESSING_TIME, new TimerHeap<>());
+    this.modifiedTimers.put(TimeDomain.SYNCHRONIZED_PROCESSING_TIME, new TimerHeap<>());
     this.modifiedTimerIds = Maps.newHashMap();
   }
 
@@ -78,7 +77,7 @@ class DirectTimerInternals implements TimerInternals {
   @Override
   public void setTimer(TimerData timerData) {
     timerUpdateBuilder.setTimer(timerData);
-    getModifiedTimersOrdered(timerData.getDomain()).add(timerData);
+    getModifiedTimersOrdered(timerData.getDomain()).put(timerData.stringKey(), timerData);
     modifiedTimerIds.put(timerData.stringKey(), timerData);
   }
 
@@ -107,6 +106,7 @@ class DirectTimerInternals implements TimerInternals {
   @Override
   public void deleteTimer(TimerData timerData) {
     timerUpdateBuilder.deletedTimer(timerData);
+    getModifiedTimersOrdered(timerData.getDomain()).remove(timerData.stringKey());
     modifiedTimerIds.put(timerData.stringKey(), timerData.deleted());
   }
 
@@ -114,8 +114,12 @@ class DirectTimerInternals implements TimerInternals {
     return timerUpdateBuilder.build();
   }
 
-  public NavigableSet<TimerData> getModifiedTimersOrdered(TimeDomain timeDomain) {
-    NavigableSet<TimerData> modified = modifiedTimers.get(timeDomain);
+  /**
+   * Returns the timers set in the given time domain during this bundle and not yet fired or
+   * deleted, holding only the latest setting of each timer.
+   */
+  public TimerHeap<String> getModifiedTimersOrdered(TimeDomain timeDomain) {
+    TimerHeap<String> modified = modifiedTimers.get(timeDomain);
     if (modified == null) {
       throw new IllegalStateException("Unexpected time domain " + timeDomain);
     }
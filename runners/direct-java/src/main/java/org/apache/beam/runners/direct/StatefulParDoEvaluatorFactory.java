@@ -19,13 +19,13 @@ package org.apache.beam.runners.direct;
 
 import com.google.auto.value.AutoValue;
 import java.util.Collections;
-import java.util.NavigableSet;
 import javax.annotation.Nullable;
 import org.apache.beam.runners.core.KeyedWorkItem;
 import org.apache.beam.runners.core.KeyedWorkItems;
 import org.apache.beam.runners.core.StateNamespaces.WindowNamespace;
 import org.apache.beam.runners.core.StateTag;
 import org.apache.beam.runners.core.StateTags;
+import org.apache.beam.runners.core.TimerHeap;
 import org.apache.beam.runners.core.TimerInternals.TimerData;
 import org.apache.beam.runners.direct.DirectExecutionContext.DirectStepContext;
 import org.apache.beam.runners.direct.ParDoMultiOverrideFactory.StatefulParDo;
@@ -173,10 +173,10 @@ final class StatefulParDoEvaluatorFactory<K, InputT, OutputT> implements Transfo
         // Get any new or modified timers that are earlier than the current one. In order to
         // maintain timer ordering,
         // we need to fire these timers first.
-        NavigableSet<TimerData> earlierTimers =
-            timerInternals.getModifiedTimersOrdered(timerData.getDomain()).headSet(timerData, true);
-        while (!earlierTimers.isEmpty()) {
-          TimerData insertedTimer = earlierTimers.pollFirst();
+        TimerHeap<String> modifiedTimers =
+            timerInternals.getModifiedTimersOrdered(timerData.getDomain());
+        while (!modifiedTimers.isEmpty() && isNotLater(modifiedTimers.peek(), timerData)) {
+          TimerData insertedTimer = modifiedTimers.poll();
           if (timerModified(insertedTimer)) {
             continue;
           }
@@ -196,6 +196,11 @@ final class StatefulParDoEvaluatorFactory<K, InputT, OutputT> implements Transfo
       }
     }
 
+    private boolean isNotLater(TimerData timer, TimerData other) {
+      int result = timer.getTimestamp().compareTo(other.getTimestamp());
+      return result < 0 || (result == 0 && timer.compareTo(other) <= 0);
+    }
+
     // Check to see if a timer has been modified inside this bundle.
     private boolean timerModified(TimerData timerData) {
       @Nullable
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.flink.jmh;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+import org.apache.beam.runners.core.StateNamespaces;
+import org.apache.beam.runners.core.StateTags;
+import org.apache.beam.runners.core.construction.SerializablePipelineOptions;
+import org.apache.beam.runners.flink.FlinkPipelineOptions;
+import org.apache.beam.runners.flink.adapter.FlinkKey;
+import org.apache.beam.runners.flink.translation.wrappers.streaming.state.FlinkStateInternals;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.state.OrderedListState;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.values.TimestampedValue;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.java.typeutils.ValueTypeInfo;
+import org.apache.flink.contrib.streaming.state.EmbeddedRocksDBStateBackend;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.operators.testutils.DummyEnvironment;
+import org.apache.flink.runtime.query.KvStateRegistry;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateBackendParametersImpl;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.FileUtils;
+import org.joda.time.Instant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the {@link OrderedListState} of {@link FlinkStateInternals} on the RocksDB state
+ * backend.
+ *
+ * <p>A single key buffers {@code numValues} values {@code timestampStepMillis} apart, as a DoFn
+ * sorting its input by event time would. Each invocation reads or clears a few of them, or adds
+ * new values after them, which compares the default list layout with the layout enabled by {@link
+ * FlinkPipelineOptions#setMapBackedOrderedListState}.
+ */
+public class FlinkOrderedListStateBenchmark {
+  private static final int RANGE_SIZE = 10;
+
+  /** An ordered list state of a single key holding {@code numValues} values. */
+  @State(Scope.Thread)
+  public static class BufferedValues {
+    @Param({"1000", "100000"})
+    int numValues;
+
+    @Param({"1", "1000"})
+    long timestampStepMillis;
+
+    @Param({"false", "true"})
+    boolean mapBackedOrderedListState;
+
+    private final Random random = new Random(314159);
+    private int numAddedValues;
+    private File dbPath;
+    private AbstractKeyedStateBackend<FlinkKey> keyedStateBackend;
+    OrderedListState<String> state;
+
+    @Setup
+    public void setup() throws Exception {
+      dbPath = Files.createTempDirectory("flink-ordered-list-benchmark").toFile();
+      EmbeddedRocksDBStateBackend backend = new EmbeddedRocksDBStateBackend();
+      backend.setDbStoragePath(dbPath.getAbsolutePath());
+      backend.getMemoryConfiguration().setUseManagedMemory(false);
+      keyedStateBackend =
+          backend.createKeyedStateBackend(
+              new KeyedStateBackendParametersImpl<>(
+                  new DummyEnvironment("benchmark", 1, 0),
+                  new JobID(),
+                  "benchmark_op",
+                  new ValueTypeInfo<>(FlinkKey.class).createSerializer(new ExecutionConfig()),
+                  1,
+                  new KeyGroupRange(0, 0),
+                  new KvStateRegistry().createTaskRegistry(new JobID(), new JobVertexID()),
+                  TtlTimeProvider.DEFAULT,
+                  new UnregisteredMetricsGroup(),
+                  Collections.emptyList(),
+                  new CloseableRegistry()));
+      keyedStateBackend.setCurrentKey(
+          FlinkKey.of(
+              ByteBuffer.wrap(CoderUtils.encodeToByteArray(StringUtf8Coder.of(), "key"))));
+
+      FlinkPipelineOptions options = FlinkPipelineOptions.defaults();
+      options.setMapBackedOrderedListState(mapBackedOrderedListState);
+      FlinkStateInternals<String> stateInternals =
+          new FlinkStateInternals<>(
+              keyedStateBackend,
+              StringUtf8Coder.of(),
+              GlobalWindow.Coder.INSTANCE,
+              new SerializablePipelineOptions(options));
+      state =
+          stateInternals.state(
+              StateNamespaces.global(), StateTags.orderedList("buffer", StringUtf8Coder.of()));
+      for (int i = 0; i < numValues; i++) {
+        state.add(value(i));
+      }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+      keyedStateBackend.dispose();
+      FileUtils.deleteDirectory(dbPath);
+    }
+
+    /** Returns the index of the first value of a random range. */
+    int nextRangeStart() {
+      return random.nextInt(numValues - RANGE_SIZE);
+    }
+
+    /** Returns the index of a new value after all values of the state. */
+    int nextAddedIndex() {
+      return numValues + numAddedValues++;
+    }
+
+    Instant timestamp(int index) {
+      return new Instant(index * timestampStepMillis);
+    }
+
+    TimestampedValue<String> value(int index) {
+      return TimestampedValue.of("value" + index, timestamp(index));
+    }
+  }
+
+  @Benchmark
+  public void readRange(BufferedValues values, Blackhole bh) {
+    int start = values.nextRangeStart();
+    for (TimestampedValue<String> value :
+        values.state.readRange(values.timestamp(start), values.timestamp(start + RANGE_SIZE))) {
+      bh.consume(value);
+    }
+  }
+
+  @Benchmark
+  public void clearRangeAndAddBack(BufferedValues values) {
+    int start = values.nextRangeStart();
+    values.state.clearRange(values.timestamp(start), values.timestamp(start + RANGE_SIZE));
+    for (int i = start; i < start + RANGE_SIZE; i++) {
+      values.state.add(values.value(i));
+    }
+  }
+
+  @Benchmark
+  public void addValues(BufferedValues values) {
+    for (int i = 0; i < RANGE_SIZE; i++) {
+      values.state.add(values.value(values.nextAddedIndex()));
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.flink.jmh;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+import org.apache.beam.runners.flink.jmh.FlinkOrderedListStateBenchmark.BufferedValues;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Tests for {@link FlinkOrderedListStateBenchmark}. */
+@RunWith(JUnit4.class)
+public class FlinkOrderedListStateBenchmarkTest {
+  private final Blackhole bh =
+      new Blackhole(
+          "Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.");
+
+  @Test
+  public void testReadAndClearRanges() throws Exception {
+    for (long timestampStepMillis : new long[] {1, 1000}) {
+      for (boolean mapBackedOrderedListState : new boolean[] {false, true}) {
+        BufferedValues values = new BufferedValues();
+        values.numValues = 1000;
+        values.timestampStepMillis = timestampStepMillis;
+        values.mapBackedOrderedListState = mapBackedOrderedListState;
+        values.setup();
+        try {
+          for (int i = 0; i < 100; i++) {
+            new FlinkOrderedListStateBenchmark().readRange(values, bh);
+            new FlinkOrderedListStateBenchmark().clearRangeAndAddBack(values);
+            new FlinkOrderedListStateBenchmark().addValues(values);
+          }
+          assertThat(
+              values.state.readRange(values.timestamp(0), values.timestamp(3)),
+              contains(values.value(0), values.value(1), values.value(2)));
+          assertThat(
+              values.state.readRange(values.timestamp(1999), values.timestamp(2001)),
+              contains(values.value(1999)));
+        } finally {
+          values.tearDown();
+        }
+      }
+    }
+  }
+}
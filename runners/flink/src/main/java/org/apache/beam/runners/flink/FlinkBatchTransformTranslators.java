@@ -303,7 +303,8 @@ class FlinkBatchTransformTranslators {
           new GroupReduceOperator<>(
                   inputGrouping,
                   outputTypeInfo,
-                  new FlinkNonMergingReduceFunction<>(windowingStrategy, reIterableResult),
+                  new FlinkNonMergingReduceFunction<>(
+                      windowingStrategy, reIterableResult, inputCoder.getValueCoder()),
                   fullName)
               .returns(outputTypeInfo);
       context.setOutputDataSet(context.getOutput(transform), outputDataSet);
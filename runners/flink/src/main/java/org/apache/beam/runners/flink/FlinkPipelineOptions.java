@@ -127,6 +127,15 @@ public interface FlinkPipelineOptions
 
   void setFinishBundleBeforeCheckpointing(boolean finishBundleBeforeCheckpointing);
 
+  @Description(
+      "If set together with finishBundleBeforeCheckpointing, finishes the current bundle ahead of "
+          + "the next expected checkpoint, based on the checkpointing interval, so that little "
+          + "bundle work is left when the checkpoint barrier arrives.")
+  @Default.Boolean(false)
+  Boolean getFinishBundleAheadOfCheckpoint();
+
+  void setFinishBundleAheadOfCheckpoint(Boolean finishBundleAheadOfCheckpoint);
+
   @Description(
       "If set, Unaligned checkpoints contain in-flight data (i.e., data stored in buffers) as part of the "
           + "checkpoint state, allowing checkpoint barriers to overtake these buffers. Thus, the checkpoint duration "
@@ -346,7 +355,7 @@ public interface FlinkPipelineOptions
   void setReportCheckpointDuration(String metricNamespace);
 
   @Description(
-      "Flag indicating whether result of GBK needs to be re-iterable. Re-iterable result implies that all values for a single key must fit in memory as we currently do not support spilling to disk.")
+      "Flag indicating whether result of GBK needs to be re-iterable. Re-iterable result implies that all encoded values for a single key must fit in memory as we currently do not support spilling to disk.")
   @Default.Boolean(false)
   Boolean getReIterableGroupByKeyResult();
 
@@ -359,6 +368,26 @@ public interface FlinkPipelineOptions
 
   void setFasterCopy(Boolean fasterCopy);
 
+  @Description(
+      "Encode globally windowed elements exchanged between operators without their window and "
+          + "pane, and without their timestamp if it is the minimum timestamp. Other elements "
+          + "are encoded in full.")
+  @Default.Boolean(false)
+  Boolean getCompactGlobalWindowEncoding();
+
+  void setCompactGlobalWindowEncoding(Boolean compactGlobalWindowEncoding);
+
+  @Description(
+      "If set, streaming Combine.perKey pre-aggregates the elements of each bundle per key and "
+          + "window before the keyed exchange, so that the keyed state is only updated once per "
+          + "key and window per bundle. maxBundleSize and maxBundleTimeMills bound the added "
+          + "latency. Only applies to the default trigger. Pipelines with other triggers are "
+          + "translated as before.")
+  @Default.Boolean(false)
+  Boolean getStreamingMiniBatchCombine();
+
+  void setStreamingMiniBatchCombine(Boolean streamingMiniBatchCombine);
+
   @Description(
       "Directory containing Flink YAML configuration files. "
           + "These properties will be set to all jobs submitted to Flink and take precedence "
@@ -389,6 +418,25 @@ public interface FlinkPipelineOptions
 
   void setForceSlotSharingGroup(Boolean enableStableInputDrain);
 
+  @Description(
+      "Upper bound for the number of outputs of a splittable DoFn before it is checkpointed. If"
+          + " larger than the default of 10000 outputs, the bound adapts to the throughput of the"
+          + " DoFn, and calls which finish quickly are resumed without waiting for a timer.")
+  @Default.Integer(0)
+  Integer getMaxAdaptiveSplittableDoFnOutputs();
+
+  void setMaxAdaptiveSplittableDoFnOutputs(Integer maxAdaptiveSplittableDoFnOutputs);
+
+  @Description(
+      "If set, OrderedListState is stored in a Flink MapState keyed by timestamp, with the "
+          + "timestamps indexed in buckets, so that range reads and deletes only visit the buckets "
+          + "in the range. The default stores it in a ListState. The two layouts are not "
+          + "compatible, so this option must not be changed when restoring from a savepoint.")
+  @Default.Boolean(false)
+  Boolean getMapBackedOrderedListState();
+
+  void setMapBackedOrderedListState(Boolean mapBackedOrderedListState);
+
   static FlinkPipelineOptions defaults() {
     return PipelineOptionsFactory.as(FlinkPipelineOptions.class);
   }
@@ -75,6 +75,7 @@ import org.apache.beam.sdk.transforms.join.UnionCoder;
 import org.apache.beam.sdk.transforms.reflect.DoFnSignature;
 import org.apache.beam.sdk.transforms.reflect.DoFnSignatures;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.apache.beam.sdk.transforms.windowing.DefaultTrigger;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.transforms.windowing.WindowFn;
 import org.apache.beam.sdk.util.CoderUtils;
@@ -1030,6 +1031,8 @@ class FlinkStreamingTransformTranslators {
 
       DataStream<WindowedValue<KV<K, InputT>>> inputDataStream = context.getInputDataStream(input);
 
+      WindowingStrategy<?, ?> windowingStrategy = input.getWindowingStrategy();
+
       @SuppressWarnings("unchecked")
       GlobalCombineFn<InputT, ?, OutputT> combineFn = ((Combine.PerKey) transform).getFn();
 
@@ -1045,7 +1048,7 @@ class FlinkStreamingTransformTranslators {
       if (sideInputs.isEmpty()) {
         SingleOutputStreamOperator<WindowedValue<KV<K, OutputT>>> outDataStream;
 
-        if (!context.isStreaming()) {
+        if (!context.isStreaming() || isMiniBatchCombine(context, windowingStrategy)) {
           outDataStream =
               FlinkStreamingAggregationsTranslators.batchCombinePerKeyNoSideInputs(
                   context, transform, combineFn);
@@ -1070,7 +1073,7 @@ class FlinkStreamingTransformTranslators {
             transformSideInputs(sideInputs, context);
         SingleOutputStreamOperator<WindowedValue<KV<K, OutputT>>> outDataStream;
 
-        if (!context.isStreaming()) {
+        if (!context.isStreaming() || isMiniBatchCombine(context, windowingStrategy)) {
           outDataStream =
               FlinkStreamingAggregationsTranslators.batchCombinePerKey(
                   context, transform, combineFn, transformSideInputs.f0, sideInputs);
@@ -1097,6 +1100,20 @@ class FlinkStreamingTransformTranslators {
         context.setOutputDataStream(context.getOutput(transform), outDataStream);
       }
     }
+
+    /**
+     * Whether to pre-aggregate bundles before the keyed exchange. Only the default trigger is
+     * supported, because other triggers, e.g. element count triggers, would observe accumulators
+     * instead of the input elements.
+     */
+    private static boolean isMiniBatchCombine(
+        FlinkStreamingTranslationContext context, WindowingStrategy<?, ?> windowingStrategy) {
+      return context
+              .getPipelineOptions()
+              .as(FlinkPipelineOptions.class)
+              .getStreamingMiniBatchCombine()
+          && windowingStrategy.getTrigger() instanceof DefaultTrigger;
+    }
   }
 
   private static class GBKIntoKeyedWorkItemsTranslator<K, InputT>
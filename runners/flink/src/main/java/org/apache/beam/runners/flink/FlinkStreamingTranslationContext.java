@@ -23,10 +23,12 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.apache.beam.runners.flink.translation.types.CoderTypeInformation;
+import org.apache.beam.runners.flink.translation.types.CompactGlobalWindowedValueCoder;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.runners.AppliedPTransform;
 import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.util.WindowedValue;
 import org.apache.beam.sdk.util.construction.TransformInputs;
 import org.apache.beam.sdk.values.PCollection;
@@ -128,6 +130,12 @@ class FlinkStreamingTranslationContext {
 
   @SuppressWarnings("unchecked")
   public <T> TypeInformation<WindowedValue<T>> getTypeInfo(PCollection<T> collection) {
+    if (options.as(FlinkPipelineOptions.class).getCompactGlobalWindowEncoding()
+        && collection.getWindowingStrategy().getWindowFn().windowCoder()
+            instanceof GlobalWindow.Coder) {
+      return new CoderTypeInformation<>(
+          CompactGlobalWindowedValueCoder.of(collection.getCoder()), options);
+    }
     return new CoderTypeInformation<>(getWindowedInputCoder(collection), options);
   }
 
@@ -17,6 +17,7 @@
  */
 package org.apache.beam.runners.flink.translation.functions;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumMap;
@@ -55,7 +56,9 @@ import org.apache.beam.runners.fnexecution.translation.PipelineTranslatorUtils;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.fn.data.FnDataReceiver;
 import org.apache.beam.sdk.io.FileSystems;
+import org.apache.beam.sdk.metrics.MetricsEnvironment;
 import org.apache.beam.sdk.options.PipelineOptions;
+import org.apache.beam.sdk.options.PortablePipelineOptions;
 import org.apache.beam.sdk.transforms.join.RawUnionValue;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.util.WindowedValue;
@@ -219,10 +222,15 @@ public class FlinkExecutableStageFunction<InputT> extends AbstractRichFunction
     StateRequestHandlers.SideInputHandlerFactory sideInputHandlerFactory =
         BatchSideInputHandlerFactory.forStage(
             executableStage, runtimeContext::getBroadcastVariable);
+    int sideInputResponseCacheMb =
+        pipelineOptions.get().as(PortablePipelineOptions.class).getSideInputResponseCacheMb();
     try {
       sideInputHandler =
-          StateRequestHandlers.forSideInputHandlerFactory(
-              ProcessBundleDescriptors.getSideInputs(executableStage), sideInputHandlerFactory);
+          StateRequestHandlers.forImmutableSideInputHandlerFactory(
+              jobInfo.jobId() + "/" + stepName,
+              ProcessBundleDescriptors.getSideInputs(executableStage),
+              sideInputHandlerFactory,
+              sideInputResponseCacheMb * 1024L * 1024L);
     } catch (IOException e) {
       throw new RuntimeException("Failed to setup state handler", e);
     }
@@ -252,46 +260,49 @@ public class FlinkExecutableStageFunction<InputT> extends AbstractRichFunction
   public void mapPartition(
       Iterable<WindowedValue<InputT>> iterable, Collector<RawUnionValue> collector)
       throws Exception {
-
-    ReceiverFactory receiverFactory = new ReceiverFactory(collector, outputMap);
-    if (sdfStateInternals != null) {
-      sdfTimerInternals.advanceProcessingTime(Instant.now());
-      sdfTimerInternals.advanceSynchronizedProcessingTime(Instant.now());
-    }
-    try (RemoteBundle bundle =
-        stageBundleFactory.getBundle(
-            receiverFactory,
-            stateRequestHandler,
-            progressHandler,
-            finalizationHandler,
-            bundleCheckpointHandler)) {
-      processElements(iterable, bundle);
-    }
-    if (sdfTimerInternals != null) {
-      // Finally, advance the processing time to infinity to fire any timers.
-      sdfTimerInternals.advanceProcessingTime(BoundedWindow.TIMESTAMP_MAX_VALUE);
-      sdfTimerInternals.advanceSynchronizedProcessingTime(BoundedWindow.TIMESTAMP_MAX_VALUE);
-
-      // Now we fire the SDF timers and process elements generated by timers.
-      while (sdfTimerInternals.hasPendingTimers()) {
-        try (RemoteBundle bundle =
-            stageBundleFactory.getBundle(
-                receiverFactory,
-                stateRequestHandler,
-                progressHandler,
-                finalizationHandler,
-                bundleCheckpointHandler)) {
-          List<WindowedValue<InputT>> residuals = new ArrayList<>();
-          TimerInternals.TimerData timer;
-          while ((timer = sdfTimerInternals.removeNextProcessingTimer()) != null) {
-            WindowedValue stateValue =
-                sdfStateInternals
-                    .state(timer.getNamespace(), StateTags.value(timer.getTimerId(), inputCoder))
-                    .read();
-
-            residuals.add(stateValue);
+    // Report metrics of the runner, e.g. the bundle queue time, as metrics of this step.
+    try (Closeable metricsScope =
+        MetricsEnvironment.scopedMetricsContainer(metricContainer.getMetricsContainer(stepName))) {
+      ReceiverFactory receiverFactory = new ReceiverFactory(collector, outputMap);
+      if (sdfStateInternals != null) {
+        sdfTimerInternals.advanceProcessingTime(Instant.now());
+        sdfTimerInternals.advanceSynchronizedProcessingTime(Instant.now());
+      }
+      try (RemoteBundle bundle =
+          stageBundleFactory.getBundle(
+              receiverFactory,
+              stateRequestHandler,
+              progressHandler,
+              finalizationHandler,
+              bundleCheckpointHandler)) {
+        processElements(iterable, bundle);
+      }
+      if (sdfTimerInternals != null) {
+        // Finally, advance the processing time to infinity to fire any timers.
+        sdfTimerInternals.advanceProcessingTime(BoundedWindow.TIMESTAMP_MAX_VALUE);
+        sdfTimerInternals.advanceSynchronizedProcessingTime(BoundedWindow.TIMESTAMP_MAX_VALUE);
+
+        // Now we fire the SDF timers and process elements generated by timers.
+        while (sdfTimerInternals.hasPendingTimers()) {
+          try (RemoteBundle bundle =
+              stageBundleFactory.getBundle(
+                  receiverFactory,
+                  stateRequestHandler,
+                  progressHandler,
+                  finalizationHandler,
+                  bundleCheckpointHandler)) {
+            List<WindowedValue<InputT>> residuals = new ArrayList<>();
+            TimerInternals.TimerData timer;
+            while ((timer = sdfTimerInternals.removeNextProcessingTimer()) != null) {
+              WindowedValue stateValue =
+                  sdfStateInternals
+                      .state(timer.getNamespace(), StateTags.value(timer.getTimerId(), inputCoder))
+                      .read();
+
+              residuals.add(stateValue);
+            }
+            processElements(residuals, bundle);
           }
-          processElements(residuals, bundle);
         }
       }
     }
@@ -301,54 +312,57 @@ public class FlinkExecutableStageFunction<InputT> extends AbstractRichFunction
   @Override
   public void reduce(Iterable<WindowedValue<InputT>> iterable, Collector<RawUnionValue> collector)
       throws Exception {
+    try (Closeable metricsScope =
+        MetricsEnvironment.scopedMetricsContainer(metricContainer.getMetricsContainer(stepName))) {
+      // Need to discard the old key's state
+      if (bagUserStateHandlerFactory != null) {
+        bagUserStateHandlerFactory.resetForNewKey();
+      }
 
-    // Need to discard the old key's state
-    if (bagUserStateHandlerFactory != null) {
-      bagUserStateHandlerFactory.resetForNewKey();
-    }
-
-    // Used with Batch, we know that all the data is available for this key. We can't use the
-    // timer manager from the context because it doesn't exist. So we create one and advance
-    // time to the end after processing all elements.
-    final InMemoryTimerInternals timerInternals = new InMemoryTimerInternals();
-    timerInternals.advanceProcessingTime(Instant.now());
-    timerInternals.advanceSynchronizedProcessingTime(Instant.now());
-
-    ReceiverFactory receiverFactory = new ReceiverFactory(collector, outputMap);
-
-    TimerReceiverFactory timerReceiverFactory =
-        new TimerReceiverFactory(
-            stageBundleFactory,
-            (Timer<?> timer, TimerInternals.TimerData timerData) -> {
-              currentTimerKey = timer.getUserKey();
-              if (timer.getClearBit()) {
-                timerInternals.deleteTimer(timerData);
-              } else {
-                timerInternals.setTimer(timerData);
-              }
-            },
-            windowCoder);
-
-    // First process all elements and make sure no more elements can arrive
-    try (RemoteBundle bundle =
-        stageBundleFactory.getBundle(
-            receiverFactory, timerReceiverFactory, stateRequestHandler, progressHandler)) {
-      processElements(iterable, bundle);
-    }
-
-    // Finish any pending windows by advancing the input watermark to infinity.
-    timerInternals.advanceInputWatermark(BoundedWindow.TIMESTAMP_MAX_VALUE);
-    // Finally, advance the processing time to infinity to fire any timers.
-    timerInternals.advanceProcessingTime(BoundedWindow.TIMESTAMP_MAX_VALUE);
-    timerInternals.advanceSynchronizedProcessingTime(BoundedWindow.TIMESTAMP_MAX_VALUE);
-
-    // Now we fire the timers and process elements generated by timers (which may be timers itself)
-    while (timerInternals.hasPendingTimers()) {
+      // Used with Batch, we know that all the data is available for this key. We can't use the
+      // timer manager from the context because it doesn't exist. So we create one and advance
+      // time to the end after processing all elements.
+      final InMemoryTimerInternals timerInternals = new InMemoryTimerInternals();
+      timerInternals.advanceProcessingTime(Instant.now());
+      timerInternals.advanceSynchronizedProcessingTime(Instant.now());
+
+      ReceiverFactory receiverFactory = new ReceiverFactory(collector, outputMap);
+
+      TimerReceiverFactory timerReceiverFactory =
+          new TimerReceiverFactory(
+              stageBundleFactory,
+              (Timer<?> timer, TimerInternals.TimerData timerData) -> {
+                currentTimerKey = timer.getUserKey();
+                if (timer.getClearBit()) {
+                  timerInternals.deleteTimer(timerData);
+                } else {
+                  timerInternals.setTimer(timerData);
+                }
+              },
+              windowCoder);
+
+      // First process all elements and make sure no more elements can arrive
       try (RemoteBundle bundle =
           stageBundleFactory.getBundle(
               receiverFactory, timerReceiverFactory, stateRequestHandler, progressHandler)) {
-        PipelineTranslatorUtils.fireEligibleTimers(
-            timerInternals, bundle.getTimerReceivers(), currentTimerKey);
+        processElements(iterable, bundle);
+      }
+
+      // Finish any pending windows by advancing the input watermark to infinity.
+      timerInternals.advanceInputWatermark(BoundedWindow.TIMESTAMP_MAX_VALUE);
+      // Finally, advance the processing time to infinity to fire any timers.
+      timerInternals.advanceProcessingTime(BoundedWindow.TIMESTAMP_MAX_VALUE);
+      timerInternals.advanceSynchronizedProcessingTime(BoundedWindow.TIMESTAMP_MAX_VALUE);
+
+      // Now we fire the timers and process elements generated by timers (which may be timers
+      // itself)
+      while (timerInternals.hasPendingTimers()) {
+        try (RemoteBundle bundle =
+            stageBundleFactory.getBundle(
+                receiverFactory, timerReceiverFactory, stateRequestHandler, progressHandler)) {
+          PipelineTranslatorUtils.fireEligibleTimers(
+              timerInternals, bundle.getTimerReceivers(), currentTimerKey);
+        }
       }
     }
   }
@@ -17,16 +17,22 @@
  */
 package org.apache.beam.runners.flink.translation.functions;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.transforms.windowing.PaneInfo;
 import org.apache.beam.sdk.util.WindowedValue;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.WindowingStrategy;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterables;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterators;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.PeekingIterator;
@@ -37,6 +43,7 @@ import org.joda.time.Instant;
 /**
  * Reduce function for non-merging GBK implementation. Implementation tries to return non-iterable
  * results when possible, so we do not have to materialize all values for a single key in memory.
+ * Re-iterable results are kept in encoded form.
  *
  * @param <K> Key type.
  * @param <InputT> Input type.
@@ -46,6 +53,15 @@ public class FlinkNonMergingReduceFunction<K, InputT>
     implements GroupReduceFunction<
         WindowedValue<KV<K, InputT>>, WindowedValue<KV<K, Iterable<InputT>>>> {
 
+  /**
+   * Size of the first page holding the encoded values of a re-iterable result. Following pages
+   * double in size up to {@link #PAGE_SIZE}, so small groups only allocate a small page.
+   */
+  @VisibleForTesting static final int FIRST_PAGE_SIZE = 256;
+
+  /** Maximum size of the pages holding the encoded values of a re-iterable result. */
+  @VisibleForTesting static final int PAGE_SIZE = 64 * 1024;
+
   private static class OnceIterable<T> implements Iterable<T> {
 
     private final Iterator<T> iterator;
@@ -66,13 +82,187 @@ public class FlinkNonMergingReduceFunction<K, InputT>
     }
   }
 
+  /**
+   * Values of a single key held in encoded form, which takes considerably less heap than the
+   * decoded values for hot keys. Values are decoded lazily on every iteration.
+   */
+  private static class EncodedIterable<T> implements Iterable<T> {
+
+    private final Coder<T> coder;
+    private final PagedOutputStream encoded;
+    private final int size;
+
+    private EncodedIterable(Coder<T> coder, PagedOutputStream encoded, int size) {
+      this.coder = coder;
+      this.encoded = encoded;
+      this.size = size;
+    }
+
+    static <T> EncodedIterable<T> of(Coder<T> coder, Iterator<T> values) {
+      final PagedOutputStream out = new PagedOutputStream(FIRST_PAGE_SIZE, PAGE_SIZE);
+      int size = 0;
+      try {
+        while (values.hasNext()) {
+          coder.encode(values.next(), out);
+          size++;
+        }
+      } catch (IOException e) {
+        throw new RuntimeException("Unable to encode GBK result.", e);
+      }
+      return new EncodedIterable<>(coder, out, size);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      final InputStream in = encoded.toInputStream();
+      return new Iterator<T>() {
+
+        private int remaining = size;
+
+        @Override
+        public boolean hasNext() {
+          return remaining > 0;
+        }
+
+        @Override
+        public T next() {
+          if (remaining == 0) {
+            throw new NoSuchElementException();
+          }
+          remaining--;
+          try {
+            return coder.decode(in);
+          } catch (IOException e) {
+            throw new RuntimeException("Unable to decode GBK result.", e);
+          }
+        }
+      };
+    }
+  }
+
+  /**
+   * Output stream which writes into a list of pages, which double in size from a first page size up
+   * to a maximum page size. Unlike a single growing array, it never copies the written bytes and is
+   * not limited to 2GB.
+   */
+  @VisibleForTesting
+  static class PagedOutputStream extends OutputStream {
+
+    private final int maxPageSize;
+    private final List<byte[]> pages = new ArrayList<>();
+    private int nextPageSize;
+    /** Number of bytes written to the last page. */
+    private int lastPageLength;
+
+    PagedOutputStream(int firstPageSize, int maxPageSize) {
+      this.maxPageSize = maxPageSize;
+      this.nextPageSize = Math.min(firstPageSize, maxPageSize);
+      this.lastPageLength = 0;
+    }
+
+    @Override
+    public void write(int b) {
+      if (isLastPageFull()) {
+        addPage();
+      }
+      pages.get(pages.size() - 1)[lastPageLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      while (len > 0) {
+        if (isLastPageFull()) {
+          addPage();
+        }
+        byte[] lastPage = pages.get(pages.size() - 1);
+        int n = Math.min(len, lastPage.length - lastPageLength);
+        System.arraycopy(b, off, lastPage, lastPageLength, n);
+        lastPageLength += n;
+        off += n;
+        len -= n;
+      }
+    }
+
+    private boolean isLastPageFull() {
+      return pages.isEmpty() || lastPageLength == pages.get(pages.size() - 1).length;
+    }
+
+    private void addPage() {
+      pages.add(new byte[nextPageSize]);
+      nextPageSize = (int) Math.min(2L * nextPageSize, maxPageSize);
+      lastPageLength = 0;
+    }
+
+    int numPages() {
+      return pages.size();
+    }
+
+    /** Returns the size of all pages, including their unused bytes. */
+    long allocatedBytes() {
+      long allocatedBytes = 0;
+      for (byte[] page : pages) {
+        allocatedBytes += page.length;
+      }
+      return allocatedBytes;
+    }
+
+    /** Returns a new stream over the bytes written so far. */
+    InputStream toInputStream() {
+      return new InputStream() {
+
+        private int page = 0;
+        private int position = 0;
+
+        /** Moves to the next page if the current one is exhausted, returns false at the end. */
+        private boolean advance() {
+          if (page < pages.size() - 1 && position == pages.get(page).length) {
+            page++;
+            position = 0;
+          }
+          return page < pages.size() && position < limit();
+        }
+
+        private int limit() {
+          return page == pages.size() - 1 ? lastPageLength : pages.get(page).length;
+        }
+
+        @Override
+        public int read() {
+          if (!advance()) {
+            return -1;
+          }
+          return pages.get(page)[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+          if (len == 0) {
+            return 0;
+          }
+          int read = 0;
+          while (read < len && advance()) {
+            int n = Math.min(len - read, limit() - position);
+            System.arraycopy(pages.get(page), position, b, off + read, n);
+            position += n;
+            read += n;
+          }
+          return read == 0 ? -1 : read;
+        }
+      };
+    }
+  }
+
   private final WindowingStrategy<?, ?> windowingStrategy;
   private final boolean reIterableResult;
+  private final Coder<InputT> valueCoder;
 
   public FlinkNonMergingReduceFunction(
-      WindowingStrategy<?, ?> windowingStrategy, boolean reIterableResult) {
+      WindowingStrategy<?, ?> windowingStrategy,
+      boolean reIterableResult,
+      Coder<InputT> valueCoder) {
     this.windowingStrategy = windowingStrategy;
     this.reIterableResult = reIterableResult;
+    this.valueCoder = valueCoder;
   }
 
   @Override
@@ -87,18 +277,15 @@ public class FlinkNonMergingReduceFunction<K, InputT>
     final Instant outputTimestamp = first.getTimestamp();
     final Instant combinedTimestamp =
         windowingStrategy.getTimestampCombiner().assign(window, outputTimestamp);
+    final Iterator<InputT> valueIterator =
+        Iterators.transform(
+            iterator,
+            (WindowedValue<KV<K, InputT>> wv) -> Objects.requireNonNull(wv).getValue().getValue());
     final Iterable<InputT> values;
     if (reIterableResult) {
-      final List<InputT> lst = new ArrayList<>();
-      iterator.forEachRemaining(wv -> lst.add(wv.getValue().getValue()));
-      values = lst;
+      values = EncodedIterable.of(valueCoder, valueIterator);
     } else {
-      values =
-          new OnceIterable<>(
-              Iterators.transform(
-                  iterator,
-                  (WindowedValue<KV<K, InputT>> wv) ->
-                      Objects.requireNonNull(wv).getValue().getValue()));
+      values = new OnceIterable<>(valueIterator);
     }
     coll.collect(
         WindowedValue.of(
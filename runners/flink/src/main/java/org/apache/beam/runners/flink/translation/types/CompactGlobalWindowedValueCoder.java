@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.flink.translation.types;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.InstantCoder;
+import org.apache.beam.sdk.coders.StructuredCoder;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
+import org.apache.beam.sdk.transforms.windowing.PaneInfo;
+import org.apache.beam.sdk.util.WindowedValue;
+import org.apache.beam.sdk.util.WindowedValue.FullWindowedValueCoder;
+import org.joda.time.Instant;
+
+/**
+ * A {@link Coder} for {@link WindowedValue WindowedValues} of a globally windowed {@link
+ * org.apache.beam.sdk.values.PCollection}, used between Flink operators.
+ *
+ * <p>A {@link FullWindowedValueCoder} spends 13 bytes on the timestamp, windows and pane of every
+ * element. Elements in the global window without pane information, the common case, are encoded
+ * here as a single header byte followed by their timestamp, or by nothing at all if their timestamp
+ * is {@link BoundedWindow#TIMESTAMP_MIN_VALUE}. Decoding them allocates no window collection. Any
+ * other element is encoded with a {@link FullWindowedValueCoder} after the header byte.
+ */
+public class CompactGlobalWindowedValueCoder<T> extends StructuredCoder<WindowedValue<T>> {
+  private static final int GLOBAL_WINDOW_MIN_TIMESTAMP = 0;
+  private static final int GLOBAL_WINDOW = 1;
+  private static final int FULL = 2;
+
+  private final Coder<T> valueCoder;
+  private final FullWindowedValueCoder<T> fullCoder;
+
+  public static <T> CompactGlobalWindowedValueCoder<T> of(Coder<T> valueCoder) {
+    return new CompactGlobalWindowedValueCoder<>(valueCoder);
+  }
+
+  private CompactGlobalWindowedValueCoder(Coder<T> valueCoder) {
+    this.valueCoder = valueCoder;
+    this.fullCoder = WindowedValue.getFullCoder(valueCoder, GlobalWindow.Coder.INSTANCE);
+  }
+
+  public Coder<T> getValueCoder() {
+    return valueCoder;
+  }
+
+  @Override
+  public void encode(WindowedValue<T> value, OutputStream outStream)
+      throws CoderException, IOException {
+    encode(value, outStream, Context.NESTED);
+  }
+
+  @Override
+  public void encode(WindowedValue<T> value, OutputStream outStream, Context context)
+      throws CoderException, IOException {
+    if (!PaneInfo.NO_FIRING.equals(value.getPane()) || !isInGlobalWindow(value)) {
+      outStream.write(FULL);
+      fullCoder.encode(value, outStream, context);
+    } else if (value.getTimestamp().equals(BoundedWindow.TIMESTAMP_MIN_VALUE)) {
+      outStream.write(GLOBAL_WINDOW_MIN_TIMESTAMP);
+      valueCoder.encode(value.getValue(), outStream, context);
+    } else {
+      outStream.write(GLOBAL_WINDOW);
+      InstantCoder.of().encode(value.getTimestamp(), outStream);
+      valueCoder.encode(value.getValue(), outStream, context);
+    }
+  }
+
+  private static boolean isInGlobalWindow(WindowedValue<?> value) {
+    Collection<? extends BoundedWindow> windows = value.getWindows();
+    return windows.size() == 1 && windows.iterator().next() instanceof GlobalWindow;
+  }
+
+  @Override
+  public WindowedValue<T> decode(InputStream inStream) throws CoderException, IOException {
+    return decode(inStream, Context.NESTED);
+  }
+
+  @Override
+  public WindowedValue<T> decode(InputStream inStream, Context context)
+      throws CoderException, IOException {
+    int header = inStream.read();
+    switch (header) {
+      case GLOBAL_WINDOW_MIN_TIMESTAMP:
+        return WindowedValue.valueInGlobalWindow(valueCoder.decode(inStream, context));
+      case GLOBAL_WINDOW:
+        Instant timestamp = InstantCoder.of().decode(inStream);
+        return WindowedValue.timestampedValueInGlobalWindow(
+            valueCoder.decode(inStream, context), timestamp);
+      case FULL:
+        return fullCoder.decode(inStream, context);
+      case -1:
+        throw new CoderException("Unexpected end of stream");
+      default:
+        throw new CoderException("Unknown header " + header);
+    }
+  }
+
+  @Override
+  public List<? extends Coder<?>> getCoderArguments() {
+    return Collections.singletonList(valueCoder);
+  }
+
+  @Override
+  public List<? extends Coder<?>> getComponents() {
+    return Collections.singletonList(valueCoder);
+  }
+
+  @Override
+  public void verifyDeterministic() throws NonDeterministicException {
+    verifyDeterministic(this, "Value coder must be deterministic", valueCoder);
+  }
+}
@@ -34,7 +34,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.beam.runners.core.DoFnRunner;
@@ -55,6 +57,7 @@ import org.apache.beam.runners.core.StepContext;
 import org.apache.beam.runners.core.TimerInternals;
 import org.apache.beam.runners.core.TimerInternals.TimerData;
 import org.apache.beam.runners.core.construction.SerializablePipelineOptions;
+import org.apache.beam.runners.core.metrics.DistributionCell;
 import org.apache.beam.runners.flink.FlinkPipelineOptions;
 import org.apache.beam.runners.flink.adapter.FlinkKey;
 import org.apache.beam.runners.flink.metrics.DoFnRunnerWithMetricsUpdate;
@@ -219,6 +222,12 @@ public class DoFnOperator<PreInputT, InputT, OutputT>
 
   private final boolean finishBundleBeforeCheckpointing;
 
+  /**
+   * The checkpointing interval if bundles should be finished ahead of the next expected checkpoint,
+   * or -1 otherwise.
+   */
+  private final long finishBundleAheadOfCheckpointInterval;
+
   /** Stores new finalizations being gathered. */
   private transient InMemoryBundleFinalizer bundleFinalizer;
   /** Pending bundle finalizations which have not been acknowledged yet. */
@@ -241,6 +250,18 @@ public class DoFnOperator<PreInputT, InputT, OutputT>
   /** Helper class to report the checkpoint duration. */
   private transient @Nullable CheckpointStats checkpointStats;
 
+  /** Reports the time spent finishing bundles when a checkpoint is taken. */
+  private transient @Nullable Supplier<DistributionCell> checkpointBundleFinishDuration;
+
+  /** Period of the timer that checks whether the current bundle should be finished. */
+  private transient long bundleCheckPeriod;
+
+  /** Processing time of the last checkpoint barrier seen by this operator. */
+  private transient volatile long lastCheckpointTime;
+
+  /** Expected time of the checkpoint for which the bundle was last finished ahead of time. */
+  private transient long finishedAheadOfCheckpointTime;
+
   /** A timer that finishes the current bundle after a fixed amount of time. */
   private transient ScheduledFuture<?> checkFinishBundleTimer;
 
@@ -343,6 +364,13 @@ public class DoFnOperator<PreInputT, InputT, OutputT>
     this.numConcurrentCheckpoints = flinkOptions.getNumConcurrentCheckpoints();
 
     this.finishBundleBeforeCheckpointing = flinkOptions.getFinishBundleBeforeCheckpointing();
+
+    this.finishBundleAheadOfCheckpointInterval =
+        finishBundleBeforeCheckpointing
+                && flinkOptions.getFinishBundleAheadOfCheckpoint()
+                && flinkOptions.getCheckpointingInterval() > 0
+            ? flinkOptions.getCheckpointingInterval()
+            : -1L;
   }
 
   private boolean isRequiresStableInput(DoFn<InputT, OutputT> doFn) {
@@ -551,14 +579,22 @@ public class DoFnOperator<PreInputT, InputT, OutputT>
                     flinkMetricContainer
                         .getMetricsContainer(stepName)
                         .getDistribution(checkpointMetric));
+        MetricName bundleFinishMetric =
+            MetricName.named(checkpointMetricNamespace, "checkpoint_bundle_finish_duration");
+        checkpointBundleFinishDuration =
+            () ->
+                flinkMetricContainer
+                    .getMetricsContainer(stepName)
+                    .getDistribution(bundleFinishMetric);
       }
     }
 
     elementCount = 0L;
     lastFinishBundleTime = getProcessingTimeService().getCurrentProcessingTime();
+    lastCheckpointTime = lastFinishBundleTime;
 
     // Schedule timer to check timeout of finish bundle.
-    long bundleCheckPeriod = Math.max(maxBundleTimeMills / 2, 1);
+    bundleCheckPeriod = Math.max(maxBundleTimeMills / 2, 1);
     checkFinishBundleTimer =
         getProcessingTimeService()
             .scheduleAtFixedRate(
@@ -1014,12 +1050,31 @@ public class DoFnOperator<PreInputT, InputT, OutputT>
       return;
     }
     long now = getProcessingTimeService().getCurrentProcessingTime();
-    if (now - lastFinishBundleTime >= maxBundleTimeMills) {
+    if (now - lastFinishBundleTime >= maxBundleTimeMills || isCheckpointDueBeforeNextCheck(now)) {
       invokeFinishBundle();
       scheduleForCurrentProcessingTime(ts -> updateOutputWatermark());
     }
   }
 
+  /**
+   * Whether the next checkpoint is expected before the bundle timer fires again. Finishing the
+   * bundle at this point leaves {@link #prepareSnapshotPreBarrier(long)} with little to do while
+   * the barrier is being aligned. Returns true at most once per expected checkpoint, so a late
+   * checkpoint does not cut every following bundle short.
+   */
+  private boolean isCheckpointDueBeforeNextCheck(long now) {
+    if (finishBundleAheadOfCheckpointInterval <= 0 || !bundleStarted) {
+      return false;
+    }
+    long expectedCheckpointTime = lastCheckpointTime + finishBundleAheadOfCheckpointInterval;
+    if (expectedCheckpointTime == finishedAheadOfCheckpointTime
+        || now + bundleCheckPeriod < expectedCheckpointTime) {
+      return false;
+    }
+    finishedAheadOfCheckpointTime = expectedCheckpointTime;
+    return true;
+  }
+
   @SuppressWarnings("FutureReturnValueIgnored")
   protected void scheduleForCurrentProcessingTime(ProcessingTimeCallback callback) {
     // We are scheduling a timer for advancing the watermark, to not delay finishing the bundle
@@ -1066,15 +1121,26 @@ public class DoFnOperator<PreInputT, InputT, OutputT>
   @Override
   public void prepareSnapshotPreBarrier(long checkpointId) {
     if (finishBundleBeforeCheckpointing) {
+      lastCheckpointTime = getProcessingTimeService().getCurrentProcessingTime();
       // We finish the bundle and flush any pending data.
       // This avoids buffering any data as part of snapshotState() below.
-      while (bundleStarted) {
-        invokeFinishBundle();
-      }
+      finishBundleForCheckpoint();
       updateOutputWatermark();
     }
   }
 
+  private void finishBundleForCheckpoint() {
+    long startNanos = System.nanoTime();
+    while (bundleStarted) {
+      invokeFinishBundle();
+    }
+    if (checkpointBundleFinishDuration != null) {
+      checkpointBundleFinishDuration
+          .get()
+          .update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+  }
+
   @Override
   public void snapshotState(StateSnapshotContext context) throws Exception {
     if (checkpointStats != null) {
@@ -1099,9 +1165,7 @@ public class DoFnOperator<PreInputT, InputT, OutputT>
     try {
       outputManager.openBuffer();
       // Ensure that no new bundle gets started as part of finishing a bundle
-      while (bundleStarted) {
-        invokeFinishBundle();
-      }
+      finishBundleForCheckpoint();
       outputManager.closeBuffer();
     } catch (Exception e) {
       failBundleFinalization(e);
@@ -37,6 +37,7 @@ import org.apache.beam.runners.core.StateInternalsFactory;
 import org.apache.beam.runners.core.StepContext;
 import org.apache.beam.runners.core.TimerInternals;
 import org.apache.beam.runners.core.TimerInternalsFactory;
+import org.apache.beam.runners.flink.FlinkPipelineOptions;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.state.TimeDomain;
@@ -72,6 +73,8 @@ public class SplittableDoFnOperator<InputT, OutputT, RestrictionT>
 
   private static final Logger LOG = LoggerFactory.getLogger(SplittableDoFnOperator.class);
 
+  private static final int MAX_OUTPUTS_PER_CHECKPOINT = 10000;
+
   private transient ScheduledExecutorService executorService;
 
   public SplittableDoFnOperator(
@@ -130,6 +133,12 @@ public class SplittableDoFnOperator<InputT, OutputT, RestrictionT>
     // this will implicitly be keyed like the StateInternalsFactory
     TimerInternalsFactory<byte[]> timerInternalsFactory = key -> timerInternals;
 
+    int maxAdaptiveNumOutputs =
+        serializedOptions
+            .get()
+            .as(FlinkPipelineOptions.class)
+            .getMaxAdaptiveSplittableDoFnOutputs();
+
     if (this.executorService == null) {
       this.executorService =
           Executors.newSingleThreadScheduledExecutor(
@@ -167,9 +176,10 @@ public class SplittableDoFnOperator<InputT, OutputT, RestrictionT>
                 },
                 sideInputReader,
                 executorService,
-                10000,
+                MAX_OUTPUTS_PER_CHECKPOINT,
                 Duration.standardSeconds(10),
-                this::getBundleFinalizer));
+                this::getBundleFinalizer,
+                Math.max(MAX_OUTPUTS_PER_CHECKPOINT, maxAdaptiveNumOutputs)));
   }
 
   @Override
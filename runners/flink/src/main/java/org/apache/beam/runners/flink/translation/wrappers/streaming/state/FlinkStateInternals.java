@@ -18,9 +18,12 @@
 package org.apache.beam.runners.flink.translation.wrappers.streaming.state;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -39,6 +42,8 @@ import org.apache.beam.runners.flink.translation.types.CoderTypeSerializer;
 import org.apache.beam.runners.flink.translation.wrappers.streaming.FlinkKeyUtils;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.InstantCoder;
+import org.apache.beam.sdk.coders.ListCoder;
+import org.apache.beam.sdk.coders.VarLongCoder;
 import org.apache.beam.sdk.coders.VoidCoder;
 import org.apache.beam.sdk.state.BagState;
 import org.apache.beam.sdk.state.CombiningState;
@@ -172,6 +177,7 @@ public class FlinkStateInternals<K> implements StateInternals {
   private final MapStateDescriptor<String, Instant> watermarkHoldStateDescriptor;
 
   private final boolean fasterCopy;
+  private final boolean mapBackedOrderedListState;
 
   public FlinkStateInternals(
       KeyedStateBackend<FlinkKey> flinkStateBackend,
@@ -182,6 +188,8 @@ public class FlinkStateInternals<K> implements StateInternals {
     this.flinkStateBackend = Objects.requireNonNull(flinkStateBackend);
     this.keyCoder = Objects.requireNonNull(keyCoder);
     this.fasterCopy = pipelineOptions.get().as(FlinkPipelineOptions.class).getFasterCopy();
+    this.mapBackedOrderedListState =
+        pipelineOptions.get().as(FlinkPipelineOptions.class).getMapBackedOrderedListState();
     this.namespaceKeySerializer = new FlinkStateNamespaceKeySerializer(windowCoder);
 
     watermarkHoldStateDescriptor =
@@ -302,6 +310,20 @@ public class FlinkStateInternals<K> implements StateInternals {
     @Override
     public <T> OrderedListState<T> bindOrderedList(
         String id, StateSpec<OrderedListState<T>> spec, Coder<T> elemCoder) {
+      if (mapBackedOrderedListState) {
+        FlinkMapOrderedListState<T> flinkOrderedListState =
+            new FlinkMapOrderedListState<>(
+                flinkStateBackend, id, namespace, elemCoder, namespaceKeySerializer, fasterCopy);
+        collectGlobalWindowStateDescriptor(
+            flinkOrderedListState.valuesDescriptor,
+            flinkOrderedListState.namespace,
+            namespaceKeySerializer);
+        collectGlobalWindowStateDescriptor(
+            flinkOrderedListState.bucketsDescriptor,
+            flinkOrderedListState.namespace,
+            namespaceKeySerializer);
+        return flinkOrderedListState;
+      }
       FlinkOrderedListState<T> flinkOrderedListState =
           new FlinkOrderedListState<>(
               flinkStateBackend, id, namespace, elemCoder, namespaceKeySerializer, fasterCopy);
@@ -597,6 +619,10 @@ public class FlinkStateInternals<K> implements StateInternals {
     }
   }
 
+  /**
+   * An {@link OrderedListState} backed by a Flink {@link ListState}. Every read sorts the whole
+   * list, and {@link #clearRange} rewrites it.
+   */
   private static class FlinkOrderedListState<T> implements OrderedListState<T> {
     private final StateNamespace namespace;
     private final ListStateDescriptor<TimestampedValue<T>> flinkStateDescriptor;
@@ -612,26 +638,40 @@ public class FlinkStateInternals<K> implements StateInternals {
         boolean fasterCopy) {
       this.namespace = namespace;
       this.flinkStateBackend = flinkStateBackend;
-      this.flinkStateDescriptor =
-          new ListStateDescriptor<>(
-              stateId, new CoderTypeSerializer<>(TimestampedValueCoder.of(coder), fasterCopy));
+      this.flinkStateDescriptor = createStateDescriptor(stateId, coder, fasterCopy);
       this.namespaceSerializer = namespaceSerializer;
     }
 
+    static <T> ListStateDescriptor<TimestampedValue<T>> createStateDescriptor(
+        String stateId, Coder<T> coder, boolean fasterCopy) {
+      return new ListStateDescriptor<>(
+          stateId, new CoderTypeSerializer<>(TimestampedValueCoder.of(coder), fasterCopy));
+    }
+
     @Override
     public Iterable<TimestampedValue<T>> readRange(Instant minTimestamp, Instant limitTimestamp) {
-      return readAsMap().subMap(minTimestamp, limitTimestamp).values();
+      List<TimestampedValue<T>> result = new ArrayList<>();
+      for (TimestampedValue<T> value : readSorted()) {
+        if (isInRange(value.getTimestamp(), minTimestamp, limitTimestamp)) {
+          result.add(value);
+        }
+      }
+      return result;
     }
 
     @Override
     public void clearRange(Instant minTimestamp, Instant limitTimestamp) {
-      SortedMap<Instant, TimestampedValue<T>> sortedMap = readAsMap();
-      sortedMap.subMap(minTimestamp, limitTimestamp).clear();
+      List<TimestampedValue<T>> remaining = new ArrayList<>();
+      for (TimestampedValue<T> value : readSorted()) {
+        if (!isInRange(value.getTimestamp(), minTimestamp, limitTimestamp)) {
+          remaining.add(value);
+        }
+      }
       try {
         ListState<TimestampedValue<T>> partitionedState =
             flinkStateBackend.getPartitionedState(
                 namespace, namespaceSerializer, flinkStateDescriptor);
-        partitionedState.update(Lists.newArrayList(sortedMap.values()));
+        partitionedState.update(remaining);
       } catch (Exception e) {
         throw new RuntimeException("Error adding to bag state.", e);
       }
@@ -680,10 +720,10 @@ public class FlinkStateInternals<K> implements StateInternals {
     @Override
     @Nullable
     public Iterable<TimestampedValue<T>> read() {
-      return readAsMap().values();
+      return readSorted();
     }
 
-    private SortedMap<Instant, TimestampedValue<T>> readAsMap() {
+    private List<TimestampedValue<T>> readSorted() {
       Iterable<TimestampedValue<T>> listValues;
       try {
         ListState<TimestampedValue<T>> partitionedState =
@@ -694,11 +734,10 @@ public class FlinkStateInternals<K> implements StateInternals {
         throw new RuntimeException("Error reading state.", e);
       }
 
-      SortedMap<Instant, TimestampedValue<T>> sortedMap = Maps.newTreeMap();
-      for (TimestampedValue<T> value : listValues) {
-        sortedMap.put(value.getTimestamp(), value);
-      }
-      return sortedMap;
+      // The sort is stable, so values with the same timestamp stay in insertion order.
+      List<TimestampedValue<T>> sorted = Lists.newArrayList(listValues);
+      sorted.sort(Comparator.comparing(TimestampedValue::getTimestamp));
+      return sorted;
     }
 
     @Override
@@ -718,6 +757,306 @@ public class FlinkStateInternals<K> implements StateInternals {
     }
   }
 
+  /**
+   * An {@link OrderedListState} backed by a Flink {@link
+   * org.apache.flink.api.common.state.MapState} from each timestamp to the values added at that
+   * timestamp. It is used if {@link FlinkPipelineOptions#getMapBackedOrderedListState()} is set.
+   *
+   * <p>The timestamps are indexed in two levels: the sorted timestamps of every bucket of {@link
+   * #BUCKET_MILLIS}, and the sorted buckets of every group of {@link #BUCKETS_PER_GROUP} buckets.
+   * Range reads and deletes only visit the groups and buckets overlapping the range. Both index
+   * entries hold at most 100 elements, so adding a value rewrites a bounded amount of state no
+   * matter how dense the timestamps are.
+   */
+  private static class FlinkMapOrderedListState<T> implements OrderedListState<T> {
+    private static final long BUCKET_MILLIS = 100L;
+    private static final long BUCKETS_PER_GROUP = 100L;
+    // Ranges spanning more groups iterate over the existing groups instead of looking up each
+    // group of the range.
+    private static final long MAX_LOOKED_UP_GROUPS = 64;
+
+    private final StateNamespace namespace;
+    private final MapStateDescriptor<Instant, List<T>> valuesDescriptor;
+    private final MapStateDescriptor<Long, List<Instant>> timestampsDescriptor;
+    private final MapStateDescriptor<Long, List<Long>> bucketsDescriptor;
+    private final KeyedStateBackend<FlinkKey> flinkStateBackend;
+    private final FlinkStateNamespaceKeySerializer namespaceSerializer;
+
+    FlinkMapOrderedListState(
+        KeyedStateBackend<FlinkKey> flinkStateBackend,
+        String stateId,
+        StateNamespace namespace,
+        Coder<T> coder,
+        FlinkStateNamespaceKeySerializer namespaceSerializer,
+        boolean fasterCopy) {
+      this.namespace = namespace;
+      this.flinkStateBackend = flinkStateBackend;
+      this.valuesDescriptor = createValuesDescriptor(stateId, coder, fasterCopy);
+      this.timestampsDescriptor = createTimestampsDescriptor(stateId, fasterCopy);
+      this.bucketsDescriptor = createBucketsDescriptor(stateId, fasterCopy);
+      this.namespaceSerializer = namespaceSerializer;
+    }
+
+    static <T> MapStateDescriptor<Instant, List<T>> createValuesDescriptor(
+        String stateId, Coder<T> coder, boolean fasterCopy) {
+      return new MapStateDescriptor<>(
+          stateId,
+          new CoderTypeSerializer<>(InstantCoder.of(), fasterCopy),
+          new CoderTypeSerializer<>(ListCoder.of(coder), fasterCopy));
+    }
+
+    /** The sorted timestamps of the values, by their bucket. */
+    static MapStateDescriptor<Long, List<Instant>> createTimestampsDescriptor(
+        String stateId, boolean fasterCopy) {
+      return new MapStateDescriptor<>(
+          stateId + "/timestamps",
+          new CoderTypeSerializer<>(VarLongCoder.of(), fasterCopy),
+          new CoderTypeSerializer<>(ListCoder.of(InstantCoder.of()), fasterCopy));
+    }
+
+    /** The sorted buckets holding timestamps, by their group. */
+    static MapStateDescriptor<Long, List<Long>> createBucketsDescriptor(
+        String stateId, boolean fasterCopy) {
+      return new MapStateDescriptor<>(
+          stateId + "/buckets",
+          new CoderTypeSerializer<>(VarLongCoder.of(), fasterCopy),
+          new CoderTypeSerializer<>(ListCoder.of(VarLongCoder.of()), fasterCopy));
+    }
+
+    private static long bucketOf(Instant timestamp) {
+      return Math.floorDiv(timestamp.getMillis(), BUCKET_MILLIS);
+    }
+
+    private static long groupOf(long bucket) {
+      return Math.floorDiv(bucket, BUCKETS_PER_GROUP);
+    }
+
+    private org.apache.flink.api.common.state.MapState<Instant, List<T>> getValues()
+        throws Exception {
+      return flinkStateBackend.getPartitionedState(
+          namespace, namespaceSerializer, valuesDescriptor);
+    }
+
+    private org.apache.flink.api.common.state.MapState<Long, List<Instant>> getTimestamps()
+        throws Exception {
+      return flinkStateBackend.getPartitionedState(
+          namespace, namespaceSerializer, timestampsDescriptor);
+    }
+
+    private org.apache.flink.api.common.state.MapState<Long, List<Long>> getBuckets()
+        throws Exception {
+      return flinkStateBackend.getPartitionedState(
+          namespace, namespaceSerializer, bucketsDescriptor);
+    }
+
+    /** Returns the existing groups overlapping the non-empty range with their buckets, in order. */
+    private SortedMap<Long, List<Long>> readGroups(Instant minTimestamp, Instant limitTimestamp)
+        throws Exception {
+      SortedMap<Long, List<Long>> result = Maps.newTreeMap();
+      org.apache.flink.api.common.state.MapState<Long, List<Long>> buckets = getBuckets();
+      long minGroup = groupOf(bucketOf(minTimestamp));
+      long maxGroup = groupOf(bucketOf(limitTimestamp.minus(1)));
+      if (maxGroup - minGroup < MAX_LOOKED_UP_GROUPS) {
+        for (long group = minGroup; group <= maxGroup; group++) {
+          List<Long> groupBuckets = buckets.get(group);
+          if (groupBuckets != null) {
+            result.put(group, groupBuckets);
+          }
+        }
+      } else {
+        Iterable<Map.Entry<Long, List<Long>>> entries = buckets.entries();
+        if (entries != null) {
+          for (Map.Entry<Long, List<Long>> entry : entries) {
+            if (entry.getKey() >= minGroup && entry.getKey() <= maxGroup) {
+              result.put(entry.getKey(), entry.getValue());
+            }
+          }
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public Iterable<TimestampedValue<T>> readRange(Instant minTimestamp, Instant limitTimestamp) {
+      List<TimestampedValue<T>> result = new ArrayList<>();
+      if (!minTimestamp.isBefore(limitTimestamp)) {
+        return result;
+      }
+      try {
+        org.apache.flink.api.common.state.MapState<Instant, List<T>> values = getValues();
+        org.apache.flink.api.common.state.MapState<Long, List<Instant>> timestamps =
+            getTimestamps();
+        long minBucket = bucketOf(minTimestamp);
+        long maxBucket = bucketOf(limitTimestamp.minus(1));
+        for (List<Long> groupBuckets : readGroups(minTimestamp, limitTimestamp).values()) {
+          for (long bucket : groupBuckets) {
+            if (bucket < minBucket || bucket > maxBucket) {
+              continue;
+            }
+            for (Instant timestamp : timestamps.get(bucket)) {
+              if (isInRange(timestamp, minTimestamp, limitTimestamp)) {
+                for (T value : values.get(timestamp)) {
+                  result.add(TimestampedValue.of(value, timestamp));
+                }
+              }
+            }
+          }
+        }
+      } catch (Exception e) {
+        throw new RuntimeException("Error reading state.", e);
+      }
+      return result;
+    }
+
+    @Override
+    public void clearRange(Instant minTimestamp, Instant limitTimestamp) {
+      if (!minTimestamp.isBefore(limitTimestamp)) {
+        return;
+      }
+      try {
+        org.apache.flink.api.common.state.MapState<Instant, List<T>> values = getValues();
+        org.apache.flink.api.common.state.MapState<Long, List<Instant>> timestamps =
+            getTimestamps();
+        org.apache.flink.api.common.state.MapState<Long, List<Long>> buckets = getBuckets();
+        long minBucket = bucketOf(minTimestamp);
+        long maxBucket = bucketOf(limitTimestamp.minus(1));
+        for (Map.Entry<Long, List<Long>> group :
+            readGroups(minTimestamp, limitTimestamp).entrySet()) {
+          List<Long> remainingBuckets = new ArrayList<>();
+          for (long bucket : group.getValue()) {
+            if (bucket < minBucket || bucket > maxBucket) {
+              remainingBuckets.add(bucket);
+              continue;
+            }
+            List<Instant> bucketTimestamps = timestamps.get(bucket);
+            List<Instant> remainingTimestamps = new ArrayList<>();
+            for (Instant timestamp : bucketTimestamps) {
+              if (isInRange(timestamp, minTimestamp, limitTimestamp)) {
+                values.remove(timestamp);
+              } else {
+                remainingTimestamps.add(timestamp);
+              }
+            }
+            if (remainingTimestamps.isEmpty()) {
+              timestamps.remove(bucket);
+            } else {
+              remainingBuckets.add(bucket);
+              if (remainingTimestamps.size() < bucketTimestamps.size()) {
+                timestamps.put(bucket, remainingTimestamps);
+              }
+            }
+          }
+          if (remainingBuckets.isEmpty()) {
+            buckets.remove(group.getKey());
+          } else if (remainingBuckets.size() < group.getValue().size()) {
+            buckets.put(group.getKey(), remainingBuckets);
+          }
+        }
+      } catch (Exception e) {
+        throw new RuntimeException("Error clearing state.", e);
+      }
+    }
+
+    @Override
+    public OrderedListState<T> readRangeLater(Instant minTimestamp, Instant limitTimestamp) {
+      return this;
+    }
+
+    @Override
+    public void add(TimestampedValue<T> value) {
+      try {
+        org.apache.flink.api.common.state.MapState<Instant, List<T>> values = getValues();
+        Instant timestamp = value.getTimestamp();
+        List<T> valuesAtTimestamp = values.get(timestamp);
+        List<T> newValues;
+        if (valuesAtTimestamp == null) {
+          addToIndex(timestamp);
+          newValues = new ArrayList<>(1);
+        } else {
+          newValues = new ArrayList<>(valuesAtTimestamp.size() + 1);
+          newValues.addAll(valuesAtTimestamp);
+        }
+        newValues.add(value.getValue());
+        values.put(timestamp, newValues);
+      } catch (Exception e) {
+        throw new RuntimeException("Error adding to ordered list state.", e);
+      }
+    }
+
+    /** Adds a timestamp which has no values yet to its bucket, and a new bucket to its group. */
+    private void addToIndex(Instant timestamp) throws Exception {
+      org.apache.flink.api.common.state.MapState<Long, List<Instant>> timestamps = getTimestamps();
+      long bucket = bucketOf(timestamp);
+      List<Instant> bucketTimestamps = timestamps.get(bucket);
+      if (bucketTimestamps == null) {
+        timestamps.put(bucket, Collections.singletonList(timestamp));
+        org.apache.flink.api.common.state.MapState<Long, List<Long>> buckets = getBuckets();
+        long group = groupOf(bucket);
+        buckets.put(group, insertSorted(buckets.get(group), bucket));
+      } else {
+        timestamps.put(bucket, insertSorted(bucketTimestamps, timestamp));
+      }
+    }
+
+    /** Returns a copy of the sorted {@code list} with {@code element} inserted. */
+    private static <E extends Comparable<? super E>> List<E> insertSorted(
+        @Nullable List<E> list, E element) {
+      if (list == null) {
+        return Collections.singletonList(element);
+      }
+      List<E> result = new ArrayList<>(list.size() + 1);
+      result.addAll(list);
+      result.add(-Collections.binarySearch(list, element) - 1, element);
+      return result;
+    }
+
+    @Override
+    public ReadableState<Boolean> isEmpty() {
+      return new ReadableState<Boolean>() {
+        @Override
+        public Boolean read() {
+          try {
+            return getBuckets().isEmpty();
+          } catch (Exception e) {
+            throw new RuntimeException("Error reading state.", e);
+          }
+        }
+
+        @Override
+        public ReadableState<Boolean> readLater() {
+          return this;
+        }
+      };
+    }
+
+    @Override
+    @Nullable
+    public Iterable<TimestampedValue<T>> read() {
+      return readRange(new Instant(Long.MIN_VALUE), new Instant(Long.MAX_VALUE));
+    }
+
+    @Override
+    public GroupingState<TimestampedValue<T>, Iterable<TimestampedValue<T>>> readLater() {
+      return this;
+    }
+
+    @Override
+    public void clear() {
+      try {
+        getValues().clear();
+        getTimestamps().clear();
+        getBuckets().clear();
+      } catch (Exception e) {
+        throw new RuntimeException("Error clearing state.", e);
+      }
+    }
+  }
+
+  private static boolean isInRange(
+      Instant timestamp, Instant minTimestamp, Instant limitTimestamp) {
+    return !timestamp.isBefore(minTimestamp) && timestamp.isBefore(limitTimestamp);
+  }
+
   private static class FlinkBagState<T> implements BagState<T> {
 
     private final StateNamespace namespace;
@@ -1705,6 +2044,7 @@ public class FlinkStateInternals<K> implements StateInternals {
 
     private final KeyedStateBackend keyedStateBackend;
     private final Boolean fasterCopy;
+    private final boolean mapBackedOrderedListState;
     private final FlinkStateNamespaceKeySerializer namespaceSerializer;
 
     public EarlyBinder(
@@ -1713,6 +2053,8 @@ public class FlinkStateInternals<K> implements StateInternals {
         Coder<? extends BoundedWindow> windowCoder) {
       this.keyedStateBackend = keyedStateBackend;
       this.fasterCopy = pipelineOptions.get().as(FlinkPipelineOptions.class).getFasterCopy();
+      this.mapBackedOrderedListState =
+          pipelineOptions.get().as(FlinkPipelineOptions.class).getMapBackedOrderedListState();
       this.namespaceSerializer = new FlinkStateNamespaceKeySerializer(windowCoder);
     }
 
@@ -1778,10 +2120,21 @@ public class FlinkStateInternals<K> implements StateInternals {
     public <T> OrderedListState<T> bindOrderedList(
         String id, StateSpec<OrderedListState<T>> spec, Coder<T> elemCoder) {
       try {
-        keyedStateBackend.getOrCreateKeyedState(
-            namespaceSerializer,
-            new ListStateDescriptor<>(
-                id, new CoderTypeSerializer<>(TimestampedValueCoder.of(elemCoder), fasterCopy)));
+        if (mapBackedOrderedListState) {
+          keyedStateBackend.getOrCreateKeyedState(
+              namespaceSerializer,
+              FlinkMapOrderedListState.createValuesDescriptor(id, elemCoder, fasterCopy));
+          keyedStateBackend.getOrCreateKeyedState(
+              namespaceSerializer,
+              FlinkMapOrderedListState.createTimestampsDescriptor(id, fasterCopy));
+          keyedStateBackend.getOrCreateKeyedState(
+              namespaceSerializer,
+              FlinkMapOrderedListState.createBucketsDescriptor(id, fasterCopy));
+        } else {
+          keyedStateBackend.getOrCreateKeyedState(
+              namespaceSerializer,
+              FlinkOrderedListState.createStateDescriptor(id, elemCoder, fasterCopy));
+        }
       } catch (Exception e) {
         throw new RuntimeException(e);
       }
@@ -23,11 +23,13 @@ import org.apache.beam.runners.flink.FlinkPipelineOptions;
 import org.apache.beam.runners.flink.FlinkTestPipeline;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
+import org.apache.beam.sdk.testing.PAssert;
 import org.apache.beam.sdk.transforms.Create;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.GroupByKey;
 import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.PCollection;
 import org.apache.flink.test.util.AbstractTestBase;
 import org.junit.Assert;
 import org.junit.Test;
@@ -73,4 +75,34 @@ public class NonMergingGroupByKeyTest extends AbstractTestBase {
     final PipelineResult.State state = p.run().waitUntilFinish();
     Assert.assertEquals(PipelineResult.State.DONE, state);
   }
+
+  @Test
+  public void testReIterationReturnsAllValues() {
+    final Pipeline p = FlinkTestPipeline.createForBatch();
+    p.getOptions().as(FlinkPipelineOptions.class).setReIterableGroupByKeyResult(true);
+    final PCollection<KV<String, Integer>> result =
+        p.apply(
+                Create.of(
+                    Arrays.asList(KV.of("a", 1), KV.of("a", 2), KV.of("a", 3), KV.of("b", 4))))
+            .apply(GroupByKey.create())
+            .apply(
+                ParDo.of(
+                    new DoFn<KV<String, Iterable<Integer>>, KV<String, Integer>>() {
+                      @ProcessElement
+                      public void processElement(
+                          @Element KV<String, Iterable<Integer>> el,
+                          OutputReceiver<KV<String, Integer>> out) {
+                        int sum = 0;
+                        for (int i = 0; i < 2; i++) {
+                          for (Integer value : el.getValue()) {
+                            sum += value;
+                          }
+                        }
+                        out.output(KV.of(el.getKey(), sum));
+                      }
+                    }));
+    PAssert.that(result).containsInAnyOrder(KV.of("a", 12), KV.of("b", 8));
+    final PipelineResult.State state = p.run().waitUntilFinish();
+    Assert.assertEquals(PipelineResult.State.DONE, state);
+  }
 }
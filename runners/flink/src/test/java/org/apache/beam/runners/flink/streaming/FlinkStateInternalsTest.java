@@ -18,10 +18,14 @@
 package org.apache.beam.runners.flink.streaming;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.emptyIterable;
 import static org.hamcrest.core.Is.is;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 import org.apache.beam.runners.core.StateInternals;
 import org.apache.beam.runners.core.StateInternalsTest;
@@ -34,10 +38,13 @@ import org.apache.beam.runners.flink.adapter.FlinkKey;
 import org.apache.beam.runners.flink.translation.wrappers.streaming.state.FlinkStateInternals;
 import org.apache.beam.sdk.coders.CoderException;
 import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.state.OrderedListState;
 import org.apache.beam.sdk.state.WatermarkHoldState;
 import org.apache.beam.sdk.transforms.windowing.IntervalWindow;
 import org.apache.beam.sdk.transforms.windowing.TimestampCombiner;
 import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.values.TimestampedValue;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Lists;
 import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.java.typeutils.ValueTypeInfo;
@@ -188,6 +195,139 @@ public class FlinkStateInternalsTest extends StateInternalsTest {
     assertThat(state.read(), is((Instant) null));
   }
 
+  @Test
+  public void testOrderedListRangeReadsAndDeletes() throws Exception {
+    testOrderedListRangeReadsAndDeletes(FlinkPipelineOptions.defaults());
+  }
+
+  @Test
+  public void testMapBackedOrderedListRangeReadsAndDeletes() throws Exception {
+    FlinkPipelineOptions options = FlinkPipelineOptions.defaults();
+    options.setMapBackedOrderedListState(true);
+    testOrderedListRangeReadsAndDeletes(options);
+  }
+
+  @Test
+  public void testMapBackedOrderedListAcrossBuckets() throws Exception {
+    FlinkPipelineOptions options = FlinkPipelineOptions.defaults();
+    options.setMapBackedOrderedListState(true);
+    KeyedStateBackend<FlinkKey> keyedStateBackend = createStateBackend();
+    FlinkStateInternals<String> stateInternals =
+        new FlinkStateInternals<>(
+            keyedStateBackend,
+            StringUtf8Coder.of(),
+            IntervalWindow.getCoder(),
+            new SerializablePipelineOptions(options));
+    OrderedListState<String> state =
+        stateInternals.state(
+            StateNamespaces.global(), StateTags.orderedList("ordered", StringUtf8Coder.of()));
+
+    // One value every 20 seconds for 5 hours, added in reverse order.
+    List<TimestampedValue<String>> values = new ArrayList<>();
+    for (int i = 0; i < 900; i++) {
+      values.add(TimestampedValue.of(Integer.toString(i), new Instant(i * 20_000L)));
+    }
+    for (TimestampedValue<String> value : Lists.reverse(values)) {
+      state.add(value);
+    }
+
+    assertThat(state.read(), contains(values.toArray()));
+    // A range within a few groups of buckets and a range over many groups.
+    assertThat(
+        state.readRange(new Instant(50_000), new Instant(130_000)),
+        contains(values.subList(3, 7).toArray()));
+    assertThat(
+        state.readRange(new Instant(1_000_000), new Instant(10_000_000)),
+        contains(values.subList(50, 500).toArray()));
+
+    // Clear ranges which start and end in the middle of a bucket.
+    state.clearRange(new Instant(30_000), new Instant(110_000));
+    state.clearRange(new Instant(1_010_000), new Instant(9_990_000));
+    List<TimestampedValue<String>> remaining = new ArrayList<>();
+    remaining.addAll(values.subList(0, 2));
+    remaining.addAll(values.subList(6, 51));
+    remaining.addAll(values.subList(500, 900));
+    assertThat(state.read(), contains(remaining.toArray()));
+
+    state.clearRange(new Instant(Long.MIN_VALUE), new Instant(Long.MAX_VALUE));
+    assertThat(state.isEmpty().read(), is(true));
+  }
+
+  @Test
+  public void testMapBackedOrderedListWithDenseTimestamps() throws Exception {
+    FlinkPipelineOptions options = FlinkPipelineOptions.defaults();
+    options.setMapBackedOrderedListState(true);
+    KeyedStateBackend<FlinkKey> keyedStateBackend = createStateBackend();
+    FlinkStateInternals<String> stateInternals =
+        new FlinkStateInternals<>(
+            keyedStateBackend,
+            StringUtf8Coder.of(),
+            IntervalWindow.getCoder(),
+            new SerializablePipelineOptions(options));
+    OrderedListState<String> state =
+        stateInternals.state(
+            StateNamespaces.global(), StateTags.orderedList("ordered", StringUtf8Coder.of()));
+
+    // One value every millisecond for 25 seconds, added in reverse order.
+    List<TimestampedValue<String>> values = new ArrayList<>();
+    for (int i = 0; i < 25_000; i++) {
+      values.add(TimestampedValue.of(Integer.toString(i), new Instant(i)));
+    }
+    for (TimestampedValue<String> value : Lists.reverse(values)) {
+      state.add(value);
+    }
+
+    assertThat(state.read(), contains(values.toArray()));
+    assertThat(
+        state.readRange(new Instant(9_950), new Instant(10_050)),
+        contains(values.subList(9_950, 10_050).toArray()));
+
+    state.clearRange(new Instant(150), new Instant(24_850));
+    List<TimestampedValue<String>> remaining = new ArrayList<>();
+    remaining.addAll(values.subList(0, 150));
+    remaining.addAll(values.subList(24_850, 25_000));
+    assertThat(state.read(), contains(remaining.toArray()));
+  }
+
+  private void testOrderedListRangeReadsAndDeletes(FlinkPipelineOptions options)
+      throws Exception {
+    KeyedStateBackend<FlinkKey> keyedStateBackend = createStateBackend();
+    FlinkStateInternals<String> stateInternals =
+        new FlinkStateInternals<>(
+            keyedStateBackend,
+            StringUtf8Coder.of(),
+            IntervalWindow.getCoder(),
+            new SerializablePipelineOptions(options));
+    StateTag<OrderedListState<String>> stateTag =
+        StateTags.orderedList("ordered", StringUtf8Coder.of());
+    OrderedListState<String> state = stateInternals.state(StateNamespaces.global(), stateTag);
+
+    assertThat(state.isEmpty().read(), is(true));
+    TimestampedValue<String> a = TimestampedValue.of("a", new Instant(30));
+    TimestampedValue<String> b = TimestampedValue.of("b", new Instant(10));
+    TimestampedValue<String> c = TimestampedValue.of("c", new Instant(20));
+    TimestampedValue<String> d = TimestampedValue.of("d", new Instant(20));
+    state.add(a);
+    state.add(b);
+    state.add(c);
+    state.add(d);
+    assertThat(state.isEmpty().read(), is(false));
+
+    // Values with the same timestamp are all kept, in insertion order.
+    assertThat(state.read(), contains(b, c, d, a));
+    assertThat(state.readRange(new Instant(15), new Instant(30)), contains(c, d));
+
+    state.clearRange(new Instant(10), new Instant(21));
+    assertThat(state.read(), contains(a));
+
+    // The state is per key.
+    changeKey(keyedStateBackend);
+    assertThat(state.isEmpty().read(), is(true));
+
+    state.clear();
+    assertThat(state.read(), emptyIterable());
+  }
+
   public static KeyedStateBackend<FlinkKey> createStateBackend() throws Exception {
     AbstractKeyedStateBackend<FlinkKey> keyedStateBackend =
         MemoryStateBackendWrapper.createKeyedStateBackend(
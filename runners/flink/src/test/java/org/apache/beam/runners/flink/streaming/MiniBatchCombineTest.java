@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.flink.streaming;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.beam.runners.flink.FlinkPipelineOptions;
+import org.apache.beam.runners.flink.TestFlinkRunner;
+import org.apache.beam.sdk.Pipeline;
+import org.apache.beam.sdk.io.GenerateSequence;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.transforms.MapElements;
+import org.apache.beam.sdk.transforms.Sum;
+import org.apache.beam.sdk.transforms.Values;
+import org.apache.beam.sdk.transforms.windowing.AfterPane;
+import org.apache.beam.sdk.transforms.windowing.FixedWindows;
+import org.apache.beam.sdk.transforms.windowing.Repeatedly;
+import org.apache.beam.sdk.transforms.windowing.Window;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.TypeDescriptors;
+import org.joda.time.Duration;
+import org.joda.time.Instant;
+import org.junit.Test;
+
+/** Tests streaming Combine.perKey with mini-batch pre-aggregation. */
+public class MiniBatchCombineTest implements Serializable {
+
+  @Test
+  public void testCombinePerKeyWithMiniBatch() {
+    FlinkPipelineOptions options = FlinkPipelineOptions.defaults();
+
+    options.setRunner(TestFlinkRunner.class);
+    options.setStreaming(true);
+    options.setStreamingMiniBatchCombine(true);
+    options.setMaxBundleSize(7L);
+
+    Pipeline pipeline = Pipeline.create(options);
+    PCollection<Long> result =
+        pipeline
+            .apply(GenerateSequence.from(0).to(100).withTimestampFn(Instant::new))
+            .apply(Window.into(FixedWindows.of(Duration.millis(10))))
+            .apply(
+                MapElements.into(
+                        TypeDescriptors.kvs(TypeDescriptors.strings(), TypeDescriptors.longs()))
+                    .via(i -> KV.of(i % 2 == 0 ? "even" : "odd", 1L)))
+            .apply(Sum.longsPerKey())
+            .apply(Values.create());
+
+    PAssert.that(result)
+        .containsInAnyOrder(
+            5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L, 5L);
+
+    pipeline.run();
+  }
+
+  @Test
+  public void testCombinePerKeyWithElementCountTrigger() {
+    FlinkPipelineOptions options = FlinkPipelineOptions.defaults();
+
+    options.setRunner(TestFlinkRunner.class);
+    options.setStreaming(true);
+    options.setStreamingMiniBatchCombine(true);
+    options.setMaxBundleSize(7L);
+
+    // Mini-batching does not apply to this trigger, so it fires after every two input elements
+    // rather than after two pre-aggregated accumulators.
+    Pipeline pipeline = Pipeline.create(options);
+    PCollection<Long> result =
+        pipeline
+            .apply(GenerateSequence.from(0).to(100).withTimestampFn(Instant::new))
+            .apply(
+                Window.<Long>into(FixedWindows.of(Duration.millis(10)))
+                    .triggering(Repeatedly.forever(AfterPane.elementCountAtLeast(2)))
+                    .withAllowedLateness(Duration.ZERO)
+                    .discardingFiredPanes())
+            .apply(
+                MapElements.into(
+                        TypeDescriptors.kvs(TypeDescriptors.strings(), TypeDescriptors.longs()))
+                    .via(i -> KV.of(i % 2 == 0 ? "even" : "odd", 1L)))
+            .apply(Sum.longsPerKey())
+            .apply(Values.create());
+
+    // Each key has 5 elements per window, which fire as panes of 2, 2 and 1 elements.
+    List<Long> expected = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      expected.addAll(Arrays.asList(2L, 2L, 1L));
+    }
+    PAssert.that(result).containsInAnyOrder(expected);
+
+    pipeline.run();
+  }
+}
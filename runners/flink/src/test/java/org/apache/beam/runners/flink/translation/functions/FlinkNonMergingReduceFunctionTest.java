@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.flink.translation.functions;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.util.WindowedValue;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.WindowingStrategy;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Strings;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterables;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.ByteStreams;
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.junit.Test;
+
+/** Tests for {@link FlinkNonMergingReduceFunction}. */
+public class FlinkNonMergingReduceFunctionTest {
+
+  @Test
+  public void testReIterableResultSpanningSeveralPages() {
+    List<String> values = new ArrayList<>();
+    List<WindowedValue<KV<String, String>>> input = new ArrayList<>();
+    // Values of 1000 bytes do not line up with the page boundaries.
+    for (int i = 0; i < 3 * FlinkNonMergingReduceFunction.PAGE_SIZE / 1000; i++) {
+      String value = Strings.padStart(Integer.toString(i), 1000, 'x');
+      values.add(value);
+      input.add(WindowedValue.valueInGlobalWindow(KV.of("key", value)));
+    }
+
+    List<WindowedValue<KV<String, Iterable<String>>>> output = new ArrayList<>();
+    new FlinkNonMergingReduceFunction<String, String>(
+            WindowingStrategy.globalDefault(), true, StringUtf8Coder.of())
+        .reduce(input, new ListCollector<>(output));
+
+    assertEquals(1, output.size());
+    Iterable<String> result = output.get(0).getValue().getValue();
+    assertThat(result, contains(values.toArray()));
+    // The result can be iterated again.
+    assertThat(result, contains(values.toArray()));
+  }
+
+  @Test
+  public void testReIterableResultOfSmallGroup() {
+    List<WindowedValue<KV<String, String>>> input =
+        Collections.singletonList(WindowedValue.valueInGlobalWindow(KV.of("key", "value")));
+
+    List<WindowedValue<KV<String, Iterable<String>>>> output = new ArrayList<>();
+    new FlinkNonMergingReduceFunction<String, String>(
+            WindowingStrategy.globalDefault(), true, StringUtf8Coder.of())
+        .reduce(input, new ListCollector<>(output));
+
+    Iterable<String> result = Iterables.getOnlyElement(output).getValue().getValue();
+    assertThat(result, contains("value"));
+    assertThat(result, contains("value"));
+  }
+
+  @Test
+  public void testPagedOutputStreamOfSmallGroup() throws IOException {
+    FlinkNonMergingReduceFunction.PagedOutputStream out =
+        new FlinkNonMergingReduceFunction.PagedOutputStream(
+            FlinkNonMergingReduceFunction.FIRST_PAGE_SIZE, FlinkNonMergingReduceFunction.PAGE_SIZE);
+    StringUtf8Coder.of().encode("0123456789", out);
+
+    // A small group does not allocate a whole page of the maximum size.
+    assertEquals(1, out.numPages());
+    assertEquals(FlinkNonMergingReduceFunction.FIRST_PAGE_SIZE, out.allocatedBytes());
+    assertEquals("0123456789", StringUtf8Coder.of().decode(out.toInputStream()));
+  }
+
+  @Test
+  public void testPagedOutputStream() throws IOException {
+    byte[] bytes = new byte[2500];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) i;
+    }
+    FlinkNonMergingReduceFunction.PagedOutputStream out =
+        new FlinkNonMergingReduceFunction.PagedOutputStream(100, 1000);
+    out.write(bytes[0]);
+    out.write(bytes, 1, 999);
+    out.write(bytes, 1000, bytes.length - 1000);
+    // Pages of 100, 200, 400, 800 and 1000 bytes.
+    assertEquals(5, out.numPages());
+    assertEquals(bytes.length, out.allocatedBytes());
+
+    assertArrayEquals(bytes, ByteStreams.toByteArray(out.toInputStream()));
+
+    InputStream in = out.toInputStream();
+    byte[] read = new byte[bytes.length];
+    for (int i = 0; i < bytes.length; i++) {
+      read[i] = (byte) in.read();
+    }
+    assertEquals(-1, in.read());
+    assertArrayEquals(bytes, read);
+  }
+
+  @Test
+  public void testPagedOutputStreamEmpty() throws IOException {
+    FlinkNonMergingReduceFunction.PagedOutputStream out =
+        new FlinkNonMergingReduceFunction.PagedOutputStream(100, 1000);
+    assertEquals(0, out.numPages());
+    assertEquals(-1, out.toInputStream().read());
+    assertEquals(-1, out.toInputStream().read(new byte[1], 0, 1));
+  }
+}
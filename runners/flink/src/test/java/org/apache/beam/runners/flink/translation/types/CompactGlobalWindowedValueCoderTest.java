@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.flink.translation.types;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.Arrays;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.testing.CoderProperties;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
+import org.apache.beam.sdk.transforms.windowing.PaneInfo;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.util.WindowedValue;
+import org.joda.time.Instant;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link CompactGlobalWindowedValueCoder}. */
+@RunWith(JUnit4.class)
+public class CompactGlobalWindowedValueCoderTest {
+
+  private final CompactGlobalWindowedValueCoder<String> coder =
+      CompactGlobalWindowedValueCoder.of(StringUtf8Coder.of());
+
+  @Test
+  public void testDecodeEncodeEqual() throws Exception {
+    CoderProperties.coderDecodeEncodeEqual(coder, WindowedValue.valueInGlobalWindow("a"));
+    CoderProperties.coderDecodeEncodeEqual(
+        coder, WindowedValue.timestampedValueInGlobalWindow("b", new Instant(42)));
+    CoderProperties.coderDecodeEncodeEqual(
+        coder,
+        WindowedValue.of(
+            "c",
+            new Instant(42),
+            GlobalWindow.INSTANCE,
+            PaneInfo.createPane(true, false, PaneInfo.Timing.ON_TIME)));
+  }
+
+  @Test
+  public void testEncodingIsSmallerThanFullCoder() throws Exception {
+    WindowedValue.FullWindowedValueCoder<String> fullCoder =
+        WindowedValue.getFullCoder(StringUtf8Coder.of(), GlobalWindow.Coder.INSTANCE);
+    for (WindowedValue<String> value :
+        Arrays.asList(
+            WindowedValue.valueInGlobalWindow("a"),
+            WindowedValue.timestampedValueInGlobalWindow("b", new Instant(42)))) {
+      assertThat(
+          CoderUtils.encodeToByteArray(coder, value).length,
+          lessThan(CoderUtils.encodeToByteArray(fullCoder, value).length));
+    }
+    assertThat(
+        CoderUtils.encodeToByteArray(coder, WindowedValue.valueInGlobalWindow("a")).length,
+        equalTo(1 + CoderUtils.encodeToByteArray(StringUtf8Coder.of(), "a").length));
+  }
+
+  @Test(expected = CoderException.class)
+  public void testDecodeUnknownHeader() throws Exception {
+    CoderUtils.decodeFromByteArray(coder, new byte[] {7});
+  }
+}
@@ -1649,6 +1649,116 @@ public class DoFnOperatorTest {
             WindowedValue.valueInGlobalWindow("finishBundle")));
   }
 
+  @Test
+  public void testFinishBundleAheadOfCheckpoint() throws Exception {
+    OneInputStreamOperatorTestHarness<WindowedValue<String>, WindowedValue<String>> testHarness =
+        createFinishBundleAheadOfCheckpointHarness(6_000L);
+
+    testHarness.open();
+    testHarness.processElement(new StreamRecord<>(WindowedValue.valueInGlobalWindow("a")));
+
+    // The bundle timeout has not passed, but the next checkpoint is due before the next check
+    testHarness.setProcessingTime(5_000);
+
+    assertThat(
+        stripStreamRecordFromWindowedValue(testHarness.getOutput()),
+        contains(
+            WindowedValue.valueInGlobalWindow("a"),
+            WindowedValue.valueInGlobalWindow("finishBundle")));
+
+    testHarness.close();
+  }
+
+  @Test
+  public void testFinishBundleAheadOfCheckpointOnlyOncePerCheckpoint() throws Exception {
+    OneInputStreamOperatorTestHarness<WindowedValue<String>, WindowedValue<String>> testHarness =
+        createFinishBundleAheadOfCheckpointHarness(6_000L);
+
+    testHarness.open();
+    testHarness.processElement(new StreamRecord<>(WindowedValue.valueInGlobalWindow("a")));
+    testHarness.setProcessingTime(5_000);
+    testHarness.getOutput().clear();
+
+    // The checkpoint is late. The bundle started after the early finish stays open until the
+    // checkpoint or the bundle timeout.
+    testHarness.processElement(new StreamRecord<>(WindowedValue.valueInGlobalWindow("b")));
+    testHarness.setProcessingTime(10_000);
+    assertThat(
+        stripStreamRecordFromWindowedValue(testHarness.getOutput()),
+        contains(WindowedValue.valueInGlobalWindow("b")));
+
+    testHarness.snapshot(1L, 10_000L);
+    assertThat(
+        stripStreamRecordFromWindowedValue(testHarness.getOutput()),
+        contains(
+            WindowedValue.valueInGlobalWindow("b"),
+            WindowedValue.valueInGlobalWindow("finishBundle")));
+
+    testHarness.close();
+  }
+
+  @Test
+  public void testNoFinishBundleAheadOfCheckpointBeforeThreshold() throws Exception {
+    OneInputStreamOperatorTestHarness<WindowedValue<String>, WindowedValue<String>> testHarness =
+        createFinishBundleAheadOfCheckpointHarness(12_000L);
+
+    testHarness.open();
+    testHarness.processElement(new StreamRecord<>(WindowedValue.valueInGlobalWindow("a")));
+
+    // The next checkpoint is only due after the check at 10 seconds
+    testHarness.setProcessingTime(5_000);
+
+    assertThat(
+        stripStreamRecordFromWindowedValue(testHarness.getOutput()),
+        contains(WindowedValue.valueInGlobalWindow("a")));
+
+    testHarness.close();
+  }
+
+  private OneInputStreamOperatorTestHarness<WindowedValue<String>, WindowedValue<String>>
+      createFinishBundleAheadOfCheckpointHarness(long checkpointingInterval) throws Exception {
+    TupleTag<String> outputTag = new TupleTag<>("main-output");
+    FlinkPipelineOptions options = FlinkPipelineOptions.defaults();
+    options.setMaxBundleSize(100L);
+    options.setMaxBundleTimeMills(10_000L);
+    options.setCheckpointingInterval(checkpointingInterval);
+    options.setFinishBundleBeforeCheckpointing(true);
+    options.setFinishBundleAheadOfCheckpoint(true);
+    options.setStreaming(true);
+
+    IdentityDoFn<String> doFn =
+        new IdentityDoFn<String>() {
+          @FinishBundle
+          public void finishBundle(FinishBundleContext context) {
+            context.output(
+                "finishBundle", BoundedWindow.TIMESTAMP_MIN_VALUE, GlobalWindow.INSTANCE);
+          }
+        };
+
+    DoFnOperator<String, String, String> doFnOperator =
+        new DoFnOperator<>(
+            doFn,
+            "stepName",
+            WindowedValue.getValueOnlyCoder(StringUtf8Coder.of()),
+            Collections.emptyMap(),
+            outputTag,
+            Collections.emptyList(),
+            new DoFnOperator.MultiOutputOutputManagerFactory<>(
+                outputTag,
+                WindowedValue.getFullCoder(StringUtf8Coder.of(), GlobalWindow.Coder.INSTANCE),
+                new SerializablePipelineOptions(options)),
+            WindowingStrategy.globalDefault(),
+            new HashMap<>(), /* side-input mapping */
+            Collections.emptyList(), /* side inputs */
+            options,
+            null,
+            null,
+            DoFnSchemaInformation.create(),
+            Collections.emptyMap());
+
+    return new OneInputStreamOperatorTestHarness<>(doFnOperator);
+  }
+
   @Test
   public void testBundleKeyed() throws Exception {
 
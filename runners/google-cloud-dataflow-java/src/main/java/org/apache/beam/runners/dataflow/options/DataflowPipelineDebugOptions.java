@@ -206,6 +206,21 @@ public interface DataflowPipelineDebugOptions
 
   void setWorkerCacheMb(Integer value);
 
+  /**
+   * The share of the worker's in-memory cache, in percent, that the user state of a single
+   * computation of a streaming job may use.
+   *
+   * <p>At 100, all computations share the whole cache and one computation may evict the state of
+   * all others.
+   */
+  @Description(
+      "The percentage of the worker's in-memory cache that the user state of a single streaming "
+          + "computation may use.")
+  @Default.Integer(100)
+  Integer getWorkerCacheComputationPercent();
+
+  void setWorkerCacheComputationPercent(Integer value);
+
   /**
    * The amount of time before UnboundedReaders are considered idle and closed during streaming
    * execution.
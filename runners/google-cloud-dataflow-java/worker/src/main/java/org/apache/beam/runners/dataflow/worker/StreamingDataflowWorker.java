@@ -274,7 +274,9 @@ public final class StreamingDataflowWorker {
                                 getWorkStreamLatencies);
                           }),
               createFanOutStubFactory(options),
-              GetWorkBudgetDistributors.distributeEvenly(),
+              DataflowRunner.hasExperiment(options, "streaming_engine_adaptive_get_work_budget")
+                  ? GetWorkBudgetDistributors.distributeAdaptively()
+                  : GetWorkBudgetDistributors.distributeEvenly(),
               Preconditions.checkNotNull(dispatcherClient),
               commitWorkStream ->
                   StreamingEngineWorkCommitter.builder()
@@ -449,7 +451,10 @@ public final class StreamingDataflowWorker {
     WindmillStateCache windmillStateCache =
         WindmillStateCache.builder()
             .setSizeMb(options.getWorkerCacheMb())
+            .setPerComputationSizePercent(options.getWorkerCacheComputationPercent())
             .setSupportMapViaMultimap(options.isEnableStreamingEngine())
+            .setFilterEmptyStateReads(
+                hasExperiment(options, "streaming_filter_empty_state_reads"))
             .build();
 
     GrpcWindmillStreamFactory.Builder windmillStreamFactoryBuilder =
@@ -656,7 +661,10 @@ public final class StreamingDataflowWorker {
     WindmillStateCache stateCache =
         WindmillStateCache.builder()
             .setSizeMb(options.getWorkerCacheMb())
+            .setPerComputationSizePercent(options.getWorkerCacheComputationPercent())
             .setSupportMapViaMultimap(options.isEnableStreamingEngine())
+            .setFilterEmptyStateReads(
+                hasExperiment(options, "streaming_filter_empty_state_reads"))
             .build();
     ComputationConfig.Fetcher configFetcher =
         options.isEnableStreamingEngine()
@@ -773,7 +781,9 @@ public final class StreamingDataflowWorker {
             !options.isEnableStreamingEngine()
                 || DataflowRunner.hasExperiment(
                     options, "streaming_engine_disable_new_heartbeat_requests"))
-        .setRequestBatchedGetWorkResponse(options.getWindmillRequestBatchedGetWorkResponse());
+        .setRequestBatchedGetWorkResponse(options.getWindmillRequestBatchedGetWorkResponse())
+        .setCompressCommits(
+            DataflowRunner.hasExperiment(options, "streaming_engine_compress_commits"));
   }
 
   private static JobHeader createJobHeader(DataflowWorkerHarnessOptions options, long clientId) {
@@ -792,7 +802,8 @@ public final class StreamingDataflowWorker {
         TimeUnit.SECONDS,
         chooseMaxBundlesOutstanding(options),
         chooseMaxBytesOutstanding(options),
-        new ThreadFactoryBuilder().setNameFormat("DataflowWorkUnits-%d").setDaemon(true).build());
+        new ThreadFactoryBuilder().setNameFormat("DataflowWorkUnits-%d").setDaemon(true).build(),
+        DataflowRunner.hasExperiment(options, "streaming_prioritize_work"));
   }
 
   public static void main(String[] args) throws Exception {
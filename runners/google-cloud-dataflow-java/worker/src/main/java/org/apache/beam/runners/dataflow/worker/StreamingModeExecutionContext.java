@@ -137,6 +137,8 @@ public class StreamingModeExecutionContext extends DataflowExecutionContext<Step
   // lifetime. start() is called for each work item.
   private OperationalLimits operationalLimits;
   private Windmill.WorkItemCommitRequest.Builder outputBuilder;
+  // View of the state cache for the current work item, null if it has no stateful steps.
+  private WindmillStateCache.@Nullable ForKey cacheForKey = null;
 
   /**
    * Current reader used for processing {@link Work}. Set by calling {@link
@@ -235,11 +237,17 @@ public class StreamingModeExecutionContext extends DataflowExecutionContext<Step
     Instant processingTime = computeProcessingTime(work.getWorkItem().getTimers().getTimersList());
 
     Collection<? extends StepContext> stepContexts = getAllStepContexts();
+    this.cacheForKey = null;
     if (!stepContexts.isEmpty()) {
       // This must be only created once for the workItem as token validation will fail if the same
       // work token is reused.
       WindmillStateCache.ForKey cacheForKey =
           stateCache.forKey(getComputationKey(), getWorkItem().getCacheToken(), getWorkToken());
+      if (getWorkItem().getIsNewKey()) {
+        cacheForKey.trackNonEmptyState();
+      }
+      stateReader.filterEmptyStateReads(cacheForKey);
+      this.cacheForKey = cacheForKey;
       for (StepContext stepContext : stepContexts) {
         stepContext.start(stateReader, processingTime, cacheForKey, work.watermarks());
       }
@@ -431,6 +439,9 @@ public class StreamingModeExecutionContext extends DataflowExecutionContext<Step
     for (StepContext stepContext : getAllStepContexts()) {
       stepContext.flushState();
     }
+    if (cacheForKey != null) {
+      cacheForKey.recordStateWrites(outputBuilder);
+    }
 
     if (activeReader != null) {
       Windmill.SourceState.Builder sourceStateBuilder =
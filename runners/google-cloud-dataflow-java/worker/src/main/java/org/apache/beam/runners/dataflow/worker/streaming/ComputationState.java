@@ -25,6 +25,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import javax.annotation.Nullable;
 import org.apache.beam.runners.dataflow.worker.util.BoundedQueueExecutor;
 import org.apache.beam.runners.dataflow.worker.windmill.state.WindmillStateCache;
+import org.apache.beam.runners.dataflow.worker.windmill.state.WindmillStatePrefetcher;
 import org.apache.beam.runners.dataflow.worker.windmill.work.budget.GetWorkBudget;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions;
@@ -39,6 +40,14 @@ import org.joda.time.Instant;
  * be heavily contended. Still, blocking work should not be done by it.
  */
 public class ComputationState {
+  // Scheduling delay of work of average size for a computation that keeps up with its input.
+  private static final long DEFAULT_SCHEDULING_DELAY_MILLIS = 2_000;
+  // Additional delay for the largest work items, which would otherwise hold up many small ones.
+  private static final long MAX_SIZE_SCHEDULING_DELAY_MILLIS = 5_000;
+  private static final long LARGE_WORK_ITEM_BYTES = 64L << 20;
+  // Input watermark age at which work gets no scheduling delay for lagging behind.
+  private static final long LAGGING_INPUT_WATERMARK_AGE_MILLIS = 60_000;
+
   private final String computationId;
   private final MapTask mapTask;
   private final ImmutableMap<String, String> transformUserNameToStateFamily;
@@ -46,6 +55,7 @@ public class ComputationState {
   private final BoundedQueueExecutor executor;
   private final ConcurrentLinkedQueue<ComputationWorkExecutor> computationWorkExecutors;
   private final String sourceBytesProcessCounterName;
+  private final WindmillStatePrefetcher statePrefetcher;
 
   public ComputationState(
       String computationId,
@@ -63,6 +73,7 @@ public class ComputationState {
     this.activeWorkState = ActiveWorkState.create(computationStateCache);
     this.sourceBytesProcessCounterName =
         "dataflow_source_bytes_processed-" + mapTask.getSystemName();
+    this.statePrefetcher = new WindmillStatePrefetcher();
   }
 
   public String getComputationId() {
@@ -77,6 +88,11 @@ public class ComputationState {
     return transformUserNameToStateFamily;
   }
 
+  /** Returns the {@link WindmillStatePrefetcher} shared by the work items of this computation. */
+  public WindmillStatePrefetcher getStatePrefetcher() {
+    return statePrefetcher;
+  }
+
   /**
    * Cache the {@link ComputationWorkExecutor} so that it can be re-used in future {@link
    * #acquireComputationWorkExecutor()} calls.
@@ -137,11 +153,37 @@ public class ComputationState {
   }
 
   private void execute(ExecutableWork executableWork) {
-    executor.execute(executableWork, executableWork.work().getSerializedWorkItemSize());
+    Work work = executableWork.work();
+    executor.execute(
+        executableWork,
+        work.getSerializedWorkItemSize(),
+        schedulingDelayMillis(work, Instant.now()));
   }
 
   private void forceExecute(ExecutableWork executableWork) {
-    executor.forceExecute(executableWork, executableWork.work().getSerializedWorkItemSize());
+    Work work = executableWork.work();
+    executor.forceExecute(
+        executableWork,
+        work.getSerializedWorkItemSize(),
+        schedulingDelayMillis(work, Instant.now()));
+  }
+
+  /**
+   * Returns how long {@link BoundedQueueExecutor} may let work queued after the given work run
+   * before it. Work of computations whose input watermark lags behind is preferred, so that their
+   * watermark holds are released sooner, and large work items are deferred behind small ones.
+   */
+  @VisibleForTesting
+  static long schedulingDelayMillis(Work work, Instant now) {
+    double sizeFraction =
+        Math.min(1.0, (double) work.getSerializedWorkItemSize() / LARGE_WORK_ITEM_BYTES);
+    long inputWatermarkAgeMillis =
+        Math.max(0, now.getMillis() - work.watermarks().inputDataWatermark().getMillis());
+    double lagFraction =
+        Math.min(1.0, (double) inputWatermarkAgeMillis / LAGGING_INPUT_WATERMARK_AGE_MILLIS);
+    return DEFAULT_SCHEDULING_DELAY_MILLIS
+        + Math.round(sizeFraction * MAX_SIZE_SCHEDULING_DELAY_MILLIS)
+        - Math.round(lagFraction * DEFAULT_SCHEDULING_DELAY_MILLIS);
   }
 
   public ImmutableList<RefreshableWork> getRefreshableWork(Instant refreshDeadline) {
@@ -154,6 +196,9 @@ public class ComputationState {
 
   public void printActiveWork(PrintWriter writer) {
     activeWorkState.printActiveWork(writer, Instant.now());
+    if (statePrefetcher.getPrefetchedTags() > 0) {
+      statePrefetcher.printSummary(writer);
+    }
   }
 
   public String sourceBytesProcessCounterName() {
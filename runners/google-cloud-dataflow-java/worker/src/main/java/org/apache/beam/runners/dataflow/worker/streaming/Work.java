@@ -46,6 +46,7 @@ import org.apache.beam.runners.dataflow.worker.windmill.Windmill.WorkItemCommitR
 import org.apache.beam.runners.dataflow.worker.windmill.client.commits.Commit;
 import org.apache.beam.runners.dataflow.worker.windmill.client.commits.WorkCommitter;
 import org.apache.beam.runners.dataflow.worker.windmill.client.getdata.GetDataClient;
+import org.apache.beam.runners.dataflow.worker.windmill.state.WindmillStatePrefetcher;
 import org.apache.beam.runners.dataflow.worker.windmill.state.WindmillStateReader;
 import org.apache.beam.runners.dataflow.worker.windmill.work.refresh.HeartbeatSender;
 import org.apache.beam.sdk.annotations.Internal;
@@ -255,6 +256,10 @@ public final class Work implements RefreshableWork {
     return WindmillStateReader.forWork(this);
   }
 
+  public WindmillStateReader createWindmillStateReader(WindmillStatePrefetcher statePrefetcher) {
+    return WindmillStateReader.forWork(this, statePrefetcher);
+  }
+
   @Override
   public WorkId id() {
     return id;
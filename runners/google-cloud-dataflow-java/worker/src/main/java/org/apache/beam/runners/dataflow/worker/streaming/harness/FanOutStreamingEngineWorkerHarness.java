@@ -60,6 +60,7 @@ import org.apache.beam.runners.dataflow.worker.windmill.client.throttling.Thrott
 import org.apache.beam.runners.dataflow.worker.windmill.work.WorkItemScheduler;
 import org.apache.beam.runners.dataflow.worker.windmill.work.budget.GetWorkBudget;
 import org.apache.beam.runners.dataflow.worker.windmill.work.budget.GetWorkBudgetDistributor;
+import org.apache.beam.runners.dataflow.worker.windmill.work.budget.GetWorkBudgetRefresher;
 import org.apache.beam.sdk.annotations.Internal;
 import org.apache.beam.sdk.util.MoreFutures;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
@@ -95,6 +96,8 @@ public final class FanOutStreamingEngineWorkerHarness implements StreamingWorker
   private final GrpcDispatcherClient dispatcherClient;
   private final GetWorkBudgetDistributor getWorkBudgetDistributor;
   private final GetWorkBudget totalGetWorkBudget;
+  // Only set if the distributor redistributes budget periodically.
+  private final @Nullable GetWorkBudgetRefresher getWorkBudgetRefresher;
   private final ThrottleTimer getWorkerMetadataThrottleTimer;
   private final Function<WindmillStream.CommitWorkStream, WorkCommitter> workCommitterFactory;
   private final ThrottlingGetDataMetricTracker getDataMetricTracker;
@@ -143,6 +146,11 @@ public final class FanOutStreamingEngineWorkerHarness implements StreamingWorker
     this.workerMetadataConsumer = workerMetadataConsumer;
     this.getWorkBudgetDistributor = getWorkBudgetDistributor;
     this.totalGetWorkBudget = totalGetWorkBudget;
+    this.getWorkBudgetRefresher =
+        getWorkBudgetDistributor.redistributesPeriodically()
+            ? new GetWorkBudgetRefresher(
+                () -> backends.get().windmillStreams().isEmpty(), this::redistributeBudget)
+            : null;
     this.activeMetadataVersion = Long.MIN_VALUE;
     this.workCommitterFactory = workCommitterFactory;
   }
@@ -219,6 +227,9 @@ public final class FanOutStreamingEngineWorkerHarness implements StreamingWorker
             getWorkerMetadataThrottleTimer,
             this::consumeWorkerMetadata);
     getWorkerMetadataStream.start();
+    if (getWorkBudgetRefresher != null) {
+      getWorkBudgetRefresher.start();
+    }
     started = true;
   }
 
@@ -248,6 +259,9 @@ public final class FanOutStreamingEngineWorkerHarness implements StreamingWorker
     Preconditions.checkState(started, "FanOutStreamingEngineWorkerHarness never started.");
     Preconditions.checkNotNull(getWorkerMetadataStream).shutdown();
     workerMetadataConsumer.shutdownNow();
+    if (getWorkBudgetRefresher != null) {
+      getWorkBudgetRefresher.stop();
+    }
     // Close all the streams blocking until this completes to not leak resources.
     closeStreamsNotIn(WindmillEndpoints.none()).join();
     channelCachingStubFactory.shutdown();
@@ -312,6 +326,11 @@ public final class FanOutStreamingEngineWorkerHarness implements StreamingWorker
     activeMetadataVersion = newWindmillEndpoints.version();
   }
 
+  private void redistributeBudget() {
+    getWorkBudgetDistributor.distributeBudget(
+        backends.get().windmillStreams().values(), totalGetWorkBudget);
+  }
+
   /** Close the streams that are no longer valid asynchronously. */
   @CanIgnoreReturnValue
   private CompletableFuture<Void> closeStreamsNotIn(WindmillEndpoints newWindmillEndpoints) {
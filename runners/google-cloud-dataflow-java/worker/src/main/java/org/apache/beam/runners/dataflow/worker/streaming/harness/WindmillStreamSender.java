@@ -23,6 +23,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import javax.annotation.concurrent.ThreadSafe;
@@ -60,6 +61,7 @@ final class WindmillStreamSender implements GetWorkBudgetSpender, StreamSender {
   private static final String STREAM_STARTER_THREAD_NAME = "StartWindmillStreamThread-%d";
   private final AtomicBoolean started;
   private final AtomicReference<GetWorkBudget> getWorkBudget;
+  private final AtomicLong workItemsReceived;
   private final GetWorkStream getWorkStream;
   private final GetDataStream getDataStream;
   private final CommitWorkStream commitWorkStream;
@@ -77,6 +79,7 @@ final class WindmillStreamSender implements GetWorkBudgetSpender, StreamSender {
       Function<CommitWorkStream, WorkCommitter> workCommitterFactory) {
     this.started = new AtomicBoolean(false);
     this.getWorkBudget = getWorkBudget;
+    this.workItemsReceived = new AtomicLong();
     this.streamingEngineThrottleTimers = StreamingEngineThrottleTimers.create();
 
     // Stream instances connect/reconnect internally, so we can reuse the same instance through the
@@ -96,7 +99,19 @@ final class WindmillStreamSender implements GetWorkBudgetSpender, StreamSender {
             FixedStreamHeartbeatSender.create(getDataStream),
             getDataClientFactory.apply(getDataStream),
             workCommitter,
-            workItemScheduler);
+            (workItem,
+                serializedWorkItemSize,
+                watermarks,
+                processingContext,
+                getWorkStreamLatencies) -> {
+              workItemsReceived.incrementAndGet();
+              workItemScheduler.scheduleWork(
+                  workItem,
+                  serializedWorkItemSize,
+                  watermarks,
+                  processingContext,
+                  getWorkStreamLatencies);
+            });
     // 3 threads, 1 for each stream type (GetWork, GetData, CommitWork).
     this.streamStarter =
         Executors.newFixedThreadPool(
@@ -158,6 +173,11 @@ final class WindmillStreamSender implements GetWorkBudgetSpender, StreamSender {
     }
   }
 
+  @Override
+  public long workItemsReceived() {
+    return workItemsReceived.get();
+  }
+
   long getAndResetThrottleTime() {
     return streamingEngineThrottleTimers.getAndResetThrottleTime();
   }
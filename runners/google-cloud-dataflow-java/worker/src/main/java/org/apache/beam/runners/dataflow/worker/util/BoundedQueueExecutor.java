@@ -17,24 +17,42 @@
  */
 package org.apache.beam.runners.dataflow.worker.util;
 
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.concurrent.GuardedBy;
+import org.apache.beam.sdk.util.HistogramData;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.util.concurrent.Monitor;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.util.concurrent.Monitor.Guard;
 
-/** An executor for executing work on windmill items. */
+/**
+ * An executor for executing work on windmill items.
+ *
+ * <p>Queued work runs in FIFO order by default. If the executor prioritizes work, each piece of
+ * work can be given a scheduling delay: queued work runs in order of its queue time plus its delay,
+ * so work with a smaller delay may overtake work queued before it. Since the delay is bounded by
+ * {@link #MAX_SCHEDULING_DELAY_MILLIS}, no work waits behind work queued more than that much after
+ * it.
+ */
 @SuppressWarnings({
   "nullness" // TODO(https://github.com/apache/beam/issues/20497)
 })
 public class BoundedQueueExecutor {
+  public static final long MAX_SCHEDULING_DELAY_MILLIS = 10_000;
 
   private final ThreadPoolExecutor executor;
   private final long maximumBytesOutstanding;
+  private final AtomicLong queuedWorkSequence = new AtomicLong();
+  private final boolean prioritizeWork;
+  // Time between queueing work and starting to run it, in milliseconds. Only recorded if the
+  // executor prioritizes work, as recording synchronizes on the histogram for every work item.
+  private final HistogramData queueWaitTimeMillis = HistogramData.exponential(0, 20);
 
   // Used to guard elementsOutstanding and bytesOutstanding.
   private final Monitor monitor = new Monitor();
@@ -66,14 +84,36 @@ public class BoundedQueueExecutor {
       int maximumElementsOutstanding,
       long maximumBytesOutstanding,
       ThreadFactory threadFactory) {
+    this(
+        initialMaximumPoolSize,
+        keepAliveTime,
+        unit,
+        maximumElementsOutstanding,
+        maximumBytesOutstanding,
+        threadFactory,
+        false);
+  }
+
+  public BoundedQueueExecutor(
+      int initialMaximumPoolSize,
+      long keepAliveTime,
+      TimeUnit unit,
+      int maximumElementsOutstanding,
+      long maximumBytesOutstanding,
+      ThreadFactory threadFactory,
+      boolean prioritizeWork) {
     this.maximumPoolSize = initialMaximumPoolSize;
+    this.prioritizeWork = prioritizeWork;
+    // All queued Runnables are QueuedWork, which orders itself by scheduling deadline.
+    BlockingQueue<Runnable> workQueue =
+        prioritizeWork ? new PriorityBlockingQueue<>() : new LinkedBlockingQueue<>();
     executor =
         new ThreadPoolExecutor(
             initialMaximumPoolSize,
             initialMaximumPoolSize,
             keepAliveTime,
             unit,
-            new LinkedBlockingQueue<>(),
+            workQueue,
             threadFactory) {
           @Override
           protected void beforeExecute(Thread t, Runnable r) {
@@ -105,6 +145,12 @@ public class BoundedQueueExecutor {
   // Before adding a Work to the queue, check that there are enough bytes of space or no other
   // outstanding elements of work.
   public void execute(Runnable work, long workBytes) {
+    execute(work, workBytes, 0);
+  }
+
+  // Same as above, letting work queued up to schedulingDelayMillis later run before this work if
+  // the executor prioritizes work.
+  public void execute(Runnable work, long workBytes, long schedulingDelayMillis) {
     monitor.enterWhenUninterruptibly(
         new Guard(monitor) {
           @Override
@@ -114,13 +160,17 @@ public class BoundedQueueExecutor {
                     && elementsOutstanding < maximumElementsOutstanding());
           }
         });
-    executeMonitorHeld(work, workBytes);
+    executeMonitorHeld(work, workBytes, schedulingDelayMillis);
   }
 
   // Forcibly add something to the queue, ignoring the length limit.
   public void forceExecute(Runnable work, long workBytes) {
+    forceExecute(work, workBytes, 0);
+  }
+
+  public void forceExecute(Runnable work, long workBytes, long schedulingDelayMillis) {
     monitor.enter();
-    executeMonitorHeld(work, workBytes);
+    executeMonitorHeld(work, workBytes, schedulingDelayMillis);
   }
 
   // Set the maximum/core pool size of the executor.
@@ -213,26 +263,42 @@ public class BoundedQueueExecutor {
       builder.append(maximumBytesOutstanding);
       builder.append("<br>/n");
 
+      if (queueWaitTimeMillis.getTotalCount() > 0) {
+        builder.append("Work Queue Wait Time: ");
+        builder.append(queueWaitTimeMillis.getPercentileString("queued work items", "ms"));
+        builder.append("<br>/n");
+      }
+
       return builder.toString();
     } finally {
       monitor.leave();
     }
   }
 
-  private void executeMonitorHeld(Runnable work, long workBytes) {
+  /**
+   * Returns the distribution of the time work waited in the queue before it started to run. It is
+   * empty unless the executor prioritizes work.
+   */
+  public HistogramData queueWaitTimeMillis() {
+    return queueWaitTimeMillis;
+  }
+
+  private void executeMonitorHeld(Runnable work, long workBytes, long schedulingDelayMillis) {
     bytesOutstanding += workBytes;
     ++elementsOutstanding;
     monitor.leave();
 
     try {
       executor.execute(
-          () -> {
-            try {
-              work.run();
-            } finally {
-              decrementCounters(workBytes);
-            }
-          });
+          new QueuedWork(
+              () -> {
+                try {
+                  work.run();
+                } finally {
+                  decrementCounters(workBytes);
+                }
+              },
+              schedulingDelayMillis));
     } catch (RuntimeException e) {
       // If the execute() call threw an exception, decrement counters here.
       decrementCounters(workBytes);
@@ -284,4 +350,37 @@ public class BoundedQueueExecutor {
   private long bytesAvailable() {
     return maximumBytesOutstanding - bytesOutstanding;
   }
+
+  private class QueuedWork implements Runnable, Comparable<QueuedWork> {
+    private final Runnable work;
+    private final long queuedNanos;
+    private final long deadlineNanos;
+    // Keeps FIFO order between work with the same deadline.
+    private final long sequence;
+
+    private QueuedWork(Runnable work, long schedulingDelayMillis) {
+      this.work = work;
+      this.queuedNanos = System.nanoTime();
+      this.deadlineNanos =
+          queuedNanos
+              + TimeUnit.MILLISECONDS.toNanos(
+                  Math.max(0, Math.min(schedulingDelayMillis, MAX_SCHEDULING_DELAY_MILLIS)));
+      this.sequence = queuedWorkSequence.incrementAndGet();
+    }
+
+    @Override
+    public void run() {
+      if (prioritizeWork) {
+        queueWaitTimeMillis.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedNanos));
+      }
+      work.run();
+    }
+
+    @Override
+    public int compareTo(QueuedWork other) {
+      // nanoTime values may overflow, so only their difference is meaningful.
+      int byDeadline = Long.signum(deadlineNanos - other.deadlineNanos);
+      return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+    }
+  }
 }
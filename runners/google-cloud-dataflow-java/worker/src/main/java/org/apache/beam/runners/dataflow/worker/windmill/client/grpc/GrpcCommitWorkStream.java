@@ -28,6 +28,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.annotation.Nullable;
@@ -46,6 +47,7 @@ import org.apache.beam.runners.dataflow.worker.windmill.client.throttling.Thrott
 import org.apache.beam.sdk.util.BackOff;
 import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
 import org.apache.beam.vendor.grpc.v1p69p0.io.grpc.stub.StreamObserver;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.EvictingQueue;
 import org.slf4j.Logger;
@@ -59,6 +61,8 @@ final class GrpcCommitWorkStream
   private static final long HEARTBEAT_REQUEST_ID = Long.MAX_VALUE;
 
   private final ConcurrentMap<Long, PendingRequest> pending;
+  // Serialized commit bytes handed to the stream, including resends, keyed by computation id.
+  private final ConcurrentMap<String, LongAdder> sentBytesByComputation;
   private final AtomicLong idGenerator;
   private final JobHeader jobHeader;
   private final ThrottleTimer commitWorkThrottleTimer;
@@ -86,6 +90,7 @@ final class GrpcCommitWorkStream
         logEveryNStreamFailures,
         backendWorkerToken);
     pending = new ConcurrentHashMap<>();
+    sentBytesByComputation = new ConcurrentHashMap<>();
     this.idGenerator = idGenerator;
     this.jobHeader = jobHeader;
     this.commitWorkThrottleTimer = commitWorkThrottleTimer;
@@ -120,6 +125,21 @@ final class GrpcCommitWorkStream
   @Override
   public void appendSpecificHtml(PrintWriter writer) {
     writer.format("CommitWorkStream: %d pending", pending.size());
+    sentBytesByComputation.forEach(
+        (computationId, bytes) ->
+            writer.format(", %s: %d bytes sent", computationId, bytes.sum()));
+  }
+
+  @VisibleForTesting
+  long getSentBytes(String computationId) {
+    @Nullable LongAdder bytes = sentBytesByComputation.get(computationId);
+    return bytes == null ? 0 : bytes.sum();
+  }
+
+  private void recordSentBytes(PendingRequest request) {
+    sentBytesByComputation
+        .computeIfAbsent(request.computationId(), ignored -> new LongAdder())
+        .add(request.request().getSerializedSize());
   }
 
   @Override
@@ -247,6 +267,7 @@ final class GrpcCommitWorkStream
         pendingRequest.abort();
         return;
       }
+      recordSentBytes(pendingRequest);
       trySend(chunk);
     }
   }
@@ -273,6 +294,7 @@ final class GrpcCommitWorkStream
         requests.forEach((ignored, pendingRequest) -> pendingRequest.abort());
         return;
       }
+      requests.values().forEach(this::recordSentBytes);
       trySend(request);
     }
   }
@@ -286,6 +308,7 @@ final class GrpcCommitWorkStream
         pendingRequest.abort();
         return;
       }
+      recordSentBytes(pendingRequest);
 
       for (int i = 0;
           i < serializedCommit.size();
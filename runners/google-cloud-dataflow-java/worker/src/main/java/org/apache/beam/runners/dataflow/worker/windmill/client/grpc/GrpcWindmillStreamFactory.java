@@ -80,6 +80,7 @@ public class GrpcWindmillStreamFactory implements StatusDataProvider {
   private static final int NO_HEALTH_CHECKS = -1;
   private static final String NO_BACKEND_WORKER_TOKEN = "";
   private static final String DISPATCHER_DEBUG_NAME = "Dispatcher";
+  private static final String COMMIT_COMPRESSION = "gzip";
 
   private final JobHeader jobHeader;
   private final int logEveryNStreamFailures;
@@ -92,6 +93,8 @@ public class GrpcWindmillStreamFactory implements StatusDataProvider {
   // newer ComputationHeartbeatRequests.
   private final boolean sendKeyedGetDataRequests;
   private final boolean requestBatchedGetWorkResponse;
+  // If true, CommitWorkStream messages are gzip compressed on the wire.
+  private final boolean compressCommits;
   private final Consumer<List<ComputationHeartbeatResponse>> processHeartbeatResponses;
 
   private GrpcWindmillStreamFactory(
@@ -101,6 +104,7 @@ public class GrpcWindmillStreamFactory implements StatusDataProvider {
       int windmillMessagesBetweenIsReadyChecks,
       boolean sendKeyedGetDataRequests,
       boolean requestBatchedGetWorkResponse,
+      boolean compressCommits,
       Consumer<List<ComputationHeartbeatResponse>> processHeartbeatResponses,
       Supplier<Duration> maxBackOffSupplier) {
     this.jobHeader = jobHeader;
@@ -118,6 +122,7 @@ public class GrpcWindmillStreamFactory implements StatusDataProvider {
     this.streamRegistry = ConcurrentHashMap.newKeySet();
     this.sendKeyedGetDataRequests = sendKeyedGetDataRequests;
     this.requestBatchedGetWorkResponse = requestBatchedGetWorkResponse;
+    this.compressCommits = compressCommits;
     this.processHeartbeatResponses = processHeartbeatResponses;
     this.streamIdGenerator = new AtomicLong();
   }
@@ -130,6 +135,7 @@ public class GrpcWindmillStreamFactory implements StatusDataProvider {
       int windmillMessagesBetweenIsReadyChecks,
       boolean sendKeyedGetDataRequests,
       boolean requestBatchedGetWorkResponse,
+      boolean compressCommits,
       Consumer<List<ComputationHeartbeatResponse>> processHeartbeatResponses,
       Supplier<Duration> maxBackOffSupplier,
       int healthCheckIntervalMillis) {
@@ -141,6 +147,7 @@ public class GrpcWindmillStreamFactory implements StatusDataProvider {
             windmillMessagesBetweenIsReadyChecks,
             sendKeyedGetDataRequests,
             requestBatchedGetWorkResponse,
+            compressCommits,
             processHeartbeatResponses,
             maxBackOffSupplier);
 
@@ -180,6 +187,7 @@ public class GrpcWindmillStreamFactory implements StatusDataProvider {
         .setHealthCheckIntervalMillis(NO_HEALTH_CHECKS)
         .setSendKeyedGetDataRequests(true)
         .setRequestBatchedGetWorkResponse(false)
+        .setCompressCommits(false)
         .setProcessHeartbeatResponses(ignored -> {});
   }
 
@@ -189,6 +197,12 @@ public class GrpcWindmillStreamFactory implements StatusDataProvider {
     return stub.withDeadlineAfter(DEFAULT_STREAM_RPC_DEADLINE_SECONDS, TimeUnit.SECONDS);
   }
 
+  private <T extends AbstractStub<T>> T withCommitCompression(T stub) {
+    // Commits carry whole state values and are by far the largest messages sent to Windmill, so
+    // they are the only requests worth spending CPU on compressing.
+    return compressCommits ? stub.withCompression(COMMIT_COMPRESSION) : stub;
+  }
+
   private static void printSummaryHtmlForWorker(
       String workerToken, Collection<AbstractWindmillStream<?, ?>> streams, PrintWriter writer) {
     writer.write(
@@ -282,7 +296,8 @@ public class GrpcWindmillStreamFactory implements StatusDataProvider {
       CloudWindmillServiceV1Alpha1Stub stub, ThrottleTimer commitWorkThrottleTimer) {
     return GrpcCommitWorkStream.create(
         NO_BACKEND_WORKER_TOKEN,
-        responseObserver -> withDefaultDeadline(stub).commitWorkStream(responseObserver),
+        responseObserver ->
+            withCommitCompression(withDefaultDeadline(stub)).commitWorkStream(responseObserver),
         grpcBackOff.get(),
         newStreamObserverFactory(),
         streamRegistry,
@@ -297,7 +312,8 @@ public class GrpcWindmillStreamFactory implements StatusDataProvider {
       WindmillConnection connection, ThrottleTimer commitWorkThrottleTimer) {
     return GrpcCommitWorkStream.create(
         connection.backendWorkerToken(),
-        responseObserver -> connection.stub().commitWorkStream(responseObserver),
+        responseObserver ->
+            withCommitCompression(connection.stub()).commitWorkStream(responseObserver),
         grpcBackOff.get(),
         newStreamObserverFactory(),
         streamRegistry,
@@ -366,6 +382,8 @@ public class GrpcWindmillStreamFactory implements StatusDataProvider {
 
     Builder setRequestBatchedGetWorkResponse(boolean enabled);
 
+    Builder setCompressCommits(boolean compressCommits);
+
     GrpcWindmillStreamFactory build();
   }
 }
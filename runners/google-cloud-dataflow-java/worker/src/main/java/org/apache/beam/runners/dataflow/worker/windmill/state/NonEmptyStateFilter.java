@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.dataflow.worker.windmill.state;
+
+import java.nio.charset.StandardCharsets;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.beam.runners.dataflow.worker.windmill.Windmill;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.hash.BloomFilter;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.hash.Funnel;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.hash.PrimitiveSink;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Bloom filter of the value, bag and watermark hold tags of a single key which may hold data in
+ * Windmill.
+ *
+ * <p>The filter is only complete if tracking started while the key had no state in Windmill and
+ * every later write to the key was passed to {@link #recordWrites}. Tags which the filter does not
+ * contain are then known to be empty. Once more than {@link #MAX_TRACKED_TAGS} tags were written
+ * the filter is dropped and all tags are reported as possibly non-empty, which bounds its size to
+ * a few hundred bytes per key.
+ */
+@NotThreadSafe
+final class NonEmptyStateFilter {
+  @VisibleForTesting static final int MAX_TRACKED_TAGS = 256;
+  // Reads which pass the filter are fetched from Windmill, so false positives only cost the read
+  // which would have happened anyway.
+  private static final double FALSE_POSITIVE_PROBABILITY = 0.001;
+
+  private @Nullable BloomFilter<StateTag<?>> writtenTags;
+  private int trackedTags;
+
+  NonEmptyStateFilter() {
+    this.writtenTags =
+        BloomFilter.create(StateTagFunnel.INSTANCE, MAX_TRACKED_TAGS, FALSE_POSITIVE_PROBABILITY);
+    this.trackedTags = 0;
+  }
+
+  /** Returns whether reads of {@code stateTag} can be answered by the filter. */
+  static boolean canFilter(StateTag<?> stateTag) {
+    switch (stateTag.getKind()) {
+      case VALUE:
+      case WATERMARK:
+        return true;
+      case BAG:
+        // Continuation pages are only requested for bags which were not empty.
+        return stateTag.getRequestPosition() == null;
+      default:
+        return false;
+    }
+  }
+
+  /** Returns false if the filter stopped tracking writes and can no longer answer reads. */
+  boolean isComplete() {
+    return writtenTags != null;
+  }
+
+  /** Returns false if {@code stateTag} is known to be empty in Windmill. */
+  boolean mightBeNonEmpty(StateTag<?> stateTag) {
+    return !canFilter(stateTag) || writtenTags == null || writtenTags.mightContain(stateTag);
+  }
+
+  /** Adds all value, bag and watermark hold tags written by {@code commit} to the filter. */
+  void recordWrites(Windmill.WorkItemCommitRequestOrBuilder commit) {
+    for (Windmill.TagValue value : commit.getValueUpdatesList()) {
+      recordWrite(StateTag.of(StateTag.Kind.VALUE, value.getTag(), value.getStateFamily()));
+    }
+    for (Windmill.TagBag bag : commit.getBagUpdatesList()) {
+      recordWrite(StateTag.of(StateTag.Kind.BAG, bag.getTag(), bag.getStateFamily()));
+    }
+    for (Windmill.WatermarkHold hold : commit.getWatermarkHoldsList()) {
+      recordWrite(StateTag.of(StateTag.Kind.WATERMARK, hold.getTag(), hold.getStateFamily()));
+    }
+  }
+
+  private void recordWrite(StateTag<?> stateTag) {
+    if (writtenTags == null || !writtenTags.put(stateTag)) {
+      return;
+    }
+    if (++trackedTags > MAX_TRACKED_TAGS) {
+      writtenTags = null;
+    }
+  }
+
+  /** Funnels the parts of a {@link StateTag} which address the state in Windmill. */
+  private enum StateTagFunnel implements Funnel<StateTag<?>> {
+    INSTANCE;
+
+    @Override
+    public void funnel(StateTag<?> stateTag, PrimitiveSink into) {
+      into.putInt(stateTag.getKind().ordinal())
+          .putInt(stateTag.getStateFamily().length())
+          .putString(stateTag.getStateFamily(), StandardCharsets.UTF_8)
+          .putBytes(stateTag.getTag().asReadOnlyByteBuffer());
+    }
+  }
+}
@@ -21,9 +21,15 @@ import com.google.auto.value.AutoBuilder;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -34,6 +40,7 @@ import org.apache.beam.runners.dataflow.worker.*;
 import org.apache.beam.runners.dataflow.worker.status.BaseStatusServlet;
 import org.apache.beam.runners.dataflow.worker.status.StatusDataProvider;
 import org.apache.beam.runners.dataflow.worker.streaming.ShardedKey;
+import org.apache.beam.runners.dataflow.worker.windmill.Windmill;
 import org.apache.beam.sdk.state.State;
 import org.apache.beam.sdk.util.Weighted;
 import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
@@ -42,6 +49,8 @@ import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Precondit
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.Cache;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.CacheBuilder;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.CacheStats;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.RemovalCause;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.RemovalNotification;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.MapMaker;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -53,6 +62,11 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * * processing key * state_family * namespace) by a single thread at a time. {@link
  * StreamingDataflowWorker} ensures that a single computation * processing key is executing on one
  * thread at a time, so this is safe.
+ *
+ * <p>If a per-computation size below 100% of the cache is set, the entries of each computation are
+ * additionally tracked in a weighted LRU index of that computation, which is bounded by its share
+ * of the cache. Entries evicted from the index are invalidated in the shared cache, so a single
+ * computation cannot evict the state of all others.
  */
 public class WindmillStateCache implements StatusDataProvider {
   private static final int STATE_CACHE_CONCURRENCY_LEVEL = 4;
@@ -74,36 +88,63 @@ public class WindmillStateCache implements StatusDataProvider {
   // equality so entries may be invalidated by creating a new key object, rendering the previous
   // entries inaccessible. They will be evicted through normal cache operation.
   private final ConcurrentMap<WindmillComputationKey, ForKey> keyIndex;
+  private final ConcurrentMap<String, ComputationStats> computationStats;
   private final long workerCacheBytes; // Copy workerCacheMb and convert to bytes.
+  // Weight each computation may hold in the cache, or 0 if computations share the whole cache.
+  private final long computationCacheBytes;
+  private final int stateCacheConcurrencyLevel;
   private final boolean supportMapViaMultimap;
-
-  WindmillStateCache(long sizeMb, boolean supportMapViaMultimap) {
+  private final boolean filterEmptyStateReads;
+
+  WindmillStateCache(
+      long sizeMb,
+      int perComputationSizePercent,
+      boolean supportMapViaMultimap,
+      boolean filterEmptyStateReads) {
+    Preconditions.checkArgument(
+        perComputationSizePercent > 0 && perComputationSizePercent <= 100,
+        "Per-computation size must be in (0, 100] percent of the cache, but was %s",
+        perComputationSizePercent);
     this.workerCacheBytes = sizeMb * MEGABYTES;
-    int stateCacheConcurrencyLevel =
+    this.computationCacheBytes =
+        perComputationSizePercent < 100 ? workerCacheBytes * perComputationSizePercent / 100 : 0;
+    this.stateCacheConcurrencyLevel =
         Math.max(STATE_CACHE_CONCURRENCY_LEVEL, Runtime.getRuntime().availableProcessors());
-    this.stateCache =
+    CacheBuilder<StateId, StateCacheEntry> stateCacheBuilder =
         CacheBuilder.newBuilder()
             .maximumWeight(workerCacheBytes)
             .recordStats()
-            .weigher(Weighers.weightedKeysAndValues())
-            .concurrencyLevel(stateCacheConcurrencyLevel)
-            .build();
+            .<StateId, StateCacheEntry>weigher(Weighers.weightedKeysAndValues())
+            .concurrencyLevel(stateCacheConcurrencyLevel);
+    if (computationCacheBytes > 0) {
+      stateCacheBuilder = stateCacheBuilder.removalListener(this::onStateCacheRemoval);
+    }
+    this.stateCache = stateCacheBuilder.build();
     this.keyIndex =
         new MapMaker().weakValues().concurrencyLevel(stateCacheConcurrencyLevel).makeMap();
+    this.computationStats = new ConcurrentHashMap<>();
     this.supportMapViaMultimap = supportMapViaMultimap;
+    this.filterEmptyStateReads = filterEmptyStateReads;
   }
 
   @AutoBuilder(ofClass = WindmillStateCache.class)
   public interface Builder {
     Builder setSizeMb(long sizeMb);
 
+    Builder setPerComputationSizePercent(int perComputationSizePercent);
+
     Builder setSupportMapViaMultimap(boolean supportMapViaMultimap);
 
+    Builder setFilterEmptyStateReads(boolean filterEmptyStateReads);
+
     WindmillStateCache build();
   }
 
   public static Builder builder() {
-    return new AutoBuilder_WindmillStateCache_Builder().setSupportMapViaMultimap(false);
+    return new AutoBuilder_WindmillStateCache_Builder()
+        .setPerComputationSizePercent(100)
+        .setSupportMapViaMultimap(false)
+        .setFilterEmptyStateReads(false);
   }
 
   private EntryStats calculateEntryStats() {
@@ -138,12 +179,40 @@ public class WindmillStateCache implements StatusDataProvider {
     return new ForComputation(computation);
   }
 
+  private ComputationStats newComputationStats() {
+    if (computationCacheBytes == 0) {
+      return new ComputationStats(null);
+    }
+    Cache<StateId, Integer> entryWeights =
+        CacheBuilder.newBuilder()
+            .maximumWeight(computationCacheBytes)
+            .weigher((StateId id, Integer weight) -> weight)
+            .concurrencyLevel(stateCacheConcurrencyLevel)
+            .removalListener(
+                (RemovalNotification<StateId, Integer> notification) -> {
+                  // The computation exceeded its share of the cache.
+                  if (notification.getCause() == RemovalCause.SIZE) {
+                    stateCache.invalidate(notification.getKey());
+                  }
+                })
+            .build();
+    return new ComputationStats(entryWeights);
+  }
+
+  private void onStateCacheRemoval(RemovalNotification<StateId, StateCacheEntry> notification) {
+    // Replaced entries are re-weighed by the put that replaced them.
+    @Nullable StateId id = notification.getKey();
+    if (id != null && notification.getCause() != RemovalCause.REPLACED) {
+      Preconditions.checkNotNull(id.forKey.stats.entryWeights).invalidate(id);
+    }
+  }
+
   /** Print summary statistics of the cache to the given {@link PrintWriter}. */
   @Override
   public void appendSummaryHtml(PrintWriter response) {
     response.println("Cache Stats: <br><table>");
     response.println(
-        "<tr><th>Hit Ratio</th><th>Evictions</th><th>Entries</th>"
+        "<tr><th>Hit Ratio</th><th>Evictions</th><th>Evicted Weight</th><th>Entries</th>"
             + "<th>Entry Values</th><th>Max Entry Values</th>"
             + "<th>Id Weight</th><th>Entry Weight</th><th>Max Weight</th><th>Keys</th>"
             + "</tr><tr>");
@@ -151,6 +220,7 @@ public class WindmillStateCache implements StatusDataProvider {
     EntryStats entryStats = calculateEntryStats();
     response.println("<td>" + cacheStats.hitRate() + "</td>");
     response.println("<td>" + cacheStats.evictionCount() + "</td>");
+    response.println("<td>" + cacheStats.evictionWeight() / MEGABYTES + "MB</td>");
     response.println("<td>" + entryStats.entries + "(" + stateCache.size() + " inc. weak) </td>");
     response.println("<td>" + entryStats.entryValues + "</td>");
     response.println("<td>" + entryStats.maxEntryValues + "</td>");
@@ -159,6 +229,35 @@ public class WindmillStateCache implements StatusDataProvider {
     response.println("<td>" + getMaxWeight() / MEGABYTES + "MB</td>");
     response.println("<td>" + keyIndex.size() + "</td>");
     response.println("</tr></table><br>");
+
+    response.println("Per Computation Cache Stats: <br><table>");
+    response.println(
+        "<tr><th>Computation</th><th>Hit Ratio</th><th>Hits</th><th>Misses</th>"
+            + "<th>Persisted Entries</th><th>Empty Reads Avoided</th>"
+            + "<th>Filter False Positive Rate</th></tr>");
+    for (Map.Entry<String, ComputationStats> entry : new TreeMap<>(computationStats).entrySet()) {
+      ComputationStats stats = entry.getValue();
+      long hits = stats.hits.sum();
+      long misses = stats.misses.sum();
+      response.println("<tr>");
+      response.println("<td>" + entry.getKey() + "</td>");
+      response.println(
+          "<td>" + (hits + misses == 0 ? 1.0 : (double) hits / (hits + misses)) + "</td>");
+      response.println("<td>" + hits + "</td>");
+      response.println("<td>" + misses + "</td>");
+      response.println("<td>" + stats.persistedEntries.sum() + "</td>");
+      long emptyReadsAvoided = stats.emptyReadsAvoided.sum();
+      long filteredReads = stats.filteredReads.sum() - emptyReadsAvoided;
+      response.println("<td>" + emptyReadsAvoided + "</td>");
+      response.println(
+          "<td>"
+              + (filteredReads == 0
+                  ? 0.0
+                  : (double) stats.filterFalsePositives.sum() / filteredReads)
+              + "</td>");
+      response.println("</tr>");
+    }
+    response.println("</table><br>");
   }
 
   public BaseStatusServlet statusServlet() {
@@ -181,6 +280,25 @@ public class WindmillStateCache implements StatusDataProvider {
     long maxEntryValues;
   }
 
+  /** Lookups of the shared cache, and writes to it, made on behalf of one computation. */
+  private static class ComputationStats {
+    // Weights of the entries of the computation in the shared cache, bounded by its share of the
+    // cache, or null if computations share the whole cache.
+    final @Nullable Cache<StateId, Integer> entryWeights;
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder persistedEntries = new LongAdder();
+    // Reads checked against the NonEmptyStateFilter of their key, those of them answered locally
+    // and those which passed the filter but turned out to be empty.
+    final LongAdder filteredReads = new LongAdder();
+    final LongAdder emptyReadsAvoided = new LongAdder();
+    final LongAdder filterFalsePositives = new LongAdder();
+
+    ComputationStats(@Nullable Cache<StateId, Integer> entryWeights) {
+      this.entryWeights = entryWeights;
+    }
+  }
+
   /**
    * Struct identifying a cache entry that contains all data for a ForKey instance and namespace.
    */
@@ -309,9 +427,11 @@ public class WindmillStateCache implements StatusDataProvider {
   public class ForComputation {
 
     private final String computation;
+    private final ComputationStats stats;
 
     private ForComputation(String computation) {
       this.computation = computation;
+      this.stats = computationStats.computeIfAbsent(computation, c -> newComputationStats());
     }
 
     /** Returns the computation associated to this class. */
@@ -340,7 +460,7 @@ public class WindmillStateCache implements StatusDataProvider {
     public ForKey forKey(WindmillComputationKey computationKey, long cacheToken, long workToken) {
       ForKey forKey = keyIndex.get(computationKey);
       if (forKey == null || !forKey.updateTokens(cacheToken, workToken)) {
-        forKey = new ForKey(computationKey, cacheToken, workToken);
+        forKey = new ForKey(computationKey, cacheToken, workToken, stats);
         // We prefer this implementation to using compute because that is implemented similarly for
         // ConcurrentHashMap with the downside of it performing inserts for unchanged existing
         // values as well.
@@ -357,16 +477,66 @@ public class WindmillStateCache implements StatusDataProvider {
     private final WindmillComputationKey computationKey;
     // Cache token must be consistent for the key for the cache to be valid.
     private final long cacheToken;
+    private final ComputationStats stats;
 
     // The work token for processing must be greater than the last work token.  As work items are
     // increasing for a key, a less-than or equal to work token indicates that the current token is
     // for stale processing.
     private long workToken;
-
-    private ForKey(WindmillComputationKey computationKey, long cacheToken, long workToken) {
+    // Set once the key is known to have no state in Windmill, if empty state reads are filtered.
+    private @Nullable NonEmptyStateFilter nonEmptyState;
+
+    private ForKey(
+        WindmillComputationKey computationKey,
+        long cacheToken,
+        long workToken,
+        ComputationStats stats) {
       this.computationKey = computationKey;
       this.cacheToken = cacheToken;
       this.workToken = workToken;
+      this.stats = stats;
+      this.nonEmptyState = null;
+    }
+
+    /**
+     * Starts tracking which state of the key is non-empty, if enabled. Must only be called while
+     * the key has no state in Windmill, i.e. for work items with {@code is_new_key} set, and all
+     * later writes to the key must be passed to {@link #recordStateWrites}. Tracking is kept up
+     * for as long as this object is the current view of the key.
+     */
+    public void trackNonEmptyState() {
+      if (filterEmptyStateReads && nonEmptyState == null) {
+        nonEmptyState = new NonEmptyStateFilter();
+      }
+    }
+
+    /** Records the state written by {@code commit} as possibly non-empty. */
+    public void recordStateWrites(Windmill.WorkItemCommitRequestOrBuilder commit) {
+      if (nonEmptyState != null) {
+        nonEmptyState.recordWrites(commit);
+      }
+    }
+
+    /** Returns whether {@link #isKnownEmpty} can answer reads of {@code stateTag}. */
+    boolean canFilterRead(StateTag<?> stateTag) {
+      return nonEmptyState != null
+          && nonEmptyState.isComplete()
+          && NonEmptyStateFilter.canFilter(stateTag);
+    }
+
+    /** Returns true if {@code stateTag} was never written since tracking started. */
+    boolean isKnownEmpty(StateTag<?> stateTag) {
+      stats.filteredReads.increment();
+      if (Preconditions.checkNotNull(nonEmptyState).mightBeNonEmpty(stateTag)) {
+        return false;
+      }
+      stats.emptyReadsAvoided.increment();
+      return true;
+    }
+
+    /** Records that a read which passed {@link #isKnownEmpty} returned empty state. */
+    void recordFilterFalsePositive() {
+      stats.filterFalsePositives.increment();
     }
 
     /**
@@ -396,11 +566,16 @@ public class WindmillStateCache implements StatusDataProvider {
     final ForKey forKey;
     final String stateFamily;
     private final HashMap<StateId, StateCacheEntry> localCache;
+    // Entries of localCache which were created or modified and need to be written back. Entries
+    // which were only read are left in the shared cache as they are, which avoids taking its write
+    // lock for them.
+    private final Set<StateId> modified;
 
     private ForKeyAndFamily(ForKey forKey, String stateFamily) {
       this.forKey = forKey;
       this.stateFamily = stateFamily;
       localCache = new HashMap<>();
+      modified = new HashSet<>();
     }
 
     public String getStateFamily() {
@@ -412,15 +587,23 @@ public class WindmillStateCache implements StatusDataProvider {
     }
 
     public <T extends State> Optional<T> get(StateNamespace namespace, StateTag<T> address) {
-      @SuppressWarnings("nullness")
-      // the mapping function for localCache.computeIfAbsent (i.e stateCache.getIfPresent) is
-      // nullable.
-      Optional<StateCacheEntry> stateCacheEntry =
-          Optional.ofNullable(
-              localCache.computeIfAbsent(
-                  new StateId(forKey, stateFamily, namespace), stateCache::getIfPresent));
-
-      return stateCacheEntry.flatMap(entry -> entry.get(namespace, address));
+      StateId id = new StateId(forKey, stateFamily, namespace);
+      @Nullable StateCacheEntry entry = localCache.get(id);
+      if (entry == null) {
+        entry = stateCache.getIfPresent(id);
+        if (entry == null) {
+          forKey.stats.misses.increment();
+          return Optional.empty();
+        }
+        forKey.stats.hits.increment();
+        @Nullable Cache<StateId, Integer> entryWeights = forKey.stats.entryWeights;
+        if (entryWeights != null) {
+          // Keeps the entry recently used within its computation too.
+          entryWeights.getIfPresent(id);
+        }
+        localCache.put(id, entry);
+      }
+      return entry.get(namespace, address);
     }
 
     public <T extends State> void put(
@@ -436,10 +619,24 @@ public class WindmillStateCache implements StatusDataProvider {
         Preconditions.checkState(!hadValue);
       }
       entry.put(namespace, address, value, weight);
+      modified.add(id);
     }
 
     public void persist() {
-      localCache.forEach(stateCache::put);
+      @Nullable Cache<StateId, Integer> entryWeights = forKey.stats.entryWeights;
+      for (StateId id : modified) {
+        @Nullable StateCacheEntry entry = localCache.get(id);
+        if (entry != null) {
+          // Re-inserting also makes the cache pick up the new weight of the entry.
+          stateCache.put(id, entry);
+          if (entryWeights != null) {
+            entryWeights.put(
+                id, (int) Math.min(id.getWeight() + entry.getWeight(), Integer.MAX_VALUE));
+          }
+        }
+      }
+      forKey.stats.persistedEntries.add(modified.size());
+      modified.clear();
     }
   }
 }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.dataflow.worker.windmill.state;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Learns which state tags the work items of a computation read from Windmill, so that {@link
+ * WindmillStateReader} can fetch them speculatively together with the first read of a work item
+ * instead of in later round trips.
+ *
+ * <p>Only value and watermark hold tags are predicted, since their responses are small. A tag gains
+ * confidence whenever a work item reads it and loses confidence whenever it is prefetched, so tags
+ * that are prefetched but not used, e.g. because they are already in the {@link
+ * WindmillStateCache} or belong to an old window, stop being prefetched after a few work items.
+ *
+ * <p>This class is thread-safe.
+ */
+public class WindmillStatePrefetcher {
+  @VisibleForTesting static final int MAX_TRACKED_TAGS = 1024;
+  @VisibleForTesting static final int MAX_PREFETCHED_TAGS = 32;
+  private static final int READ_CONFIDENCE = 2;
+  private static final int MIN_CONFIDENCE = 2;
+  private static final int MAX_CONFIDENCE = 4;
+
+  private final ConcurrentHashMap<StateTag<?>, AtomicInteger> confidence;
+  private final LongAdder prefetchedTags;
+  private final LongAdder prefetchHits;
+  private final LongAdder savedRoundTrips;
+
+  public WindmillStatePrefetcher() {
+    this.confidence = new ConcurrentHashMap<>();
+    this.prefetchedTags = new LongAdder();
+    this.prefetchHits = new LongAdder();
+    this.savedRoundTrips = new LongAdder();
+  }
+
+  static boolean isPrefetchable(StateTag<?> stateTag) {
+    return (stateTag.getKind() == StateTag.Kind.VALUE
+            || stateTag.getKind() == StateTag.Kind.WATERMARK)
+        && stateTag.getRequestPosition() == null;
+  }
+
+  /** Records that a work item read {@code stateTag}. */
+  void recordRead(StateTag<?> stateTag) {
+    if (!isPrefetchable(stateTag)) {
+      return;
+    }
+    AtomicInteger tagConfidence = confidence.get(stateTag);
+    if (tagConfidence == null) {
+      if (confidence.size() >= MAX_TRACKED_TAGS) {
+        removeUnconfidentTags();
+        if (confidence.size() >= MAX_TRACKED_TAGS) {
+          return;
+        }
+      }
+      tagConfidence = confidence.computeIfAbsent(stateTag, unused -> new AtomicInteger());
+    }
+    tagConfidence.updateAndGet(c -> Math.min(MAX_CONFIDENCE, c + READ_CONFIDENCE));
+  }
+
+  /**
+   * Returns the tags to prefetch for a new work item, other than the {@code alreadyRequested} ones,
+   * and lowers the confidence in each of them.
+   */
+  List<StateTag<?>> predict(Predicate<StateTag<?>> alreadyRequested) {
+    List<StateTag<?>> predicted = new ArrayList<>();
+    for (Map.Entry<StateTag<?>, AtomicInteger> entry : confidence.entrySet()) {
+      if (predicted.size() >= MAX_PREFETCHED_TAGS) {
+        break;
+      }
+      if (entry.getValue().get() >= MIN_CONFIDENCE && !alreadyRequested.test(entry.getKey())) {
+        predicted.add(entry.getKey());
+        if (entry.getValue().decrementAndGet() <= 0) {
+          confidence.remove(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    return predicted;
+  }
+
+  void recordPrefetched(int tags) {
+    prefetchedTags.add(tags);
+  }
+
+  void recordPrefetchHit() {
+    prefetchHits.increment();
+  }
+
+  void recordSavedRoundTrip() {
+    savedRoundTrips.increment();
+  }
+
+  private void removeUnconfidentTags() {
+    confidence.entrySet().removeIf(entry -> entry.getValue().get() < MIN_CONFIDENCE);
+  }
+
+  public long getPrefetchedTags() {
+    return prefetchedTags.sum();
+  }
+
+  public long getPrefetchHits() {
+    return prefetchHits.sum();
+  }
+
+  public long getSavedRoundTrips() {
+    return savedRoundTrips.sum();
+  }
+
+  public void printSummary(PrintWriter writer) {
+    long prefetched = getPrefetchedTags();
+    long hits = getPrefetchHits();
+    writer.println(
+        "State prefetch: "
+            + prefetched
+            + " tags prefetched, "
+            + hits
+            + " used ("
+            + (prefetched == 0 ? 0.0 : (double) hits / prefetched)
+            + " hit ratio), "
+            + getSavedRoundTrips()
+            + " round trips saved<br>");
+  }
+}
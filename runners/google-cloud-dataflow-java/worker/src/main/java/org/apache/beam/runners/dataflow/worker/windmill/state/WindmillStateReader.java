@@ -125,6 +125,15 @@ public class WindmillStateReader {
   private final ConcurrentHashMap<StateTag<?>, CoderAndFuture<?>> waiting;
   private long bytesRead = 0L;
   private final Supplier<Boolean> workItemIsFailed;
+  private final @Nullable WindmillStatePrefetcher prefetcher;
+  // Responses to speculatively fetched tags which have not been requested yet.
+  private final ConcurrentHashMap<StateTag<?>, Object> prefetched;
+  private boolean prefetchIssued = false;
+  private boolean servedFromPrefetchSinceLastRead = false;
+  // Answers reads of state which is known to be empty, if set.
+  private @Nullable WindmillStateCache.ForKey cacheForKey = null;
+  // Lookups which were checked against the filter of cacheForKey but still sent to Windmill.
+  private final Set<StateTag<?>> filteredLookups = ConcurrentHashMap.newKeySet();
 
   private WindmillStateReader(
       Function<KeyedGetDataRequest, Optional<KeyedGetDataResponse>> fetchStateFromWindmillFn,
@@ -132,7 +141,8 @@ public class WindmillStateReader {
       long shardingKey,
       long workToken,
       Supplier<AutoCloseable> readWrapperSupplier,
-      Supplier<Boolean> workItemIsFailed) {
+      Supplier<Boolean> workItemIsFailed,
+      @Nullable WindmillStatePrefetcher prefetcher) {
     this.fetchStateFromWindmillFn = fetchStateFromWindmillFn;
     this.key = key;
     this.shardingKey = shardingKey;
@@ -141,6 +151,8 @@ public class WindmillStateReader {
     this.waiting = new ConcurrentHashMap<>();
     this.pendingLookups = new ConcurrentLinkedQueue<>();
     this.workItemIsFailed = workItemIsFailed;
+    this.prefetcher = prefetcher;
+    this.prefetched = new ConcurrentHashMap<>();
   }
 
   @VisibleForTesting
@@ -149,11 +161,36 @@ public class WindmillStateReader {
       ByteString key,
       long shardingKey,
       long workToken) {
+    return forTesting(fetchStateFromWindmillFn, key, shardingKey, workToken, null);
+  }
+
+  @VisibleForTesting
+  static WindmillStateReader forTesting(
+      Function<KeyedGetDataRequest, Optional<KeyedGetDataResponse>> fetchStateFromWindmillFn,
+      ByteString key,
+      long shardingKey,
+      long workToken,
+      @Nullable WindmillStatePrefetcher prefetcher) {
     return new WindmillStateReader(
-        fetchStateFromWindmillFn, key, shardingKey, workToken, () -> null, () -> Boolean.FALSE);
+        fetchStateFromWindmillFn,
+        key,
+        shardingKey,
+        workToken,
+        () -> null,
+        () -> Boolean.FALSE,
+        prefetcher);
   }
 
   public static WindmillStateReader forWork(Work work) {
+    return forWork(work, null);
+  }
+
+  /**
+   * Returns a reader for the given {@link Work} which fetches the tags predicted by {@code
+   * prefetcher} together with the first read of the work item, if {@code prefetcher} is set.
+   */
+  public static WindmillStateReader forWork(
+      Work work, @Nullable WindmillStatePrefetcher prefetcher) {
     return new WindmillStateReader(
         work::fetchKeyedState,
         work.getWorkItem().getKey(),
@@ -163,7 +200,16 @@ public class WindmillStateReader {
           work.setState(Work.State.READING);
           return () -> work.setState(Work.State.PROCESSING);
         },
-        work::isFailed);
+        work::isFailed,
+        prefetcher);
+  }
+
+  /**
+   * Answers reads of value, bag and watermark hold tags which {@code cacheForKey} knows to be empty
+   * without fetching them from Windmill. See {@link WindmillStateCache.ForKey#trackNonEmptyState}.
+   */
+  public void filterEmptyStateReads(WindmillStateCache.ForKey cacheForKey) {
+    this.cacheForKey = cacheForKey;
   }
 
   private <FutureT> Future<FutureT> stateFuture(StateTag<?> stateTag, @Nullable Coder<?> coder) {
@@ -171,8 +217,12 @@ public class WindmillStateReader {
     CoderAndFuture<?> existingCoderAndFutureWildcard =
         waiting.putIfAbsent(stateTag, coderAndFuture);
     if (existingCoderAndFutureWildcard == null) {
-      // Schedule a new request. Its response is guaranteed to find the future and coder.
-      pendingLookups.add(stateTag);
+      if (isKnownEmpty(stateTag)) {
+        consumeEmpty(stateTag);
+      } else if (!consumePrefetched(stateTag)) {
+        // Schedule a new request. Its response is guaranteed to find the future and coder.
+        pendingLookups.add(stateTag);
+      }
     } else {
       // Piggy-back on the pending or already answered request.
       @SuppressWarnings("unchecked")
@@ -184,6 +234,85 @@ public class WindmillStateReader {
     return wrappedFuture(coderAndFuture.getFuture());
   }
 
+  private boolean isKnownEmpty(StateTag<?> stateTag) {
+    if (cacheForKey == null || !cacheForKey.canFilterRead(stateTag)) {
+      return false;
+    }
+    if (cacheForKey.isKnownEmpty(stateTag)) {
+      return true;
+    }
+    filteredLookups.add(stateTag);
+    return false;
+  }
+
+  /** Completes the future of {@code stateTag} as if Windmill returned no data for it. */
+  @SuppressWarnings("unchecked")
+  private void consumeEmpty(StateTag<?> stateTag) {
+    switch (stateTag.getKind()) {
+      case VALUE:
+        consumeTagValue(TagValue.getDefaultInstance(), (StateTag<Long>) stateTag);
+        break;
+      case BAG:
+        consumeBag(TagBag.getDefaultInstance(), (StateTag<Long>) stateTag);
+        break;
+      case WATERMARK:
+        consumeWatermark(Windmill.WatermarkHold.getDefaultInstance(), (StateTag<Long>) stateTag);
+        break;
+      default:
+        throw new IllegalStateException("Unexpected filtered read of " + stateTag);
+    }
+  }
+
+  /** Counts reads which passed the filter of {@link #cacheForKey} but returned empty state. */
+  private void recordFilteredRead(StateTag<?> stateTag, boolean empty) {
+    if (filteredLookups.remove(stateTag) && empty) {
+      Preconditions.checkNotNull(cacheForKey).recordFilterFalsePositive();
+    }
+  }
+
+  /**
+   * Completes the future of {@code stateTag} from a speculatively fetched response. Returns false
+   * if there is none.
+   */
+  @SuppressWarnings("unchecked")
+  private boolean consumePrefetched(StateTag<?> stateTag) {
+    if (prefetcher == null) {
+      return false;
+    }
+    prefetcher.recordRead(stateTag);
+    @Nullable Object response = prefetched.remove(stateTag);
+    if (response == null) {
+      return false;
+    }
+    prefetcher.recordPrefetchHit();
+    // Lookups served from prefetched responses between two reads would at least have needed one
+    // read of their own, unless they are batched with other pending lookups anyway.
+    if (!servedFromPrefetchSinceLastRead && pendingLookups.isEmpty()) {
+      prefetcher.recordSavedRoundTrip();
+      servedFromPrefetchSinceLastRead = true;
+    }
+    if (response instanceof TagValue) {
+      consumeTagValue((TagValue) response, (StateTag<Long>) stateTag);
+    } else {
+      consumeWatermark((Windmill.WatermarkHold) response, (StateTag<Long>) stateTag);
+    }
+    return true;
+  }
+
+  /** Returns the predicted tags to fetch along with {@code toFetch}, at most once per reader. */
+  private Set<StateTag<?>> buildSpeculativeFetchSet(Set<StateTag<?>> toFetch) {
+    if (prefetcher == null || prefetchIssued) {
+      return Collections.emptySet();
+    }
+    prefetchIssued = true;
+    Set<StateTag<?>> speculative =
+        new HashSet<>(
+            prefetcher.predict(
+                stateTag -> toFetch.contains(stateTag) || waiting.containsKey(stateTag)));
+    prefetcher.recordPrefetched(speculative.size());
+    return speculative;
+  }
+
   private <FutureT> CoderAndFuture<FutureT> getWaiting(StateTag<?> stateTag, boolean shouldRemove) {
     CoderAndFuture<?> coderAndFutureWildcard;
     if (shouldRemove) {
@@ -393,10 +522,16 @@ public class WindmillStateReader {
       if (toFetch.isEmpty()) {
         return;
       }
+      servedFromPrefetchSinceLastRead = false;
       try {
-        KeyedGetDataResponse response = tryGetDataFromWindmill(toFetch);
+        Set<StateTag<?>> speculative = buildSpeculativeFetchSet(toFetch);
+        KeyedGetDataResponse response =
+            tryGetDataFromWindmill(
+                speculative.isEmpty()
+                    ? toFetch
+                    : Sets.newHashSet(Sets.union(toFetch, speculative)));
         // Removes tags from toFetch as they are processed.
-        consumeResponse(response, toFetch);
+        consumeResponse(response, toFetch, speculative);
         if (!toFetch.isEmpty()) {
           throw new IllegalStateException(
               "Didn't receive responses for all pending fetches. Missing: " + toFetch);
@@ -585,7 +720,8 @@ public class WindmillStateReader {
     return keyedDataBuilder.build();
   }
 
-  private void consumeResponse(KeyedGetDataResponse response, Set<StateTag<?>> toFetch) {
+  private void consumeResponse(
+      KeyedGetDataResponse response, Set<StateTag<?>> toFetch, Set<StateTag<?>> speculative) {
     bytesRead += response.getSerializedSize();
     if (response.getFailed()) {
       throw new KeyTokenInvalidException(key.toStringUtf8());
@@ -612,6 +748,10 @@ public class WindmillStateReader {
     for (Windmill.WatermarkHold hold : response.getWatermarkHoldsList()) {
       StateTag<Long> stateTag =
           StateTag.of(StateTag.Kind.WATERMARK, hold.getTag(), hold.getStateFamily());
+      if (speculative.remove(stateTag)) {
+        prefetched.put(stateTag, hold);
+        continue;
+      }
       if (!toFetch.remove(stateTag)) {
         throw new IllegalStateException(
             "Received response for unrequested tag " + stateTag + ". Pending tags: " + toFetch);
@@ -622,6 +762,10 @@ public class WindmillStateReader {
     for (Windmill.TagValue value : response.getValuesList()) {
       StateTag<Long> stateTag =
           StateTag.of(StateTag.Kind.VALUE, value.getTag(), value.getStateFamily());
+      if (speculative.remove(stateTag)) {
+        prefetched.put(stateTag, value);
+        continue;
+      }
       if (!toFetch.remove(stateTag)) {
         throw new IllegalStateException(
             "Received response for unrequested tag " + stateTag + ". Pending tags: " + toFetch);
@@ -816,6 +960,7 @@ public class WindmillStateReader {
     try {
       Coder<T> coder = coderAndFuture.getAndClearCoder();
       List<T> values = this.bagPageValues(bag, coder);
+      recordFilteredRead(stateTag, values.isEmpty() && !bag.hasContinuationPosition());
       future.set(
           new ValuesAndContPosition<>(
               values, bag.hasContinuationPosition() ? bag.getContinuationPosition() : null));
@@ -841,6 +986,7 @@ public class WindmillStateReader {
       }
     }
 
+    recordFilteredRead(stateTag, hold == null);
     future.set(hold);
   }
 
@@ -849,9 +995,12 @@ public class WindmillStateReader {
     SettableFuture<T> future = coderAndFuture.getNonDoneFuture(stateTag);
     Coder<T> coder = coderAndFuture.getAndClearCoder();
 
-    if (tagValue.hasValue()
-        && tagValue.getValue().hasData()
-        && !tagValue.getValue().getData().isEmpty()) {
+    boolean hasData =
+        tagValue.hasValue()
+            && tagValue.getValue().hasData()
+            && !tagValue.getValue().getData().isEmpty();
+    recordFilteredRead(stateTag, !hasData);
+    if (hasData) {
       InputStream inputStream = tagValue.getValue().getData().newInput();
       try {
         T value = coder.decode(inputStream, Coder.Context.OUTER);
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.dataflow.worker.windmill.work.budget;
+
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.beam.sdk.annotations.Internal;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Distributes the provided budget across the available {@link GetWorkBudgetSpender}(s) in
+ * proportion to how quickly each of them has been spending it.
+ *
+ * <p>Every call observes the number of work items each spender received since the previous call and
+ * keeps an exponentially smoothed drain rate per spender. Half of the budget is split evenly, the
+ * other half in proportion to the drain rates, so that backends that hand out work quickly get more
+ * items in flight while backends that are idle keep enough budget to ramp up again. Spenders only
+ * get {@link GetWorkBudgetSpender#setBudget(GetWorkBudget)} calls when their share changes.
+ */
+@Internal
+@ThreadSafe
+final class AdaptiveGetWorkBudgetDistributor implements GetWorkBudgetDistributor {
+  private static final Logger LOG =
+      LoggerFactory.getLogger(AdaptiveGetWorkBudgetDistributor.class);
+
+  // Weight of the latest observation in the smoothed drain rate.
+  private static final double SMOOTHING_FACTOR = 0.2;
+  // Fraction of the budget that is always split evenly.
+  private static final double EVEN_SHARE = 0.5;
+
+  @GuardedBy("this")
+  private final Map<GetWorkBudgetSpender, SpenderStats> spenderStats = new IdentityHashMap<>();
+
+  @Override
+  public synchronized <T extends GetWorkBudgetSpender> void distributeBudget(
+      ImmutableCollection<T> budgetSpenders, GetWorkBudget getWorkBudget) {
+    if (budgetSpenders.isEmpty()) {
+      LOG.debug("Cannot distribute budget to no owners.");
+      return;
+    }
+
+    if (getWorkBudget.equals(GetWorkBudget.noBudget())) {
+      LOG.debug("Cannot distribute 0 budget.");
+      return;
+    }
+
+    spenderStats.keySet().retainAll(budgetSpenders);
+    spenderStats.forEach((spender, stats) -> stats.observe(spender.workItemsReceived()));
+    // New spenders start out as if they drained budget as fast as the average known spender.
+    double initialDrainRate =
+        spenderStats.values().stream().mapToDouble(stats -> stats.drainRate).average().orElse(0);
+    double totalDrainRate = 0;
+    for (T spender : budgetSpenders) {
+      SpenderStats stats =
+          spenderStats.computeIfAbsent(
+              spender, ignored -> new SpenderStats(spender.workItemsReceived(), initialDrainRate));
+      totalDrainRate += stats.drainRate;
+    }
+
+    int numSpenders = budgetSpenders.size();
+    for (T spender : budgetSpenders) {
+      SpenderStats stats = checkNotNull(spenderStats.get(spender));
+      double share =
+          totalDrainRate > 0
+              ? EVEN_SHARE / numSpenders + (1 - EVEN_SHARE) * stats.drainRate / totalDrainRate
+              : 1.0 / numSpenders;
+      GetWorkBudget budget =
+          GetWorkBudget.builder()
+              .setItems((long) Math.ceil(getWorkBudget.items() * share))
+              .setBytes((long) Math.ceil(getWorkBudget.bytes() * share))
+              .build();
+      if (!budget.equals(stats.lastBudget)) {
+        stats.lastBudget = budget;
+        spender.setBudget(budget);
+      }
+    }
+  }
+
+  @Override
+  public boolean redistributesPeriodically() {
+    return true;
+  }
+
+  private static final class SpenderStats {
+    private long lastWorkItemsReceived;
+    private double drainRate;
+    private @Nullable GetWorkBudget lastBudget;
+
+    private SpenderStats(long workItemsReceived, double drainRate) {
+      this.lastWorkItemsReceived = workItemsReceived;
+      this.drainRate = drainRate;
+      this.lastBudget = null;
+    }
+
+    private void observe(long workItemsReceived) {
+      long received = Math.max(0, workItemsReceived - lastWorkItemsReceived);
+      lastWorkItemsReceived = workItemsReceived;
+      drainRate = SMOOTHING_FACTOR * received + (1 - SMOOTHING_FACTOR) * drainRate;
+    }
+  }
+}
@@ -29,4 +29,13 @@ import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Immuta
 public interface GetWorkBudgetDistributor {
   <T extends GetWorkBudgetSpender> void distributeBudget(
       ImmutableCollection<T> streams, GetWorkBudget getWorkBudget);
+
+  /**
+   * Returns true if the distribution depends on what the streams observed since the last call, and
+   * budget should therefore be redistributed periodically instead of only when the set of streams
+   * changes.
+   */
+  default boolean redistributesPeriodically() {
+    return false;
+  }
 }
@@ -24,4 +24,8 @@ public final class GetWorkBudgetDistributors {
   public static GetWorkBudgetDistributor distributeEvenly() {
     return new EvenGetWorkBudgetDistributor();
   }
+
+  public static GetWorkBudgetDistributor distributeAdaptively() {
+    return new AdaptiveGetWorkBudgetDistributor();
+  }
 }
@@ -27,4 +27,13 @@ public interface GetWorkBudgetSpender {
   default void setBudget(GetWorkBudget budget) {
     setBudget(budget.items(), budget.bytes());
   }
+
+  /**
+   * Returns the total number of work items received with the budget handed to this spender so far.
+   * Used by {@link GetWorkBudgetDistributor}s that distribute budget based on how quickly it is
+   * spent.
+   */
+  default long workItemsReceived() {
+    return 0;
+  }
 }
@@ -74,6 +74,8 @@ import org.slf4j.LoggerFactory;
 public class StreamingWorkScheduler {
 
   private static final Logger LOG = LoggerFactory.getLogger(StreamingWorkScheduler.class);
+  private static final String ENABLE_STATE_PREFETCH_EXPERIMENT =
+      "enable_streaming_engine_state_prefetch";
 
   private final DataflowWorkerHarnessOptions options;
   private final Supplier<Instant> clock;
@@ -87,6 +89,7 @@ public class StreamingWorkScheduler {
   private final ConcurrentMap<String, StageInfo> stageInfoMap;
   private final DataflowExecutionStateSampler sampler;
   private final StreamingGlobalConfigHandle globalConfigHandle;
+  private final boolean statePrefetchEnabled;
 
   public StreamingWorkScheduler(
       DataflowWorkerHarnessOptions options,
@@ -102,6 +105,7 @@ public class StreamingWorkScheduler {
       DataflowExecutionStateSampler sampler,
       StreamingGlobalConfigHandle globalConfigHandle) {
     this.options = options;
+    this.statePrefetchEnabled = hasExperiment(options, ENABLE_STATE_PREFETCH_EXPERIMENT);
     this.clock = clock;
     this.computationWorkExecutorFactory = computationWorkExecutorFactory;
     this.sideInputStateFetcherFactory = sideInputStateFetcherFactory;
@@ -362,7 +366,10 @@ public class StreamingWorkScheduler {
                         stageInfo, computationState, work.getLatencyTrackingId()));
 
     try {
-      WindmillStateReader stateReader = work.createWindmillStateReader();
+      WindmillStateReader stateReader =
+          statePrefetchEnabled
+              ? work.createWindmillStateReader(computationState.getStatePrefetcher())
+              : work.createWindmillStateReader();
       SideInputStateFetcher localSideInputStateFetcher =
           sideInputStateFetcherFactory.createSideInputStateFetcher(work::fetchSideInput);
 
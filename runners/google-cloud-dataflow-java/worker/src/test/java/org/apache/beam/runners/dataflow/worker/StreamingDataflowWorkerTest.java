@@ -34,6 +34,7 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.atLeast;
@@ -2852,14 +2853,16 @@ public class StreamingDataflowWorkerTest {
 
     ExecutableWork m1 = createMockWork(key1, 1, computationId);
     assertTrue(computationState.activateWork(m1));
-    Mockito.verify(mockExecutor).execute(m1, m1.getWorkItem().getSerializedSize());
+    Mockito.verify(mockExecutor)
+        .execute(eq(m1), eq((long) m1.getWorkItem().getSerializedSize()), anyLong());
     computationState.completeWorkAndScheduleNextWorkForKey(key1, m1.id());
     Mockito.verifyNoMoreInteractions(mockExecutor);
 
     // Verify work queues.
     ExecutableWork m2 = createMockWork(key1, 2, computationId);
     assertTrue(computationState.activateWork(m2));
-    Mockito.verify(mockExecutor).execute(m2, m2.getWorkItem().getSerializedSize());
+    Mockito.verify(mockExecutor)
+        .execute(eq(m2), eq((long) m2.getWorkItem().getSerializedSize()), anyLong());
     ExecutableWork m3 = createMockWork(key1, 3, computationId);
     assertTrue(computationState.activateWork(m3));
     Mockito.verifyNoMoreInteractions(mockExecutor);
@@ -2868,19 +2871,22 @@ public class StreamingDataflowWorkerTest {
     ShardedKey key2 = ShardedKey.create(ByteString.copyFromUtf8("key2"), 2);
     ExecutableWork m4 = createMockWork(key2, 4, computationId);
     assertTrue(computationState.activateWork(m4));
-    Mockito.verify(mockExecutor).execute(m4, m4.getWorkItem().getSerializedSize());
+    Mockito.verify(mockExecutor)
+        .execute(eq(m4), eq((long) m4.getWorkItem().getSerializedSize()), anyLong());
     computationState.completeWorkAndScheduleNextWorkForKey(key2, m4.id());
     Mockito.verifyNoMoreInteractions(mockExecutor);
 
     computationState.completeWorkAndScheduleNextWorkForKey(key1, m2.id());
-    Mockito.verify(mockExecutor).forceExecute(m3, m3.getWorkItem().getSerializedSize());
+    Mockito.verify(mockExecutor)
+        .forceExecute(eq(m3), eq((long) m3.getWorkItem().getSerializedSize()), anyLong());
     computationState.completeWorkAndScheduleNextWorkForKey(key1, m3.id());
     Mockito.verifyNoMoreInteractions(mockExecutor);
 
     // Verify duplicate work dropped.
     ExecutableWork m5 = createMockWork(key1, 5, computationId);
     computationState.activateWork(m5);
-    Mockito.verify(mockExecutor).execute(m5, m5.getWorkItem().getSerializedSize());
+    Mockito.verify(mockExecutor)
+        .execute(eq(m5), eq((long) m5.getWorkItem().getSerializedSize()), anyLong());
     assertFalse(computationState.activateWork(m5));
     Mockito.verifyNoMoreInteractions(mockExecutor);
     computationState.completeWorkAndScheduleNextWorkForKey(key1, m5.id());
@@ -2904,14 +2910,16 @@ public class StreamingDataflowWorkerTest {
 
     ExecutableWork m1 = createMockWork(key1Shard1, 1, computationId);
     assertTrue(computationState.activateWork(m1));
-    Mockito.verify(mockExecutor).execute(m1, m1.getWorkItem().getSerializedSize());
+    Mockito.verify(mockExecutor)
+        .execute(eq(m1), eq((long) m1.getWorkItem().getSerializedSize()), anyLong());
     computationState.completeWorkAndScheduleNextWorkForKey(key1Shard1, m1.id());
     Mockito.verifyNoMoreInteractions(mockExecutor);
 
     // Verify work queues.
     ExecutableWork m2 = createMockWork(key1Shard1, 2, computationId);
     assertTrue(computationState.activateWork(m2));
-    Mockito.verify(mockExecutor).execute(m2, m2.getWorkItem().getSerializedSize());
+    Mockito.verify(mockExecutor)
+        .execute(eq(m2), eq((long) m2.getWorkItem().getSerializedSize()), anyLong());
     ExecutableWork m3 = createMockWork(key1Shard1, 3, computationId);
     assertTrue(computationState.activateWork(m3));
     Mockito.verifyNoMoreInteractions(mockExecutor);
@@ -2922,7 +2930,8 @@ public class StreamingDataflowWorkerTest {
     Mockito.verifyNoMoreInteractions(mockExecutor);
     ExecutableWork m4Shard2 = createMockWork(key1Shard2, 3, computationId);
     assertTrue(computationState.activateWork(m4Shard2));
-    Mockito.verify(mockExecutor).execute(m4Shard2, m4Shard2.getWorkItem().getSerializedSize());
+    Mockito.verify(mockExecutor)
+        .execute(eq(m4Shard2), eq((long) m4Shard2.getWorkItem().getSerializedSize()), anyLong());
 
     // Verify duplicate work dropped
     assertFalse(computationState.activateWork(m4Shard2));
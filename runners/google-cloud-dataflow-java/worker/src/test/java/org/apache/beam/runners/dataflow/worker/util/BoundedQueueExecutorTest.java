@@ -24,6 +24,10 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -130,6 +134,8 @@ public class BoundedQueueExecutorTest {
     processStart3.await();
     // m3 started.
     assertTrue(executor.executorQueueIsEmpty());
+    // Queue wait times are only recorded if the executor prioritizes work.
+    assertEquals(0, executor.queueWaitTimeMillis().getTotalCount());
     processStop2.countDown();
     processStop3.countDown();
     executor.shutdown();
@@ -339,6 +345,57 @@ public class BoundedQueueExecutorTest {
     executor.shutdown();
   }
 
+  @Test
+  public void testPrioritizedWorkRunsInOrderOfSchedulingDeadline() throws Exception {
+    BoundedQueueExecutor prioritizingExecutor =
+        new BoundedQueueExecutor(
+            1,
+            DEFAULT_THREAD_EXPIRATION_SEC,
+            TimeUnit.SECONDS,
+            100,
+            MAXIMUM_BYTES_OUTSTANDING,
+            new ThreadFactoryBuilder()
+                .setNameFormat("DataflowWorkUnits-%d")
+                .setDaemon(true)
+                .build(),
+            true);
+    CountDownLatch processStart1 = new CountDownLatch(1);
+    CountDownLatch processStop1 = new CountDownLatch(1);
+    CountDownLatch allProcessed = new CountDownLatch(3);
+    List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+    prioritizingExecutor.execute(createSleepProcessWorkFn(processStart1, processStop1), 1);
+    processStart1.await();
+    // The only thread is occupied, so the following work is queued.
+    prioritizingExecutor.execute(
+        () -> {
+          processed.add("deferred");
+          allProcessed.countDown();
+        },
+        1,
+        BoundedQueueExecutor.MAX_SCHEDULING_DELAY_MILLIS);
+    prioritizingExecutor.execute(
+        () -> {
+          processed.add("first");
+          allProcessed.countDown();
+        },
+        1,
+        0);
+    prioritizingExecutor.execute(
+        () -> {
+          processed.add("second");
+          allProcessed.countDown();
+        },
+        1,
+        0);
+
+    processStop1.countDown();
+    allProcessed.await();
+    assertEquals(Arrays.asList("first", "second", "deferred"), processed);
+    assertEquals(4, prioritizingExecutor.queueWaitTimeMillis().getTotalCount());
+    prioritizingExecutor.shutdown();
+  }
+
   @Test
   public void testRenderSummaryHtml() {
     String expectedSummaryHtml =
@@ -179,6 +179,30 @@ public class GrpcCommitWorkStreamTest {
     assertThat(commitStatus.get()).isEqualTo(Windmill.CommitStatus.ABORTED);
   }
 
+  @Test
+  public void testCommitWorkItem_countsSentBytesPerComputation() {
+    String otherComputationId = "otherComputationId";
+    CommitWorkStreamTestStub testStub =
+        new CommitWorkStreamTestStub(new TestCommitWorkStreamRequestObserver());
+    GrpcCommitWorkStream commitWorkStream = createCommitWorkStream(testStub);
+
+    long expectedBytes = 0;
+    try (WindmillStream.CommitWorkStream.RequestBatcher batcher = commitWorkStream.batcher()) {
+      for (int i = 0; i < 3; i++) {
+        assertTrue(batcher.commitWorkItem(COMPUTATION_ID, workItemCommitRequest(i), ignored -> {}));
+        expectedBytes += workItemCommitRequest(i).getSerializedSize();
+      }
+      assertTrue(
+          batcher.commitWorkItem(otherComputationId, workItemCommitRequest(100), ignored -> {}));
+    }
+
+    assertThat(commitWorkStream.getSentBytes(COMPUTATION_ID)).isEqualTo(expectedBytes);
+    assertThat(commitWorkStream.getSentBytes(otherComputationId))
+        .isEqualTo(workItemCommitRequest(100).getSerializedSize());
+    assertThat(commitWorkStream.getSentBytes("unknownComputationId")).isEqualTo(0);
+    commitWorkStream.shutdown();
+  }
+
   @Test
   public void testSend_notCalledAfterShutdown() {
     int numCommits = 5;
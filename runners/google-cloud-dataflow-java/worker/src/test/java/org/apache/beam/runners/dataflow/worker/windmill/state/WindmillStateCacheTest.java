@@ -17,9 +17,15 @@
  */
 package org.apache.beam.runners.dataflow.worker.windmill.state;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.Objects;
 import java.util.Optional;
 import org.apache.beam.runners.core.StateNamespace;
@@ -545,4 +551,60 @@ public class WindmillStateCacheTest {
         Optional.of(new TestState("g1")),
         keyCache1.get(StateNamespaces.global(), new TestStateTagWithBadEquality("tag1")));
   }
+
+  /** Verifies that a computation does not use more than its share of the cache. */
+  @Test
+  public void testPerComputationSize() throws Exception {
+    WindmillStateCache sharedCache = WindmillStateCache.builder().setSizeMb(1000).build();
+    WindmillStateCache boundedCache =
+        WindmillStateCache.builder().setSizeMb(1000).setPerComputationSizePercent(10).build();
+    for (WindmillStateCache stateCache : new WindmillStateCache[] {sharedCache, boundedCache}) {
+      WindmillStateCache.ForComputation computationCache = stateCache.forComputation(COMPUTATION);
+      // 200MB in entries small enough to not be evicted from the shared cache.
+      for (int i = 0; i < 2000; i++) {
+        WindmillStateCache.ForKeyAndFamily keyCache =
+            computationCache
+                .forKey(computationKey(COMPUTATION, "key" + i, SHARDING_KEY), 0L, 1L)
+                .forFamily(STATE_FAMILY);
+        keyCache.put(
+            StateNamespaces.global(), new TestStateTag("tag"), new TestState("v"), 100_000);
+        keyCache.persist();
+      }
+    }
+
+    assertThat(sharedCache.getWeight(), greaterThan(200_000_000L));
+    assertThat(boundedCache.getWeight(), greaterThan(0L));
+    assertThat(boundedCache.getWeight(), lessThanOrEqualTo(100 * MEGABYTES));
+  }
+
+  /** Verifies that lookups are counted per computation and shown on the status page. */
+  @Test
+  public void testPerComputationStats() throws Exception {
+    WindmillStateCache.ForKeyAndFamily keyCache =
+        cache.forComputation(COMPUTATION).forKey(COMPUTATION_KEY, 0L, 1L).forFamily(STATE_FAMILY);
+    assertEquals(
+        Optional.empty(), keyCache.get(StateNamespaces.global(), new TestStateTag("tag1")));
+    keyCache.put(StateNamespaces.global(), new TestStateTag("tag1"), new TestState("g1"), 2);
+    keyCache.persist();
+    // Nothing was modified since the last persist.
+    keyCache.persist();
+
+    keyCache =
+        cache.forComputation(COMPUTATION).forKey(COMPUTATION_KEY, 0L, 2L).forFamily(STATE_FAMILY);
+    assertEquals(
+        Optional.of(new TestState("g1")),
+        keyCache.get(StateNamespaces.global(), new TestStateTag("tag1")));
+    // Served from the work item local cache.
+    assertEquals(
+        Optional.of(new TestState("g1")),
+        keyCache.get(StateNamespaces.global(), new TestStateTag("tag1")));
+    keyCache.persist();
+    assertEquals(207, cache.getWeight());
+
+    StringWriter html = new StringWriter();
+    cache.appendSummaryHtml(new PrintWriter(html));
+    assertThat(
+        html.toString().replace(System.lineSeparator(), ""),
+        containsString("<td>" + COMPUTATION + "</td><td>0.5</td><td>1</td><td>1</td><td>1</td>"));
+  }
 }
@@ -19,6 +19,7 @@ package org.apache.beam.runners.dataflow.worker.windmill.state;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.times;
@@ -27,6 +28,8 @@ import static org.mockito.Mockito.when;
 import com.google.api.client.util.Lists;
 import com.google.common.collect.Maps;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -36,6 +39,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Future;
 import org.apache.beam.runners.dataflow.worker.KeyTokenInvalidException;
+import org.apache.beam.runners.dataflow.worker.WindmillComputationKey;
 import org.apache.beam.runners.dataflow.worker.WindmillStateTestUtils;
 import org.apache.beam.runners.dataflow.worker.WindmillTimeUtils;
 import org.apache.beam.runners.dataflow.worker.windmill.Windmill;
@@ -1427,6 +1431,126 @@ public class WindmillStateReaderTest {
     assertNoReader(future);
   }
 
+  @Test
+  public void testReadKnownEmptyStateWithoutWindmill() throws Exception {
+    WindmillStateCache cache =
+        WindmillStateCache.builder().setSizeMb(100).setFilterEmptyStateReads(true).build();
+    WindmillStateCache.ForKey cacheForKey =
+        cache
+            .forComputation(COMPUTATION)
+            .forKey(WindmillComputationKey.create(COMPUTATION, DATA_KEY, SHARDING_KEY), 1L, 1L);
+    cacheForKey.trackNonEmptyState();
+    cacheForKey.recordStateWrites(
+        Windmill.WorkItemCommitRequest.newBuilder()
+            .addValueUpdates(
+                Windmill.TagValue.newBuilder()
+                    .setTag(STATE_KEY_1)
+                    .setStateFamily(STATE_FAMILY)
+                    .setValue(intValue(8))));
+    underTest.filterEmptyStateReads(cacheForKey);
+
+    // Tags which were never written are answered without reading them from Windmill.
+    assertNull(underTest.valueFuture(STATE_KEY_2, STATE_FAMILY, INT_CODER).get());
+    assertTrue(Iterables.isEmpty(underTest.bagFuture(STATE_KEY_1, STATE_FAMILY, INT_CODER).get()));
+    assertNull(underTest.watermarkFuture(STATE_KEY_1, STATE_FAMILY2).get());
+    Mockito.verifyNoMoreInteractions(mockWindmill);
+
+    // The written value was cleared again, so the filter had a false positive for it.
+    Windmill.KeyedGetDataRequest.Builder expectedRequest =
+        Windmill.KeyedGetDataRequest.newBuilder()
+            .setKey(DATA_KEY)
+            .setShardingKey(SHARDING_KEY)
+            .setWorkToken(WORK_TOKEN)
+            .setMaxBytes(WindmillStateReader.MAX_KEY_BYTES)
+            .addValuesToFetch(
+                Windmill.TagValue.newBuilder()
+                    .setTag(STATE_KEY_1)
+                    .setStateFamily(STATE_FAMILY)
+                    .build());
+    Mockito.when(mockWindmill.getStateData(COMPUTATION, expectedRequest.build()))
+        .thenReturn(
+            Windmill.KeyedGetDataResponse.newBuilder()
+                .setKey(DATA_KEY)
+                .addValues(
+                    Windmill.TagValue.newBuilder().setTag(STATE_KEY_1).setStateFamily(STATE_FAMILY))
+                .build());
+    assertNull(underTest.valueFuture(STATE_KEY_1, STATE_FAMILY, INT_CODER).get());
+    Mockito.verify(mockWindmill).getStateData(COMPUTATION, expectedRequest.build());
+
+    StringWriter html = new StringWriter();
+    cache.appendSummaryHtml(new PrintWriter(html));
+    assertThat(
+        html.toString().replace(System.lineSeparator(), ""),
+        Matchers.containsString("<td>3</td><td>1.0</td>"));
+  }
+
+  @Test
+  public void testPrefetchesValuesReadByPreviousWorkItems() throws Exception {
+    WindmillStatePrefetcher prefetcher = new WindmillStatePrefetcher();
+    when(mockWindmill.getStateData(ArgumentMatchers.eq(COMPUTATION), ArgumentMatchers.any()))
+        .thenReturn(
+            Windmill.KeyedGetDataResponse.newBuilder()
+                .setKey(DATA_KEY)
+                .addValues(
+                    Windmill.TagValue.newBuilder()
+                        .setTag(STATE_KEY_1)
+                        .setStateFamily(STATE_FAMILY)
+                        .setValue(intValue(8)))
+                .build())
+        .thenReturn(
+            Windmill.KeyedGetDataResponse.newBuilder()
+                .setKey(DATA_KEY)
+                .addValues(
+                    Windmill.TagValue.newBuilder()
+                        .setTag(STATE_KEY_2)
+                        .setStateFamily(STATE_FAMILY)
+                        .setValue(intValue(5)))
+                .addValues(
+                    Windmill.TagValue.newBuilder()
+                        .setTag(STATE_KEY_1)
+                        .setStateFamily(STATE_FAMILY)
+                        .setValue(intValue(9)))
+                .build());
+
+    WindmillStateReader firstWorkItem =
+        WindmillStateReader.forTesting(
+            (request) -> Optional.ofNullable(mockWindmill.getStateData(COMPUTATION, request)),
+            DATA_KEY,
+            SHARDING_KEY,
+            WORK_TOKEN,
+            prefetcher);
+    assertThat(
+        firstWorkItem.valueFuture(STATE_KEY_1, STATE_FAMILY, INT_CODER).get(),
+        Matchers.equalTo(8));
+
+    // The first read of the next work item also fetches STATE_KEY_1.
+    WindmillStateReader secondWorkItem =
+        WindmillStateReader.forTesting(
+            (request) -> Optional.ofNullable(mockWindmill.getStateData(COMPUTATION, request)),
+            DATA_KEY,
+            SHARDING_KEY,
+            WORK_TOKEN + 1,
+            prefetcher);
+    assertThat(
+        secondWorkItem.valueFuture(STATE_KEY_2, STATE_FAMILY, INT_CODER).get(),
+        Matchers.equalTo(5));
+    Future<Integer> prefetchedFuture =
+        secondWorkItem.valueFuture(STATE_KEY_1, STATE_FAMILY, INT_CODER);
+    assertTrue(prefetchedFuture.isDone());
+    assertThat(prefetchedFuture.get(), Matchers.equalTo(9));
+
+    ArgumentCaptor<KeyedGetDataRequest> requests =
+        ArgumentCaptor.forClass(KeyedGetDataRequest.class);
+    Mockito.verify(mockWindmill, times(2))
+        .getStateData(ArgumentMatchers.eq(COMPUTATION), requests.capture());
+    Mockito.verifyNoMoreInteractions(mockWindmill);
+    assertEquals(1, requests.getAllValues().get(0).getValuesToFetchCount());
+    assertEquals(2, requests.getAllValues().get(1).getValuesToFetchCount());
+    assertEquals(1, prefetcher.getPrefetchedTags());
+    assertEquals(1, prefetcher.getPrefetchHits());
+    assertEquals(1, prefetcher.getSavedRoundTrips());
+  }
+
   @Test
   public void testReadWatermark() throws Exception {
     Future<Instant> future = underTest.watermarkFuture(STATE_KEY_1, STATE_FAMILY);
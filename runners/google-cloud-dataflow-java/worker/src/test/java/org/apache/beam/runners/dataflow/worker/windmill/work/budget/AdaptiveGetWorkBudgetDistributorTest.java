@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.dataflow.worker.windmill.work.budget;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import javax.annotation.Nullable;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AdaptiveGetWorkBudgetDistributorTest {
+  private static final GetWorkBudget TOTAL_BUDGET =
+      GetWorkBudget.builder().setItems(100L).setBytes(1000L).build();
+
+  private static class FakeGetWorkBudgetSpender implements GetWorkBudgetSpender {
+    private @Nullable GetWorkBudget budget = null;
+    private int setBudgetCalls = 0;
+    private long workItemsReceived = 0;
+
+    @Override
+    public void setBudget(long items, long bytes) {
+      budget = GetWorkBudget.builder().setItems(items).setBytes(bytes).build();
+      setBudgetCalls++;
+    }
+
+    @Override
+    public long workItemsReceived() {
+      return workItemsReceived;
+    }
+  }
+
+  @Test
+  public void testDistributeBudget_doesNothingWithNoBudget() {
+    FakeGetWorkBudgetSpender spender = new FakeGetWorkBudgetSpender();
+    GetWorkBudgetDistributors.distributeAdaptively()
+        .distributeBudget(ImmutableList.of(spender), GetWorkBudget.noBudget());
+    assertThat(spender.setBudgetCalls).isEqualTo(0);
+  }
+
+  @Test
+  public void testDistributeBudget_distributesEvenlyWithoutObservations() {
+    FakeGetWorkBudgetSpender first = new FakeGetWorkBudgetSpender();
+    FakeGetWorkBudgetSpender second = new FakeGetWorkBudgetSpender();
+    GetWorkBudgetDistributors.distributeAdaptively()
+        .distributeBudget(ImmutableList.of(first, second), TOTAL_BUDGET);
+
+    GetWorkBudget evenBudget = GetWorkBudget.builder().setItems(50L).setBytes(500L).build();
+    assertThat(first.budget).isEqualTo(evenBudget);
+    assertThat(second.budget).isEqualTo(evenBudget);
+  }
+
+  @Test
+  public void testDistributeBudget_favorsSpendersThatDrainBudget() {
+    GetWorkBudgetDistributor distributor = GetWorkBudgetDistributors.distributeAdaptively();
+    FakeGetWorkBudgetSpender busy = new FakeGetWorkBudgetSpender();
+    FakeGetWorkBudgetSpender idle = new FakeGetWorkBudgetSpender();
+    ImmutableList<FakeGetWorkBudgetSpender> spenders = ImmutableList.of(busy, idle);
+    distributor.distributeBudget(spenders, TOTAL_BUDGET);
+
+    busy.workItemsReceived = 40;
+    distributor.distributeBudget(spenders, TOTAL_BUDGET);
+
+    // Half of the budget is split evenly, the other half all goes to the busy spender.
+    assertThat(busy.budget).isEqualTo(GetWorkBudget.builder().setItems(75L).setBytes(750L).build());
+    assertThat(idle.budget).isEqualTo(GetWorkBudget.builder().setItems(25L).setBytes(250L).build());
+  }
+
+  @Test
+  public void testDistributeBudget_onlyUpdatesChangedBudgets() {
+    GetWorkBudgetDistributor distributor = GetWorkBudgetDistributors.distributeAdaptively();
+    FakeGetWorkBudgetSpender first = new FakeGetWorkBudgetSpender();
+    FakeGetWorkBudgetSpender second = new FakeGetWorkBudgetSpender();
+    ImmutableList<FakeGetWorkBudgetSpender> spenders = ImmutableList.of(first, second);
+
+    distributor.distributeBudget(spenders, TOTAL_BUDGET);
+    distributor.distributeBudget(spenders, TOTAL_BUDGET);
+    assertThat(first.setBudgetCalls).isEqualTo(1);
+    assertThat(second.setBudgetCalls).isEqualTo(1);
+
+    first.workItemsReceived = 10;
+    second.workItemsReceived = 10;
+    distributor.distributeBudget(spenders, TOTAL_BUDGET);
+    assertThat(first.setBudgetCalls).isEqualTo(1);
+    assertThat(second.setBudgetCalls).isEqualTo(1);
+  }
+
+  @Test
+  public void testDistributeBudget_newSpendersStartWithAverageShare() {
+    GetWorkBudgetDistributor distributor = GetWorkBudgetDistributors.distributeAdaptively();
+    FakeGetWorkBudgetSpender first = new FakeGetWorkBudgetSpender();
+    FakeGetWorkBudgetSpender second = new FakeGetWorkBudgetSpender();
+    distributor.distributeBudget(ImmutableList.of(first, second), TOTAL_BUDGET);
+    first.workItemsReceived = 10;
+    second.workItemsReceived = 10;
+    distributor.distributeBudget(ImmutableList.of(first, second), TOTAL_BUDGET);
+
+    FakeGetWorkBudgetSpender added = new FakeGetWorkBudgetSpender();
+    distributor.distributeBudget(ImmutableList.of(first, added), TOTAL_BUDGET);
+
+    GetWorkBudget evenBudget = GetWorkBudget.builder().setItems(50L).setBytes(500L).build();
+    assertThat(first.budget).isEqualTo(evenBudget);
+    assertThat(added.budget).isEqualTo(evenBudget);
+  }
+}
@@ -18,17 +18,36 @@
 package org.apache.beam.runners.fnexecution.control;
 
 import org.apache.beam.runners.fnexecution.provisioning.JobInfo;
+import org.apache.beam.sdk.metrics.MetricName;
+import org.apache.beam.sdk.metrics.MetricsContainer;
+import org.apache.beam.sdk.metrics.MetricsEnvironment;
 import org.apache.beam.sdk.util.construction.graph.ExecutableStage;
 
 /** Implementation of a {@link ExecutableStageContext}. */
 public class DefaultExecutableStageContext implements ExecutableStageContext, AutoCloseable {
+  /**
+   * Distribution of the time in milliseconds load-balanced bundles waited for a free environment.
+   * It is reported to the {@link MetricsContainer} of the thread requesting the bundle.
+   */
+  public static final MetricName BUNDLE_QUEUE_TIME_MILLIS =
+      MetricName.named(DefaultExecutableStageContext.class, "bundleQueueTimeMillis");
+
   private final JobBundleFactory jobBundleFactory;
 
   public static DefaultExecutableStageContext create(JobInfo jobInfo) {
-    JobBundleFactory jobBundleFactory = DefaultJobBundleFactory.create(jobInfo);
+    JobBundleFactory jobBundleFactory =
+        DefaultJobBundleFactory.create(
+            jobInfo, DefaultExecutableStageContext::reportBundleQueueTime);
     return new DefaultExecutableStageContext(jobBundleFactory);
   }
 
+  private static void reportBundleQueueTime(long millis) {
+    MetricsContainer container = MetricsEnvironment.getCurrentContainer();
+    if (container != null) {
+      container.getDistribution(BUNDLE_QUEUE_TIME_MILLIS).update(millis);
+    }
+  }
+
   private DefaultExecutableStageContext(JobBundleFactory jobBundleFactory) {
     this.jobBundleFactory = jobBundleFactory;
   }
@@ -30,6 +30,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.beam.model.fnexecution.v1.ProvisionApi;
 import org.apache.beam.model.pipeline.v1.RunnerApi.Environment;
@@ -99,6 +101,8 @@ import org.slf4j.LoggerFactory;
 public class DefaultJobBundleFactory implements JobBundleFactory {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultJobBundleFactory.class);
   private static final IdGenerator factoryIdGenerator = IdGenerators.incrementingLongs();
+  // Weight of the latest bundle in the moving average of the bundle processing time.
+  private static final double BUNDLE_LATENCY_SMOOTHING = 0.2;
 
   private final String factoryId = factoryIdGenerator.getId();
   private final ImmutableList<EnvironmentCacheAndLock> environmentCaches;
@@ -111,25 +115,29 @@ public class DefaultJobBundleFactory implements JobBundleFactory {
   private final Semaphore availableCachesSemaphore;
   private final LinkedBlockingDeque<EnvironmentCacheAndLock> availableCaches;
   private final boolean loadBalanceBundles;
+  /** Receives the time each load-balanced bundle waited for a free environment. */
+  private final LongConsumer bundleQueueTimeMillisConsumer;
+  /** Clock in milliseconds of the bundle queue and processing times. */
+  private final LongSupplier millisClock;
   /** Clients which were evicted due to environment expiration but still had pending references. */
   private final Set<WrappedSdkHarnessClient> evictedActiveClients;
 
   private boolean closed;
 
   public static DefaultJobBundleFactory create(JobInfo jobInfo) {
-    PipelineOptions pipelineOptions =
-        PipelineOptionsTranslation.fromProto(jobInfo.pipelineOptions());
-    Map<String, EnvironmentFactory.Provider> environmentFactoryProviderMap =
-        ImmutableMap.of(
-            BeamUrns.getUrn(StandardEnvironments.Environments.DOCKER),
-            new DockerEnvironmentFactory.Provider(pipelineOptions),
-            BeamUrns.getUrn(StandardEnvironments.Environments.PROCESS),
-            new ProcessEnvironmentFactory.Provider(pipelineOptions),
-            BeamUrns.getUrn(StandardEnvironments.Environments.EXTERNAL),
-            new ExternalEnvironmentFactory.Provider(),
-            Environments.ENVIRONMENT_EMBEDDED, // Non Public urn for testing.
-            new EmbeddedEnvironmentFactory.Provider(pipelineOptions));
-    return new DefaultJobBundleFactory(jobInfo, environmentFactoryProviderMap);
+    return new DefaultJobBundleFactory(
+        jobInfo, defaultEnvironmentFactoryProviders(jobInfo), millis -> {});
+  }
+
+  /**
+   * Creates a factory which reports the time in milliseconds each bundle waited for a free
+   * environment to {@code bundleQueueTimeMillisConsumer} when bundles are load balanced. The
+   * consumer is called on the thread requesting the bundle.
+   */
+  public static DefaultJobBundleFactory create(
+      JobInfo jobInfo, LongConsumer bundleQueueTimeMillisConsumer) {
+    return new DefaultJobBundleFactory(
+        jobInfo, defaultEnvironmentFactoryProviders(jobInfo), bundleQueueTimeMillisConsumer);
   }
 
   public static DefaultJobBundleFactory create(
@@ -137,8 +145,30 @@ public class DefaultJobBundleFactory implements JobBundleFactory {
     return new DefaultJobBundleFactory(jobInfo, environmentFactoryProviderMap);
   }
 
+  private static Map<String, EnvironmentFactory.Provider> defaultEnvironmentFactoryProviders(
+      JobInfo jobInfo) {
+    PipelineOptions pipelineOptions =
+        PipelineOptionsTranslation.fromProto(jobInfo.pipelineOptions());
+    return ImmutableMap.of(
+        BeamUrns.getUrn(StandardEnvironments.Environments.DOCKER),
+        new DockerEnvironmentFactory.Provider(pipelineOptions),
+        BeamUrns.getUrn(StandardEnvironments.Environments.PROCESS),
+        new ProcessEnvironmentFactory.Provider(pipelineOptions),
+        BeamUrns.getUrn(StandardEnvironments.Environments.EXTERNAL),
+        new ExternalEnvironmentFactory.Provider(),
+        Environments.ENVIRONMENT_EMBEDDED, // Non Public urn for testing.
+        new EmbeddedEnvironmentFactory.Provider(pipelineOptions));
+  }
+
   DefaultJobBundleFactory(
       JobInfo jobInfo, Map<String, EnvironmentFactory.Provider> environmentFactoryMap) {
+    this(jobInfo, environmentFactoryMap, millis -> {});
+  }
+
+  private DefaultJobBundleFactory(
+      JobInfo jobInfo,
+      Map<String, EnvironmentFactory.Provider> environmentFactoryMap,
+      LongConsumer bundleQueueTimeMillisConsumer) {
     IdGenerator stageIdSuffixGenerator = IdGenerators.incrementingLongs();
     this.environmentFactoryProviderMap = environmentFactoryMap;
     this.executor = Executors.newCachedThreadPool();
@@ -146,9 +176,13 @@ public class DefaultJobBundleFactory implements JobBundleFactory {
     this.stageIdGenerator = () -> factoryId + "-" + stageIdSuffixGenerator.getId();
     this.environmentExpirationMillis = getEnvironmentExpirationMillis(jobInfo);
     this.loadBalanceBundles = shouldLoadBalanceBundles(jobInfo);
+    this.bundleQueueTimeMillisConsumer = bundleQueueTimeMillisConsumer;
+    this.millisClock = System::currentTimeMillis;
     this.environmentCaches =
         createEnvironmentCaches(
-            serverFactory -> createServerInfo(jobInfo, serverFactory),
+            provider ->
+                createServerInfo(
+                    jobInfo, provider.getServerFactory(), provider.getDataServerFactory()),
             getMaxEnvironmentClients(jobInfo));
     this.availableCachesSemaphore = new Semaphore(environmentCaches.size(), true);
     this.availableCaches = new LinkedBlockingDeque<>(environmentCaches);
@@ -161,14 +195,33 @@ public class DefaultJobBundleFactory implements JobBundleFactory {
       Map<String, EnvironmentFactory.Provider> environmentFactoryMap,
       IdGenerator stageIdGenerator,
       ServerInfo serverInfo) {
+    this(
+        jobInfo,
+        environmentFactoryMap,
+        stageIdGenerator,
+        serverInfo,
+        millis -> {},
+        System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  DefaultJobBundleFactory(
+      JobInfo jobInfo,
+      Map<String, EnvironmentFactory.Provider> environmentFactoryMap,
+      IdGenerator stageIdGenerator,
+      ServerInfo serverInfo,
+      LongConsumer bundleQueueTimeMillisConsumer,
+      LongSupplier millisClock) {
     this.environmentFactoryProviderMap = environmentFactoryMap;
     this.executor = Executors.newCachedThreadPool();
     this.clientPool = MapControlClientPool.create();
     this.stageIdGenerator = stageIdGenerator;
     this.environmentExpirationMillis = getEnvironmentExpirationMillis(jobInfo);
     this.loadBalanceBundles = shouldLoadBalanceBundles(jobInfo);
+    this.bundleQueueTimeMillisConsumer = bundleQueueTimeMillisConsumer;
+    this.millisClock = millisClock;
     this.environmentCaches =
-        createEnvironmentCaches(serverFactory -> serverInfo, getMaxEnvironmentClients(jobInfo));
+        createEnvironmentCaches(provider -> serverInfo, getMaxEnvironmentClients(jobInfo));
     this.availableCachesSemaphore = new Semaphore(environmentCaches.size(), true);
     this.availableCaches = new LinkedBlockingDeque<>(environmentCaches);
     this.evictedActiveClients = Sets.newConcurrentHashSet();
@@ -177,15 +230,45 @@ public class DefaultJobBundleFactory implements JobBundleFactory {
   private static class EnvironmentCacheAndLock {
     final Lock lock;
     final LoadingCache<Environment, WrappedSdkHarnessClient> cache;
+    // Moving average of the time the bundles processed by this environment took.
+    private volatile double averageBundleMillis;
 
     EnvironmentCacheAndLock(LoadingCache<Environment, WrappedSdkHarnessClient> cache, Lock lock) {
       this.lock = lock;
       this.cache = cache;
     }
+
+    synchronized void bundleFinished(long bundleMillis) {
+      averageBundleMillis =
+          averageBundleMillis == 0
+              ? bundleMillis
+              : (1 - BUNDLE_LATENCY_SMOOTHING) * averageBundleMillis
+                  + BUNDLE_LATENCY_SMOOTHING * bundleMillis;
+    }
+  }
+
+  /**
+   * Takes the available environment that recently processed bundles the fastest, so that an SDK
+   * worker that is slowed down, e.g. by a skewed stage, receives fewer bundles. Environments that
+   * have not processed a bundle yet are preferred. Callers must hold a permit of {@link
+   * #availableCachesSemaphore}, which guarantees that an environment is available.
+   */
+  private EnvironmentCacheAndLock takeLeastLoadedCache() {
+    synchronized (availableCaches) {
+      EnvironmentCacheAndLock leastLoaded = null;
+      for (EnvironmentCacheAndLock cache : availableCaches) {
+        if (leastLoaded == null || cache.averageBundleMillis < leastLoaded.averageBundleMillis) {
+          leastLoaded = cache;
+        }
+      }
+      boolean taken = leastLoaded != null && availableCaches.remove(leastLoaded);
+      Preconditions.checkState(taken, "No environment available although a permit was acquired.");
+      return leastLoaded;
+    }
   }
 
   private ImmutableList<EnvironmentCacheAndLock> createEnvironmentCaches(
-      ThrowingFunction<ServerFactory, ServerInfo> serverInfoCreator, int count) {
+      ThrowingFunction<EnvironmentFactory.Provider, ServerInfo> serverInfoCreator, int count) {
 
     ImmutableList.Builder<EnvironmentCacheAndLock> caches = ImmutableList.builder();
     for (int i = 0; i < count; i++) {
@@ -240,8 +323,7 @@ public class DefaultJobBundleFactory implements JobBundleFactory {
                           environment, BeamUrns.getUrn(StandardEnvironments.Environments.DOCKER));
                   EnvironmentFactory.Provider environmentFactoryProvider =
                       environmentFactoryProviderMap.get(environment.getUrn());
-                  ServerFactory serverFactory = environmentFactoryProvider.getServerFactory();
-                  ServerInfo serverInfo = serverInfoCreator.apply(serverFactory);
+                  ServerInfo serverInfo = serverInfoCreator.apply(environmentFactoryProvider);
                   String workerId = stageIdGenerator.getId();
                   serverInfo
                       .getProvisioningServer()
@@ -458,6 +540,18 @@ public class DefaultJobBundleFactory implements JobBundleFactory {
               .getUnchecked(executableStage.getEnvironment());
       this.currentClient = prepare(client, executableStage);
       this.preparedClients.put(client, currentClient);
+      if (loadBalanceBundles) {
+        // Register the stage with the other environments which are already running, so that the
+        // first bundle scheduled onto one of them does not pay for it. Environments which do not
+        // exist yet are still created lazily by the first bundle that needs them.
+        for (EnvironmentCacheAndLock environmentCache : environmentCaches) {
+          WrappedSdkHarnessClient otherClient =
+              environmentCache.cache.getIfPresent(executableStage.getEnvironment());
+          if (otherClient != null && !preparedClients.containsKey(otherClient)) {
+            preparedClients.put(otherClient, prepare(otherClient, executableStage));
+          }
+        }
+      }
     }
 
     @Override
@@ -475,10 +569,12 @@ public class DefaultJobBundleFactory implements JobBundleFactory {
       final EnvironmentCacheAndLock currentCache;
       final WrappedSdkHarnessClient client;
       if (loadBalanceBundles) {
+        final long requestTimeMillis = millisClock.getAsLong();
         // The semaphore is used to ensure fairness, i.e. first stop first go.
         availableCachesSemaphore.acquire();
-        // The blocking queue of caches for serving multiple bundles concurrently.
-        currentCache = availableCaches.take();
+        bundleQueueTimeMillisConsumer.accept(millisClock.getAsLong() - requestTimeMillis);
+        // The queue of caches for serving multiple bundles concurrently.
+        currentCache = takeLeastLoadedCache();
         // Lock because the environment expiration can remove the ref for the client
         // which would close the underlying environment before we can ref it.
         currentCache.lock.lock();
@@ -522,6 +618,7 @@ public class DefaultJobBundleFactory implements JobBundleFactory {
         evictedActiveClients.removeIf(c -> c.bundleRefCount.get() == 0);
       }
 
+      final long bundleStartMillis = millisClock.getAsLong();
       final RemoteBundle bundle =
           currentClient.processor.newBundle(
               getOutputReceivers(currentClient.processBundleDescriptor, outputReceiverFactory),
@@ -563,6 +660,7 @@ public class DefaultJobBundleFactory implements JobBundleFactory {
           } finally {
             client.unref();
             if (loadBalanceBundles) {
+              currentCache.bundleFinished(millisClock.getAsLong() - bundleStartMillis);
               availableCaches.offer(currentCache);
               availableCachesSemaphore.release();
             }
@@ -668,9 +766,11 @@ public class DefaultJobBundleFactory implements JobBundleFactory {
     }
   }
 
-  private ServerInfo createServerInfo(JobInfo jobInfo, ServerFactory serverFactory)
+  private ServerInfo createServerInfo(
+      JobInfo jobInfo, ServerFactory serverFactory, ServerFactory dataServerFactory)
       throws IOException {
     Preconditions.checkNotNull(serverFactory, "serverFactory can not be null");
+    Preconditions.checkNotNull(dataServerFactory, "dataServerFactory can not be null");
 
     PortablePipelineOptions portableOptions =
         PipelineOptionsTranslation.fromProto(jobInfo.pipelineOptions())
@@ -701,9 +801,9 @@ public class DefaultJobBundleFactory implements JobBundleFactory {
         GrpcFnServer.allocatePortAndCreateFor(
             GrpcDataService.create(
                 portableOptions, executor, OutboundObserverFactory.serverDirect()),
-            serverFactory);
+            dataServerFactory);
     GrpcFnServer<GrpcStateService> stateServer =
-        GrpcFnServer.allocatePortAndCreateFor(GrpcStateService.create(), serverFactory);
+        GrpcFnServer.allocatePortAndCreateFor(GrpcStateService.create(), dataServerFactory);
 
     ServerInfo serverInfo =
         new AutoValue_DefaultJobBundleFactory_ServerInfo.Builder()
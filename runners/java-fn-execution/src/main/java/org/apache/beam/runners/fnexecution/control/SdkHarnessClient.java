@@ -495,8 +495,8 @@ public class SdkHarnessClient implements AutoCloseable {
        * <ul>
        *   <li>closing each {@link #getInputReceivers() input receiver}.
        *   <li>closing each {@link #getTimerReceivers() timer receiver}.
-       *   <li>waiting for the SDK to say that processing the bundle is finished.
        *   <li>waiting for all inbound data clients to complete
+       *   <li>waiting for the SDK to say that processing the bundle is finished.
        * </ul>
        *
        * <p>This method will throw an exception if bundle processing has failed. {@link
@@ -519,9 +519,18 @@ public class SdkHarnessClient implements AutoCloseable {
         try {
           // We don't have to worry about the completion stage.
           if (exception == null) {
+            Exception inboundException = null;
+            if (beamFnDataInboundObserver.isPresent()) {
+              try {
+                awaitInbound(beamFnDataInboundObserver.get());
+              } catch (Exception e) {
+                inboundException = e;
+              }
+            }
+            // A failed bundle is reported rather than the inbound data it did not complete.
             BeamFnApi.ProcessBundleResponse completedResponse = MoreFutures.get(response);
-            if (completedResponse.hasElements()) {
-              beamFnDataInboundObserver.get().accept(completedResponse.getElements());
+            if (inboundException != null) {
+              throw inboundException;
             }
 
             outstandingRequests.arriveAndAwaitAdvance();
@@ -562,7 +571,6 @@ public class SdkHarnessClient implements AutoCloseable {
         if (beamFnDataInboundObserver.isPresent()) {
           try {
             if (exception == null) {
-              beamFnDataInboundObserver.get().awaitCompletion();
               fnApiDataService.unregisterReceiver(bundleId);
             } else {
               beamFnDataInboundObserver.get().close();
@@ -579,6 +587,30 @@ public class SdkHarnessClient implements AutoCloseable {
           throw exception;
         }
       }
+
+      /**
+       * Consumes the inbound data while the SDK is still processing the bundle. The SDK blocks on
+       * sending data once the inbound queue is full, so waiting for the bundle response first would
+       * deadlock bundles whose outputs exceed the queue.
+       */
+      @SuppressWarnings("FutureReturnValueIgnored")
+      private void awaitInbound(BeamFnDataInboundObserver inboundObserver) throws Exception {
+        // Data embedded in the response completes the inbound streams instead of the data
+        // channel, and a failed bundle does not complete them at all.
+        response.whenComplete(
+            (completedResponse, t) -> {
+              try {
+                if (t != null) {
+                  inboundObserver.close();
+                } else if (completedResponse.hasElements()) {
+                  inboundObserver.accept(completedResponse.getElements());
+                }
+              } catch (Exception e) {
+                // The inbound observer was closed already, which fails awaitCompletion.
+              }
+            });
+        inboundObserver.awaitCompletion();
+      }
     }
   }
 
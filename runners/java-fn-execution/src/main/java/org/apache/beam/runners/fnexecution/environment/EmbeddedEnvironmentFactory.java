@@ -118,6 +118,9 @@ public class EmbeddedEnvironmentFactory implements EnvironmentFactory {
                     controlServer.getApiServiceDescriptor(),
                     null,
                     ManagedChannelFactory.createInProcess(),
+                    // The data and state servers run on the direct executor as well, so elements
+                    // are handed over on the sending thread without queueing on an executor.
+                    ManagedChannelFactory.createInProcess().withDirectExecutor(),
                     OutboundObserverFactory.clientDirect(),
                     Caches.fromOptions(options));
               } catch (NoClassDefFoundError e) {
@@ -190,5 +193,10 @@ public class EmbeddedEnvironmentFactory implements EnvironmentFactory {
     public ServerFactory getServerFactory() {
       return InProcessServerFactory.create();
     }
+
+    @Override
+    public ServerFactory getDataServerFactory() {
+      return InProcessServerFactory.createDirectExecutor();
+    }
   }
 }
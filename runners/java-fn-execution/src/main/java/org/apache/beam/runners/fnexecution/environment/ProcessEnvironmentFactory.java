@@ -29,9 +29,12 @@ import org.apache.beam.runners.fnexecution.logging.GrpcLoggingService;
 import org.apache.beam.runners.fnexecution.provisioning.StaticGrpcProvisionService;
 import org.apache.beam.sdk.fn.IdGenerator;
 import org.apache.beam.sdk.fn.server.GrpcFnServer;
+import org.apache.beam.sdk.fn.server.ServerFactory;
 import org.apache.beam.sdk.options.PipelineOptions;
+import org.apache.beam.sdk.options.PortablePipelineOptions;
 import org.apache.beam.sdk.options.RemoteEnvironmentOptions;
 import org.apache.beam.sdk.util.construction.BeamUrns;
+import org.apache.beam.vendor.grpc.v1p69p0.io.netty.channel.epoll.Epoll;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableList;
 import org.slf4j.Logger;
@@ -154,5 +157,19 @@ public class ProcessEnvironmentFactory implements EnvironmentFactory {
           idGenerator,
           pipelineOptions);
     }
+
+    @Override
+    public ServerFactory getDataServerFactory() {
+      // The SDK worker runs on the same host, so the data plane does not need to go through TCP.
+      if (pipelineOptions.as(PortablePipelineOptions.class).getUseDomainSocketDataPlane()) {
+        if (Epoll.isAvailable()) {
+          return ServerFactory.createEpollDomainSocket();
+        }
+        LOG.warn(
+            "Epoll is not available, serving the data plane over TCP.",
+            Epoll.unavailabilityCause());
+      }
+      return getServerFactory();
+    }
   }
 }
@@ -17,8 +17,10 @@
  */
 package org.apache.beam.runners.fnexecution.state;
 
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkArgument;
 import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkState;
 
+import com.google.auto.value.AutoValue;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -55,7 +57,13 @@ import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.util.common.Reiterable;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.Cache;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.CacheBuilder;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableList;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.hash.Hasher;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.hash.Hashing;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * A set of utility methods which construct {@link StateRequestHandler}s.
@@ -68,6 +76,12 @@ import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Immuta
 })
 public class StateRequestHandlers {
 
+  /**
+   * Encoded side input responses of all {@link #forImmutableSideInputHandlerFactory immutable side
+   * input handlers} of the JVM, created by the first handler using it.
+   */
+  private static volatile @Nullable Cache<SideInputResponseKey, ByteString> sideInputResponses;
+
   /**
    * Marker interface that denotes some type of side input handler. The access pattern defines the
    * underlying type.
@@ -303,12 +317,94 @@ public class StateRequestHandlers {
         sideInputSpecs, sideInputHandlerFactory);
   }
 
+  /**
+   * Returns an adapter which converts a {@link SideInputHandlerFactory} whose side inputs have the
+   * same contents for every handler created for the stage {@code stageId} to a {@link
+   * StateRequestHandler}, such as the side inputs of batch runners which are materialized before
+   * the stage runs.
+   *
+   * <p>{@code stageId} must identify the stage across all jobs which may run in the JVM. Every side
+   * input gets a cache token derived from the stage and the side input, so that the SDK harness
+   * can reuse decoded side inputs across the bundles of all tasks running the stage.
+   *
+   * <p>Encoded responses are kept in a cache shared by all handlers of the JVM. It is created by
+   * the first handler with {@code maxCachedBytes} and holds responses of any stage, later values of
+   * {@code maxCachedBytes} are ignored. If {@code maxCachedBytes} is 0 responses are not cached.
+   */
+  public static StateRequestHandler forImmutableSideInputHandlerFactory(
+      String stageId,
+      Map<String, Map<String, SideInputSpec>> sideInputSpecs,
+      SideInputHandlerFactory sideInputHandlerFactory,
+      long maxCachedBytes) {
+    checkArgument(
+        maxCachedBytes >= 0, "maxCachedBytes must not be negative, was %s", maxCachedBytes);
+    return new StateRequestHandlerToSideInputHandlerFactoryAdapter(
+        stageId,
+        sideInputSpecs,
+        sideInputHandlerFactory,
+        maxCachedBytes > 0 ? getSideInputResponseCache(maxCachedBytes) : null);
+  }
+
+  /**
+   * Returns the response cache shared by all immutable side input handlers of the JVM. It is
+   * created on first use with a budget of {@code maxCachedBytes}, later calls return the same
+   * cache.
+   */
+  @VisibleForTesting
+  static Cache<SideInputResponseKey, ByteString> getSideInputResponseCache(long maxCachedBytes) {
+    if (sideInputResponses == null) {
+      synchronized (StateRequestHandlers.class) {
+        if (sideInputResponses == null) {
+          // A single segment lets one large response use the whole budget.
+          sideInputResponses =
+              CacheBuilder.newBuilder()
+                  .concurrencyLevel(1)
+                  .maximumWeight(maxCachedBytes)
+                  .<SideInputResponseKey, ByteString>weigher(
+                      (key, data) ->
+                          key.stageId().length() + key.stateKey().getSerializedSize() + data.size())
+                  .build();
+        }
+      }
+    }
+    return sideInputResponses;
+  }
+
+  /** Key of an encoded response of an immutable side input. */
+  @AutoValue
+  abstract static class SideInputResponseKey {
+    static SideInputResponseKey of(String stageId, StateKey stateKey) {
+      return new AutoValue_StateRequestHandlers_SideInputResponseKey(stageId, stateKey);
+    }
+
+    abstract String stageId();
+
+    abstract StateKey stateKey();
+  }
+
+  /**
+   * Returns the cache token of a side input of an immutable side input handler, which is the same
+   * for all handlers of the stage.
+   */
+  @VisibleForTesting
+  static ByteString sideInputCacheToken(String stageId, String transformId, String sideInputId) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (String part : new String[] {stageId, transformId, sideInputId}) {
+      hasher.putInt(part.length()).putString(part, StandardCharsets.UTF_8);
+    }
+    return ByteString.copyFrom(hasher.hash().asBytes());
+  }
+
   /** An adapter which converts {@link SideInputHandlerFactory} to {@link StateRequestHandler}. */
   static class StateRequestHandlerToSideInputHandlerFactoryAdapter implements StateRequestHandler {
 
     private final Map<String, Map<String, SideInputSpec>> sideInputSpecs;
     private final SideInputHandlerFactory sideInputHandlerFactory;
     private final ConcurrentHashMap<SideInputSpec, SideInputHandler> handlerCache;
+    // Only set if the side inputs are immutable.
+    private final @Nullable String stageId;
+    private final @Nullable Cache<SideInputResponseKey, ByteString> responseCache;
+    private final List<BeamFnApi.ProcessBundleRequest.CacheToken> cacheTokens;
 
     StateRequestHandlerToSideInputHandlerFactoryAdapter(
         Map<String, Map<String, SideInputSpec>> sideInputSpecs,
@@ -316,10 +412,73 @@ public class StateRequestHandlers {
       this.sideInputSpecs = sideInputSpecs;
       this.sideInputHandlerFactory = sideInputHandlerFactory;
       this.handlerCache = new ConcurrentHashMap<>();
+      this.stageId = null;
+      this.responseCache = null;
+      this.cacheTokens = Collections.emptyList();
+    }
+
+    StateRequestHandlerToSideInputHandlerFactoryAdapter(
+        String stageId,
+        Map<String, Map<String, SideInputSpec>> sideInputSpecs,
+        SideInputHandlerFactory sideInputHandlerFactory,
+        @Nullable Cache<SideInputResponseKey, ByteString> responseCache) {
+      this.sideInputSpecs = sideInputSpecs;
+      this.sideInputHandlerFactory = sideInputHandlerFactory;
+      this.handlerCache = new ConcurrentHashMap<>();
+      this.stageId = stageId;
+      this.responseCache = responseCache;
+      this.cacheTokens = createSideInputCacheTokens(stageId, sideInputSpecs);
+    }
+
+    @Override
+    public Iterable<BeamFnApi.ProcessBundleRequest.CacheToken> getCacheTokens() {
+      return cacheTokens;
+    }
+
+    private static List<BeamFnApi.ProcessBundleRequest.CacheToken> createSideInputCacheTokens(
+        String stageId, Map<String, Map<String, SideInputSpec>> sideInputSpecs) {
+      List<BeamFnApi.ProcessBundleRequest.CacheToken> cacheTokens = new ArrayList<>();
+      for (Map<String, SideInputSpec> transformSideInputs : sideInputSpecs.values()) {
+        for (SideInputSpec<?, ?> spec : transformSideInputs.values()) {
+          cacheTokens.add(
+              BeamFnApi.ProcessBundleRequest.CacheToken.newBuilder()
+                  .setSideInput(
+                      BeamFnApi.ProcessBundleRequest.CacheToken.SideInput.newBuilder()
+                          .setTransformId(spec.transformId())
+                          .setSideInputId(spec.sideInputId()))
+                  .setToken(
+                      sideInputCacheToken(stageId, spec.transformId(), spec.sideInputId()))
+                  .build());
+        }
+      }
+      return Collections.unmodifiableList(cacheTokens);
     }
 
     @Override
     public CompletionStage<StateResponse.Builder> handle(StateRequest request) throws Exception {
+      if (responseCache == null || !RequestCase.GET.equals(request.getRequestCase())) {
+        return handleUncached(request);
+      }
+      SideInputResponseKey responseKey = SideInputResponseKey.of(stageId, request.getStateKey());
+      ByteString cachedData = responseCache.getIfPresent(responseKey);
+      if (cachedData != null) {
+        return CompletableFuture.completedFuture(
+            StateResponse.newBuilder()
+                .setId(request.getId())
+                .setGet(StateGetResponse.newBuilder().setData(cachedData)));
+      }
+      return handleUncached(request)
+          .thenApply(
+              response -> {
+                if (response.hasGet()) {
+                  responseCache.put(responseKey, response.getGet().getData());
+                }
+                return response;
+              });
+    }
+
+    private CompletionStage<StateResponse.Builder> handleUncached(StateRequest request)
+        throws Exception {
       checkState(
           RequestCase.GET.equals(request.getRequestCase()),
           String.format("Unsupported request type %s for side input.", request.getRequestCase()));
@@ -20,16 +20,22 @@ package org.apache.beam.runners.fnexecution.control;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -38,7 +44,12 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.beam.model.fnexecution.v1.BeamFnApi.InstructionRequest;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.InstructionResponse;
+import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateRequest;
+import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateResponse;
+import org.apache.beam.model.fnexecution.v1.BeamFnStateGrpc;
 import org.apache.beam.model.pipeline.v1.Endpoints.ApiServiceDescriptor;
 import org.apache.beam.model.pipeline.v1.RunnerApi.Coder;
 import org.apache.beam.model.pipeline.v1.RunnerApi.Components;
@@ -48,9 +59,11 @@ import org.apache.beam.model.pipeline.v1.RunnerApi.FunctionSpec;
 import org.apache.beam.model.pipeline.v1.RunnerApi.PCollection;
 import org.apache.beam.model.pipeline.v1.RunnerApi.WindowingStrategy;
 import org.apache.beam.runners.fnexecution.artifact.ArtifactRetrievalService;
+import org.apache.beam.runners.fnexecution.control.ProcessBundleDescriptors.ExecutableProcessBundleDescriptor;
 import org.apache.beam.runners.fnexecution.data.GrpcDataService;
 import org.apache.beam.runners.fnexecution.environment.EnvironmentFactory;
 import org.apache.beam.runners.fnexecution.environment.EnvironmentFactory.Provider;
+import org.apache.beam.runners.fnexecution.environment.ProcessEnvironmentFactory;
 import org.apache.beam.runners.fnexecution.environment.RemoteEnvironment;
 import org.apache.beam.runners.fnexecution.logging.GrpcLoggingService;
 import org.apache.beam.runners.fnexecution.provisioning.JobInfo;
@@ -60,9 +73,12 @@ import org.apache.beam.runners.fnexecution.state.StateDelegator;
 import org.apache.beam.runners.fnexecution.state.StateRequestHandler;
 import org.apache.beam.sdk.fn.IdGenerator;
 import org.apache.beam.sdk.fn.IdGenerators;
+import org.apache.beam.sdk.fn.channel.ManagedChannelFactory;
 import org.apache.beam.sdk.fn.data.BeamFnDataOutboundAggregator;
+import org.apache.beam.sdk.fn.data.RemoteGrpcPortRead;
 import org.apache.beam.sdk.fn.server.GrpcFnServer;
 import org.apache.beam.sdk.fn.server.ServerFactory;
+import org.apache.beam.sdk.fn.test.TestStreams;
 import org.apache.beam.sdk.options.ExperimentalOptions;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.options.PortablePipelineOptions;
@@ -71,6 +87,9 @@ import org.apache.beam.sdk.util.construction.PipelineOptionsTranslation;
 import org.apache.beam.sdk.util.construction.graph.ExecutableStage;
 import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
 import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.Struct;
+import org.apache.beam.vendor.grpc.v1p69p0.io.grpc.ManagedChannel;
+import org.apache.beam.vendor.grpc.v1p69p0.io.grpc.stub.StreamObserver;
+import org.apache.beam.vendor.grpc.v1p69p0.io.netty.channel.epoll.Epoll;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableMap;
 import org.junit.Assert;
 import org.junit.Before;
@@ -500,6 +519,63 @@ public class DefaultJobBundleFactoryTest {
     }
   }
 
+  @Test
+  public void loadBalancesBundlesToFastestEnvironment() throws Exception {
+    PortablePipelineOptions portableOptions =
+        PipelineOptionsFactory.as(PortablePipelineOptions.class);
+    portableOptions.setSdkWorkerParallelism(2);
+    portableOptions.setLoadBalanceBundles(true);
+    Struct pipelineOptions = PipelineOptionsTranslation.toProto(portableOptions);
+
+    RemoteEnvironment slowEnvironment = mock(RemoteEnvironment.class);
+    InstructionRequestHandler slowInstructionHandler = mock(InstructionRequestHandler.class);
+    when(slowEnvironment.getInstructionRequestHandler()).thenReturn(slowInstructionHandler);
+    when(slowInstructionHandler.handle(any()))
+        .thenReturn(CompletableFuture.completedFuture(instructionResponse));
+    when(envFactory.createEnvironment(eq(environment), any()))
+        .thenReturn(remoteEnvironment, slowEnvironment);
+
+    AtomicLong clock = new AtomicLong();
+    List<Long> bundleQueueTimes = new ArrayList<>();
+    try (DefaultJobBundleFactory bundleFactory =
+        new DefaultJobBundleFactory(
+            JobInfo.create("testJob", "testJob", "token", pipelineOptions),
+            envFactoryProviderMap,
+            stageIdGenerator,
+            serverInfo,
+            bundleQueueTimes::add,
+            clock::get)) {
+      OutputReceiverFactory orf = mock(OutputReceiverFactory.class);
+      StateRequestHandler srh = mock(StateRequestHandler.class);
+      when(srh.getCacheTokens()).thenReturn(Collections.emptyList());
+      StageBundleFactory sbf = bundleFactory.forStage(getExecutableStage(environment));
+
+      RemoteBundle fastBundle = sbf.getBundle(orf, srh, BundleProgressHandler.ignored());
+      clock.addAndGet(10);
+      fastBundle.close();
+      verify(envFactory, Mockito.times(1)).createEnvironment(eq(environment), any());
+
+      // The environment without history is preferred over the one which was fast so far.
+      RemoteBundle slowBundle = sbf.getBundle(orf, srh, BundleProgressHandler.ignored());
+      verify(envFactory, Mockito.times(2)).createEnvironment(eq(environment), any());
+      clock.addAndGet(100);
+      slowBundle.close();
+
+      // Once both environments have a history, the slow one receives no further bundles.
+      for (int i = 0; i < 5; i++) {
+        RemoteBundle bundle = sbf.getBundle(orf, srh, BundleProgressHandler.ignored());
+        clock.addAndGet(10);
+        bundle.close();
+      }
+
+      verify(instructionHandler, Mockito.times(6))
+          .handle(argThat(InstructionRequest::hasProcessBundle));
+      verify(slowInstructionHandler, Mockito.times(1))
+          .handle(argThat(InstructionRequest::hasProcessBundle));
+      assertThat(bundleQueueTimes, equalTo(Collections.nCopies(7, 0L)));
+    }
+  }
+
   @Test
   public void rejectsStateCachingWithLoadBalancing() throws Exception {
     PortablePipelineOptions portableOptions =
@@ -522,6 +598,85 @@ public class DefaultJobBundleFactoryTest {
     assertThat(e.getMessage(), containsString("state_cache_size"));
   }
 
+  @Test
+  public void servesDataPlaneOfProcessEnvironmentsOverDomainSocket() throws Exception {
+    assumeTrue(Epoll.isAvailable());
+    try (DefaultJobBundleFactory bundleFactory = createProcessEnvironmentJobBundleFactory(true)) {
+      ExecutableProcessBundleDescriptor descriptor =
+          bundleFactory.forStage(getExecutableStage(environment)).getProcessBundleDescriptor();
+      ApiServiceDescriptor stateApiServiceDescriptor =
+          descriptor.getProcessBundleDescriptor().getStateApiServiceDescriptor();
+      assertThat(getDataApiServiceDescriptor(descriptor).getUrl(), startsWith("unix://"));
+      assertThat(stateApiServiceDescriptor.getUrl(), startsWith("unix://"));
+
+      // The default channel factory of the SDK harness connects to the domain socket.
+      ManagedChannel channel =
+          ManagedChannelFactory.createDefault().forDescriptor(stateApiServiceDescriptor);
+      try {
+        CompletableFuture<StateResponse> response = new CompletableFuture<>();
+        StreamObserver<StateRequest> requestObserver =
+            BeamFnStateGrpc.newStub(channel)
+                .state(
+                    TestStreams.withOnNext(response::complete)
+                        .withOnError(response::completeExceptionally)
+                        .build());
+        requestObserver.onNext(
+            StateRequest.newBuilder().setId("request").setInstructionId("unknown").build());
+        assertThat(response.get().getId(), equalTo("request"));
+        requestObserver.onCompleted();
+      } finally {
+        channel.shutdownNow();
+      }
+    }
+  }
+
+  @Test
+  public void servesDataPlaneOfProcessEnvironmentsOverTcpByDefault() throws Exception {
+    try (DefaultJobBundleFactory bundleFactory = createProcessEnvironmentJobBundleFactory(false)) {
+      ExecutableProcessBundleDescriptor descriptor =
+          bundleFactory.forStage(getExecutableStage(environment)).getProcessBundleDescriptor();
+      assertThat(getDataApiServiceDescriptor(descriptor).getUrl(), not(startsWith("unix://")));
+      assertThat(
+          descriptor.getProcessBundleDescriptor().getStateApiServiceDescriptor().getUrl(),
+          not(startsWith("unix://")));
+    }
+  }
+
+  /**
+   * Creates a {@link DefaultJobBundleFactory} which starts its servers like for a PROCESS
+   * environment, but whose environments are mocked by {@link #envFactory}.
+   */
+  private DefaultJobBundleFactory createProcessEnvironmentJobBundleFactory(
+      boolean useDomainSocketDataPlane) {
+    PortablePipelineOptions options = PipelineOptionsFactory.as(PortablePipelineOptions.class);
+    options.setUseDomainSocketDataPlane(useDomainSocketDataPlane);
+    EnvironmentFactory.Provider provider =
+        new ProcessEnvironmentFactory.Provider(options) {
+          @Override
+          public EnvironmentFactory createEnvironmentFactory(
+              GrpcFnServer<FnApiControlClientPoolService> controlServiceServer,
+              GrpcFnServer<GrpcLoggingService> loggingServiceServer,
+              GrpcFnServer<ArtifactRetrievalService> retrievalServiceServer,
+              GrpcFnServer<StaticGrpcProvisionService> provisioningServiceServer,
+              ControlClientPool clientPool,
+              IdGenerator idGenerator) {
+            return envFactory;
+          }
+        };
+    return new DefaultJobBundleFactory(
+        JobInfo.create("testJob", "testJob", "token", PipelineOptionsTranslation.toProto(options)),
+        ImmutableMap.of(environment.getUrn(), provider));
+  }
+
+  private static ApiServiceDescriptor getDataApiServiceDescriptor(
+      ExecutableProcessBundleDescriptor descriptor) throws Exception {
+    String inputTransformId = descriptor.getRemoteInputDestinations().get(0).getPTransformId();
+    return RemoteGrpcPortRead.fromPTransform(
+            descriptor.getProcessBundleDescriptor().getTransformsOrThrow(inputTransformId))
+        .getPort()
+        .getApiServiceDescriptor();
+  }
+
   private DefaultJobBundleFactory createDefaultJobBundleFactory(
       Map<String, EnvironmentFactory.Provider> envFactoryProviderMap) {
     return new DefaultJobBundleFactory(
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.fnexecution.environment;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.beam.runners.fnexecution.control.BundleProgressHandler;
+import org.apache.beam.runners.fnexecution.control.DefaultJobBundleFactory;
+import org.apache.beam.runners.fnexecution.control.OutputReceiverFactory;
+import org.apache.beam.runners.fnexecution.control.RemoteBundle;
+import org.apache.beam.runners.fnexecution.control.StageBundleFactory;
+import org.apache.beam.runners.fnexecution.provisioning.JobInfo;
+import org.apache.beam.runners.fnexecution.state.StateRequestHandler;
+import org.apache.beam.sdk.Pipeline;
+import org.apache.beam.sdk.fn.data.BeamFnDataOutboundAggregator;
+import org.apache.beam.sdk.fn.data.FnDataReceiver;
+import org.apache.beam.sdk.options.ExperimentalOptions;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.options.PortablePipelineOptions;
+import org.apache.beam.sdk.transforms.GroupByKey;
+import org.apache.beam.sdk.transforms.Impulse;
+import org.apache.beam.sdk.transforms.WithKeys;
+import org.apache.beam.sdk.util.WindowedValue;
+import org.apache.beam.sdk.util.construction.Environments;
+import org.apache.beam.sdk.util.construction.PipelineOptionsTranslation;
+import org.apache.beam.sdk.util.construction.PipelineTranslation;
+import org.apache.beam.sdk.util.construction.graph.ExecutableStage;
+import org.apache.beam.sdk.util.construction.graph.GreedyPipelineFuser;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterables;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link EmbeddedEnvironmentFactory}. */
+@RunWith(JUnit4.class)
+public class EmbeddedEnvironmentFactoryTest {
+  @Rule public transient Timeout globalTimeout = Timeout.seconds(600);
+
+  /**
+   * More data messages than the inbound queue of the runner and of the SDK harness hold, which is
+   * 100 messages each.
+   */
+  private static final int NUM_ELEMENTS = 150;
+
+  @Test
+  public void processesBundleExceedingInboundDataQueues() throws Exception {
+    PortablePipelineOptions options = PipelineOptionsFactory.as(PortablePipelineOptions.class);
+    options.setDefaultEnvironmentType(Environments.ENVIRONMENT_EMBEDDED);
+    // Flush after every element, so each input and output is a separate data message.
+    options
+        .as(ExperimentalOptions.class)
+        .setExperiments(
+            Collections.singletonList(BeamFnDataOutboundAggregator.DATA_BUFFER_SIZE_LIMIT + "1"));
+
+    Pipeline p = Pipeline.create(options);
+    p.apply("impulse", Impulse.create())
+        .apply("addKeys", WithKeys.of("key"))
+        .apply("gbk", GroupByKey.create());
+    ExecutableStage stage =
+        Iterables.getOnlyElement(
+            GreedyPipelineFuser.fuse(PipelineTranslation.toProto(p)).getFusedStages());
+
+    List<Object> outputs = Collections.synchronizedList(new ArrayList<>());
+    OutputReceiverFactory outputReceiverFactory =
+        new OutputReceiverFactory() {
+          @Override
+          public <OutputT> FnDataReceiver<OutputT> create(String pCollectionId) {
+            return outputs::add;
+          }
+        };
+    try (DefaultJobBundleFactory bundleFactory =
+        DefaultJobBundleFactory.create(
+            JobInfo.create("job", "job", "token", PipelineOptionsTranslation.toProto(options)))) {
+      StageBundleFactory stageBundleFactory = bundleFactory.forStage(stage);
+      try (RemoteBundle bundle =
+          stageBundleFactory.getBundle(
+              outputReceiverFactory,
+              StateRequestHandler.unsupported(),
+              BundleProgressHandler.ignored())) {
+        FnDataReceiver<WindowedValue<?>> inputReceiver =
+            Iterables.getOnlyElement(bundle.getInputReceivers().values());
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+          inputReceiver.accept(WindowedValue.valueInGlobalWindow(new byte[] {(byte) i}));
+        }
+      }
+    }
+
+    assertThat(outputs, hasSize(NUM_ELEMENTS));
+  }
+}
@@ -20,11 +20,16 @@ package org.apache.beam.runners.fnexecution.state;
 import static org.apache.beam.sdk.util.construction.PTransformTranslation.PAR_DO_TRANSFORM_URN;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateKey;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateKey.MultimapSideInput;
@@ -33,6 +38,11 @@ import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateRequest;
 import org.apache.beam.model.pipeline.v1.Endpoints;
 import org.apache.beam.model.pipeline.v1.RunnerApi;
 import org.apache.beam.runners.fnexecution.control.ProcessBundleDescriptors;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.transforms.Materializations;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.util.CoderUtils;
 import org.apache.beam.sdk.util.construction.ModelCoders;
@@ -105,6 +115,133 @@ public class StateRequestHandlersTest {
     assertThat(assertSingleCacheToken(stateRequestHandler), is(cacheToken));
   }
 
+  @Test
+  public void testImmutableSideInputResponsesAreSharedBetweenHandlersOfStage() throws Exception {
+    AtomicInteger reads = new AtomicInteger();
+    // Handlers of two tasks running the same stage.
+    StateRequestHandler firstHandler = immutableSideInputHandler("job/shared", reads, 1 << 20);
+    StateRequestHandler secondHandler = immutableSideInputHandler("job/shared", reads, 1 << 20);
+
+    BeamFnApi.StateResponse first = sendSideInputGetRequest(firstHandler, "1");
+    BeamFnApi.StateResponse second = sendSideInputGetRequest(secondHandler, "2");
+
+    assertThat(reads.get(), is(1));
+    assertThat(second.getId(), is("2"));
+    assertThat(second.getGet().getData(), is(first.getGet().getData()));
+  }
+
+  @Test
+  public void testImmutableSideInputResponsesAreNotCachedIfDisabled() throws Exception {
+    AtomicInteger reads = new AtomicInteger();
+    StateRequestHandler stateRequestHandler = immutableSideInputHandler("job/uncached", reads, 0);
+
+    sendSideInputGetRequest(stateRequestHandler, "1");
+    sendSideInputGetRequest(stateRequestHandler, "2");
+
+    assertThat(reads.get(), is(2));
+  }
+
+  @Test
+  public void testImmutableSideInputCacheTokensAreStablePerStage() throws Exception {
+    AtomicInteger reads = new AtomicInteger();
+    BeamFnApi.ProcessBundleRequest.CacheToken cacheToken =
+        Iterables.getOnlyElement(immutableSideInputHandler("job/stage", reads, 0).getCacheTokens());
+    assertThat(cacheToken.getSideInput().getTransformId(), is("transform"));
+    assertThat(cacheToken.getSideInput().getSideInputId(), is("side"));
+
+    // Another handler of the same stage, e.g. of another task.
+    assertThat(
+        Iterables.getOnlyElement(immutableSideInputHandler("job/stage", reads, 0).getCacheTokens()),
+        is(cacheToken));
+    assertThat(
+        Iterables.getOnlyElement(
+                immutableSideInputHandler("job/otherStage", reads, 0).getCacheTokens())
+            .getToken(),
+        not(cacheToken.getToken()));
+  }
+
+  /**
+   * Returns an immutable side input handler of the iterable side input "side" of the transform
+   * "transform" holding "a" and "b", which counts its reads in {@code reads}.
+   */
+  private static StateRequestHandler immutableSideInputHandler(
+      String stageId, AtomicInteger reads, long maxCachedBytes) {
+    return StateRequestHandlers.forImmutableSideInputHandlerFactory(
+        stageId, iterableSideInputSpecs(), countingSideInputHandlerFactory(reads), maxCachedBytes);
+  }
+
+  /** Returns the specs of the iterable side input "side" of the transform "transform". */
+  private static Map<String, Map<String, ProcessBundleDescriptors.SideInputSpec>>
+      iterableSideInputSpecs() {
+    return Collections.singletonMap(
+        "transform",
+        Collections.singletonMap(
+            "side",
+            ProcessBundleDescriptors.SideInputSpec.of(
+                "transform",
+                "side",
+                RunnerApi.FunctionSpec.newBuilder()
+                    .setUrn(Materializations.ITERABLE_MATERIALIZATION_URN)
+                    .build(),
+                StringUtf8Coder.of(),
+                GlobalWindow.Coder.INSTANCE)));
+  }
+
+  /** Returns a factory of iterable side inputs holding "a" and "b" which counts their reads. */
+  private static StateRequestHandlers.SideInputHandlerFactory countingSideInputHandlerFactory(
+      AtomicInteger reads) {
+    return new StateRequestHandlers.SideInputHandlerFactory() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public <V, W extends BoundedWindow>
+          StateRequestHandlers.IterableSideInputHandler<V, W> forIterableSideInput(
+              String transformId, String sideInputId, Coder<V> elementCoder, Coder<W> windowCoder) {
+        return new StateRequestHandlers.IterableSideInputHandler<V, W>() {
+          @Override
+          public Iterable<V> get(W window) {
+            reads.incrementAndGet();
+            return (Iterable<V>) Arrays.asList("a", "b");
+          }
+
+          @Override
+          public Coder<V> elementCoder() {
+            return elementCoder;
+          }
+        };
+      }
+
+      @Override
+      public <K, V, W extends BoundedWindow>
+          StateRequestHandlers.MultimapSideInputHandler<K, V, W> forMultimapSideInput(
+              String transformId,
+              String sideInputId,
+              KvCoder<K, V> elementCoder,
+              Coder<W> windowCoder) {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private static BeamFnApi.StateResponse sendSideInputGetRequest(
+      StateRequestHandler stateRequestHandler, String requestId) throws Exception {
+    StateRequest request =
+        StateRequest.newBuilder()
+            .setId(requestId)
+            .setGet(BeamFnApi.StateGetRequest.getDefaultInstance())
+            .setStateKey(
+                StateKey.newBuilder()
+                    .setIterableSideInput(
+                        StateKey.IterableSideInput.newBuilder()
+                            .setTransformId("transform")
+                            .setSideInputId("side")
+                            .setWindow(
+                                ByteString.copyFrom(
+                                    CoderUtils.encodeToByteArray(
+                                        GlobalWindow.Coder.INSTANCE, GlobalWindow.INSTANCE)))))
+            .build();
+    return stateRequestHandler.handle(request).toCompletableFuture().get().build();
+  }
+
   private static BeamFnApi.ProcessBundleRequest.CacheToken assertSingleCacheToken(
       StateRequestHandler stateRequestHandler) {
     Iterable<BeamFnApi.ProcessBundleRequest.CacheToken> cacheTokens =
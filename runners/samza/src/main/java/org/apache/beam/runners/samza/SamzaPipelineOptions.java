@@ -105,6 +105,13 @@ public interface SamzaPipelineOptions extends PipelineOptions {
 
   void setStoreBatchGetSize(int storeBatchGetSize);
 
+  @Description(
+      "The maximum number of state writes of a stateful transform that are buffered in memory per store. Buffered writes to the same state cell are coalesced and written to the store as one batch at the end of each bundle, or earlier once the buffer is full. A non-positive value writes every state mutation directly to the store.")
+  @Default.Integer(0)
+  int getStateWriteBatchSize();
+
+  void setStateWriteBatchSize(int stateWriteBatchSize);
+
   @Description("Enable/disable Beam metrics in Samza Runner")
   @Default.Boolean(true)
   Boolean getEnableMetrics();
@@ -155,6 +162,13 @@ public interface SamzaPipelineOptions extends PipelineOptions {
 
   void setNumThreadsForProcessElement(int numThreads);
 
+  @Description(
+      "The maximum number of elements of the same key that a stateful DoFn processes asynchronously at a time. Elements of a key are processed in order; once the limit is reached, the task waits for the oldest element of the key to complete. A non-positive value means no limit. Used only in non-portable mode with numThreadsForProcessElement > 1.")
+  @Default.Integer(0)
+  int getMaxInFlightElementsPerKey();
+
+  void setMaxInFlightElementsPerKey(int maxInFlightElementsPerKey);
+
   @JsonIgnore
   @Description(
       "The ExecutorService instance to run DoFN.processElements in parallel within a bundle. Used only in non-portable mode.")
@@ -19,13 +19,21 @@ package org.apache.beam.runners.samza.runtime;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import org.apache.beam.runners.core.DoFnRunner;
 import org.apache.beam.runners.samza.SamzaPipelineOptions;
+import org.apache.beam.sdk.metrics.Distribution;
+import org.apache.beam.sdk.metrics.Gauge;
+import org.apache.beam.sdk.metrics.MetricName;
+import org.apache.beam.sdk.metrics.MetricsContainer;
 import org.apache.beam.sdk.state.TimeDomain;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
@@ -47,19 +55,32 @@ public class AsyncDoFnRunner<InT, OutT> implements DoFnRunner<InT, OutT> {
   // A dummy key to represent null keys
   private static final Object NULL_KEY = new Object();
 
+  private static final String METRICS_NAMESPACE = AsyncDoFnRunner.class.getName();
+  static final String IN_FLIGHT_ELEMENTS = "async-in-flight-elements";
+  static final String QUEUE_WAIT_MS = "async-queue-wait-ms";
+  static final String KEY_BACKPRESSURE_WAIT_MS = "async-key-backpressure-wait-ms";
+
   private final DoFnRunner<InT, OutT> underlying;
   private final ExecutorService executor;
   private final OpEmitter<OutT> emitter;
   private final FutureCollector<OutT> futureCollector;
   private final boolean isStateful;
+  private final int maxInFlightElementsPerKey;
 
   /**
-   * This map keeps track of the last outputFutures for a certain key. When the next element of the
-   * key comes in, its outputFutures will be chained from the last outputFutures in the map. When
-   * all futures of a key have been complete, the key entry will be removed. The map is bounded by
-   * (bundle size * 2).
+   * This map keeps track of the outputFutures of a certain key that are not complete yet, in the
+   * order the elements arrived. When the next element of the key comes in, its outputFutures will
+   * be chained from the last outputFutures in the map, so elements of the same key are processed
+   * one after another while different keys proceed in parallel. When all futures of a key have
+   * been complete, the key entry will be removed. The map is bounded by (bundle size * 2).
    */
-  private final Map<Object, CompletableFuture<Collection<WindowedValue<OutT>>>> keyedOutputFutures;
+  private final Map<Object, Deque<CompletableFuture<Collection<WindowedValue<OutT>>>>>
+      keyedOutputFutures;
+
+  private final AtomicLong inFlightElements;
+  private final @Nullable Gauge inFlightElementsGauge;
+  private final @Nullable Distribution queueWaitMs;
+  private final @Nullable Distribution keyBackpressureWaitMs;
 
   public static <InT, OutT> AsyncDoFnRunner<InT, OutT> create(
       DoFnRunner<InT, OutT> runner,
@@ -67,9 +88,24 @@ public class AsyncDoFnRunner<InT, OutT> implements DoFnRunner<InT, OutT> {
       FutureCollector<OutT> futureCollector,
       boolean isStateful,
       SamzaPipelineOptions options) {
+    return create(runner, emitter, futureCollector, isStateful, options, null);
+  }
+
+  /**
+   * Creates the runner. If a {@link MetricsContainer} is given, the number of elements in flight
+   * and the time elements spend waiting are reported to it.
+   */
+  public static <InT, OutT> AsyncDoFnRunner<InT, OutT> create(
+      DoFnRunner<InT, OutT> runner,
+      OpEmitter<OutT> emitter,
+      FutureCollector<OutT> futureCollector,
+      boolean isStateful,
+      SamzaPipelineOptions options,
+      @Nullable MetricsContainer metricsContainer) {
 
     LOG.info("Run DoFn with " + AsyncDoFnRunner.class.getName());
-    return new AsyncDoFnRunner<>(runner, emitter, futureCollector, isStateful, options);
+    return new AsyncDoFnRunner<>(
+        runner, emitter, futureCollector, isStateful, options, metricsContainer);
   }
 
   private AsyncDoFnRunner(
@@ -77,13 +113,29 @@ public class AsyncDoFnRunner<InT, OutT> implements DoFnRunner<InT, OutT> {
       OpEmitter<OutT> emitter,
       FutureCollector<OutT> futureCollector,
       boolean isStateful,
-      SamzaPipelineOptions options) {
+      SamzaPipelineOptions options,
+      @Nullable MetricsContainer metricsContainer) {
     this.underlying = runner;
     this.executor = options.getExecutorServiceForProcessElement();
     this.emitter = emitter;
     this.futureCollector = futureCollector;
     this.isStateful = isStateful;
+    this.maxInFlightElementsPerKey = options.getMaxInFlightElementsPerKey();
     this.keyedOutputFutures = new ConcurrentHashMap<>();
+    this.inFlightElements = new AtomicLong();
+    if (metricsContainer != null) {
+      this.inFlightElementsGauge =
+          metricsContainer.getGauge(MetricName.named(METRICS_NAMESPACE, IN_FLIGHT_ELEMENTS));
+      this.queueWaitMs =
+          metricsContainer.getDistribution(MetricName.named(METRICS_NAMESPACE, QUEUE_WAIT_MS));
+      this.keyBackpressureWaitMs =
+          metricsContainer.getDistribution(
+              MetricName.named(METRICS_NAMESPACE, KEY_BACKPRESSURE_WAIT_MS));
+    } else {
+      this.inFlightElementsGauge = null;
+      this.queueWaitMs = null;
+      this.keyBackpressureWaitMs = null;
+    }
   }
 
   @Override
@@ -108,37 +160,104 @@ public class AsyncDoFnRunner<InT, OutT> implements DoFnRunner<InT, OutT> {
             ? CompletableFuture.completedFuture(Collections.emptyList())
             : prevOutputFuture;
 
+    final long submitTimeMs = System.currentTimeMillis();
+    updateInFlightElements(inFlightElements.incrementAndGet());
+
     // For ordering by key, we chain the processing of the elem to the completion of
     // the previous output of the same key
-    return prevFuture.thenApplyAsync(
-        x -> {
-          underlying.processElement(elem);
+    final CompletableFuture<Collection<WindowedValue<OutT>>> outputFuture =
+        prevFuture.thenApplyAsync(
+            x -> {
+              if (queueWaitMs != null) {
+                queueWaitMs.update(System.currentTimeMillis() - submitTimeMs);
+              }
+              underlying.processElement(elem);
 
-          return emitter.collectOutput().stream()
-              .map(OpMessage::getElement)
-              .collect(Collectors.toList());
-        },
-        executor);
+              return emitter.collectOutput().stream()
+                  .map(OpMessage::getElement)
+                  .collect(Collectors.toList());
+            },
+            executor);
+    outputFuture.whenComplete(
+        (output, error) -> updateInFlightElements(inFlightElements.decrementAndGet()));
+    return outputFuture;
   }
 
   private CompletableFuture<Collection<WindowedValue<OutT>>> processStateful(
       WindowedValue<InT> elem) {
     final Object key = getKey(elem);
+    if (maxInFlightElementsPerKey > 0) {
+      awaitInFlightCapacity(key);
+    }
 
     final CompletableFuture<Collection<WindowedValue<OutT>>> outputFutures =
-        processElement(elem, keyedOutputFutures.get(key));
+        processElement(elem, lastOutputFuture(key));
 
-    // Update the latest outputFuture for key
-    keyedOutputFutures.put(key, outputFutures);
+    // Append the outputFuture for key. Completed futures are removed from the executor threads,
+    // so the entry is updated atomically.
+    keyedOutputFutures.compute(
+        key,
+        (k, pending) -> {
+          if (pending == null) {
+            pending = new ConcurrentLinkedDeque<>();
+          }
+          pending.addLast(outputFutures);
+          return pending;
+        });
 
     // Remove the outputFuture from the map once it's complete.
     // This ensures the map will be cleaned up immediately.
-    return outputFutures.thenApply(
-        output -> {
-          // Under the condition that the outputFutures has not been updated
-          keyedOutputFutures.remove(key, outputFutures);
-          return output;
-        });
+    return outputFutures.whenComplete(
+        (output, error) ->
+            keyedOutputFutures.computeIfPresent(
+                key,
+                (k, pending) -> {
+                  pending.remove(outputFutures);
+                  return pending.isEmpty() ? null : pending;
+                }));
+  }
+
+  private @Nullable CompletableFuture<Collection<WindowedValue<OutT>>> lastOutputFuture(
+      Object key) {
+    // A future that is removed concurrently has completed, so it is fine not to chain from it.
+    final Deque<CompletableFuture<Collection<WindowedValue<OutT>>>> pending =
+        keyedOutputFutures.get(key);
+    return pending == null ? null : pending.peekLast();
+  }
+
+  /**
+   * Blocks until fewer than {@link SamzaPipelineOptions#getMaxInFlightElementsPerKey()} elements of
+   * the key are in flight. Elements of a key complete in order, so it is enough to wait for the
+   * oldest one.
+   */
+  private void awaitInFlightCapacity(Object key) {
+    while (true) {
+      final Deque<CompletableFuture<Collection<WindowedValue<OutT>>>> pending =
+          keyedOutputFutures.get(key);
+      if (pending == null || pending.size() < maxInFlightElementsPerKey) {
+        return;
+      }
+      final CompletableFuture<Collection<WindowedValue<OutT>>> oldest = pending.peekFirst();
+      if (oldest == null) {
+        return;
+      }
+
+      final long startNanos = System.nanoTime();
+      // failures are surfaced through the future collector
+      oldest.handle((output, error) -> null).join();
+      if (keyBackpressureWaitMs != null) {
+        keyBackpressureWaitMs.update(
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+      }
+      // don't wait for the completion callback to remove it
+      pending.remove(oldest);
+    }
+  }
+
+  private void updateInFlightElements(long count) {
+    if (inFlightElementsGauge != null) {
+      inFlightElementsGauge.set(count);
+    }
   }
 
   /** Package private for testing. */
@@ -146,6 +265,11 @@ public class AsyncDoFnRunner<InT, OutT> implements DoFnRunner<InT, OutT> {
     return keyedOutputFutures.containsKey(key);
   }
 
+  /** Package private for testing. */
+  long getInFlightElements() {
+    return inFlightElements.get();
+  }
+
   @Override
   public <KeyT> void onTimer(
       String timerId,
@@ -82,6 +82,7 @@ public class DoFnRunnerWithKeyedInternals<InputT, OutputT> implements DoFnRunner
   @Override
   public void finishBundle() {
     underlying.finishBundle();
+    keyedInternals.flushState();
   }
 
   @Override
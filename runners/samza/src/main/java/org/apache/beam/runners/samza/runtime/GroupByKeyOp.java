@@ -127,7 +127,8 @@ public class GroupByKeyOp<K, InputT, OutputT>
                 SamzaStoreStateInternals.BEAM_STORE,
                 SamzaStoreStateInternals.getBeamStore(context.getTaskContext())),
             keyCoder,
-            pipelineOptions.getStoreBatchGetSize());
+            pipelineOptions.getStoreBatchGetSize(),
+            pipelineOptions.getStateWriteBatchSize());
 
     this.timerInternalsFactory =
         SamzaTimerInternalsFactory.createTimerInternalFactory(
@@ -85,6 +85,13 @@ class KeyedInternals<K> {
     return keyedStates == null ? null : keyedStates.key;
   }
 
+  /** Writes state mutations that are buffered by the state internals factory to the stores. */
+  void flushState() {
+    if (stateFactory instanceof SamzaStoreStateInternals.Factory) {
+      ((SamzaStoreStateInternals.Factory<?>) stateFactory).flush();
+    }
+  }
+
   void clearKey() {
     final List<State> states = threadLocalKeyedStates.get().states;
     states.forEach(
@@ -101,13 +101,16 @@ public class SamzaDoFnRunners {
     final KeyedInternals keyedInternals;
     final TimerInternals timerInternals;
     final StateInternals stateInternals;
+    // buffered state writes are flushed by DoFnRunnerWithKeyedInternals, so only stateful DoFns
+    // buffer them
     final SamzaStoreStateInternals.Factory<?> stateInternalsFactory =
         SamzaStoreStateInternals.createStateInternalsFactory(
             transformId,
             keyCoder,
             context.getTaskContext(),
             pipelineOptions,
-            stateIdToStoreIdMapping);
+            stateIdToStoreIdMapping,
+            StateUtils.isStateful(doFn) ? pipelineOptions.getStateWriteBatchSize() : 0);
 
     final SamzaExecutionContext executionContext =
         (SamzaExecutionContext) context.getApplicationContainerContext();
@@ -162,7 +165,14 @@ public class SamzaDoFnRunners {
 
     return pipelineOptions.getNumThreadsForProcessElement() > 1
         ? AsyncDoFnRunner.create(
-            doFnRunnerWithStates, emitter, futureCollector, keyedInternals != null, pipelineOptions)
+            doFnRunnerWithStates,
+            emitter,
+            futureCollector,
+            keyedInternals != null,
+            pipelineOptions,
+            pipelineOptions.getEnableMetrics()
+                ? executionContext.getMetricsContainer().getContainer(transformFullName)
+                : null)
         : doFnRunnerWithStates;
   }
 
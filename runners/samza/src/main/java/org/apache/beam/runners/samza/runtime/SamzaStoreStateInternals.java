@@ -96,14 +96,14 @@ public class SamzaStoreStateInternals<K> implements StateInternals {
       new ThreadLocal<>();
 
   // the stores include both beamStore for system states as well as stores for user state
-  private final Map<String, KeyValueStore<ByteArray, StateValue<?>>> stores;
+  private final Map<String, SamzaStoreWriteBuffer<StateValue<?>>> stores;
   private final K key;
   private final byte[] keyBytes;
   private final int batchGetSize;
   private final String stageId;
 
   private SamzaStoreStateInternals(
-      Map<String, KeyValueStore<ByteArray, StateValue<?>>> stores,
+      Map<String, SamzaStoreWriteBuffer<StateValue<?>>> stores,
       @Nullable K key,
       byte @Nullable [] keyBytes,
       String stageId,
@@ -145,13 +145,28 @@ public class SamzaStoreStateInternals<K> implements StateInternals {
     return createStateInternalsFactory(id, keyCoder, context, pipelineOptions, stateIdToStoreMap);
   }
 
-  @SuppressWarnings("unchecked")
   static <K> Factory<K> createStateInternalsFactory(
       String id,
       @Nullable Coder<K> keyCoder,
       TaskContext context,
       SamzaPipelineOptions pipelineOptions,
       Map<String, String> stateIdToStoreMap) {
+    return createStateInternalsFactory(
+        id, keyCoder, context, pipelineOptions, stateIdToStoreMap, 0);
+  }
+
+  /**
+   * Creates a state internals factory that buffers up to {@code maxBufferedWrites} state writes
+   * per store. The caller must invoke {@link Factory#flush()} at the end of each bundle.
+   */
+  @SuppressWarnings("unchecked")
+  static <K> Factory<K> createStateInternalsFactory(
+      String id,
+      @Nullable Coder<K> keyCoder,
+      TaskContext context,
+      SamzaPipelineOptions pipelineOptions,
+      Map<String, String> stateIdToStoreMap,
+      int maxBufferedWrites) {
     final int batchGetSize = pipelineOptions.getStoreBatchGetSize();
     final Map<String, KeyValueStore<ByteArray, StateValue<?>>> stores = new HashMap<>();
     stores.put(BEAM_STORE, getBeamStore(context));
@@ -170,7 +185,8 @@ public class SamzaStoreStateInternals<K> implements StateInternals {
     } else {
       stateKeyCoder = (Coder<K>) VoidCoder.of();
     }
-    return new Factory<>(Objects.toString(id), stores, stateKeyCoder, batchGetSize);
+    return new Factory<>(
+        Objects.toString(id), stores, stateKeyCoder, batchGetSize, maxBufferedWrites);
   }
 
   @Override
@@ -270,7 +286,7 @@ public class SamzaStoreStateInternals<K> implements StateInternals {
   /** Factory class to create {@link SamzaStoreStateInternals}. */
   public static class Factory<K> implements StateInternalsFactory<K> {
     private final String stageId;
-    private final Map<String, KeyValueStore<ByteArray, StateValue<?>>> stores;
+    private final Map<String, SamzaStoreWriteBuffer<StateValue<?>>> stores;
     private final Coder<K> keyCoder;
     private final int batchGetSize;
 
@@ -279,12 +295,33 @@ public class SamzaStoreStateInternals<K> implements StateInternals {
         Map<String, KeyValueStore<ByteArray, StateValue<?>>> stores,
         Coder<K> keyCoder,
         int batchGetSize) {
+      this(stageId, stores, keyCoder, batchGetSize, 0);
+    }
+
+    /**
+     * Creates a factory whose states buffer up to {@code maxBufferedWrites} writes per store, see
+     * {@link SamzaStoreWriteBuffer}. A non-positive value writes through to the stores.
+     */
+    public Factory(
+        String stageId,
+        Map<String, KeyValueStore<ByteArray, StateValue<?>>> stores,
+        Coder<K> keyCoder,
+        int batchGetSize,
+        int maxBufferedWrites) {
       this.stageId = stageId;
-      this.stores = stores;
+      this.stores = new HashMap<>();
+      stores.forEach(
+          (storeId, store) ->
+              this.stores.put(storeId, new SamzaStoreWriteBuffer<>(store, maxBufferedWrites)));
       this.keyCoder = keyCoder;
       this.batchGetSize = batchGetSize;
     }
 
+    /** Writes the state mutations buffered by the states of this factory to the stores. */
+    public void flush() {
+      stores.values().forEach(SamzaStoreWriteBuffer::flush);
+    }
+
     @Override
     public StateInternals stateInternalsForKey(@Nullable K key) {
       final ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -315,7 +352,7 @@ public class SamzaStoreStateInternals<K> implements StateInternals {
     private final byte[] keyBytes;
     private byte[] encodedStoreKey;
     protected final Coder<T> coder;
-    protected final KeyValueStore<ByteArray, StateValue<T>> store;
+    protected final SamzaStoreWriteBuffer<StateValue<T>> store;
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     protected AbstractSamzaState(
@@ -326,8 +363,8 @@ public class SamzaStoreStateInternals<K> implements StateInternals {
       this.isBeamStore = !stores.containsKey(address.getId());
       this.store =
           isBeamStore
-              ? (KeyValueStore) stores.get(BEAM_STORE)
-              : (KeyValueStore) stores.get(address.getId());
+              ? (SamzaStoreWriteBuffer) stores.get(BEAM_STORE)
+              : (SamzaStoreWriteBuffer) stores.get(address.getId());
       this.stageId = SamzaStoreStateInternals.this.stageId;
       this.keyBytes = SamzaStoreStateInternals.this.keyBytes;
     }
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.samza.runtime;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.beam.runners.samza.runtime.SamzaStoreStateInternals.ByteArray;
+import org.apache.samza.storage.kv.Entry;
+import org.apache.samza.storage.kv.KeyValueIterator;
+import org.apache.samza.storage.kv.KeyValueStore;
+
+/**
+ * Write-back buffer in front of a Samza {@link KeyValueStore} used by {@link
+ * SamzaStoreStateInternals}.
+ *
+ * <p>Puts and deletes are kept in memory, so that repeated mutations of the same state cell within
+ * a bundle only reach the store once. Buffered writes are written with a single {@link
+ * KeyValueStore#putAll} and {@link KeyValueStore#deleteAll} when {@link #flush()} is called at the
+ * end of a bundle, or earlier once {@code maxBufferedWrites} cells are buffered. Point reads
+ * see the buffered writes. Range reads flush the buffer first and then read from the store.
+ *
+ * <p>With a non-positive {@code maxBufferedWrites} all writes go directly to the store.
+ */
+@SuppressWarnings({
+  "nullness" // TODO(https://github.com/apache/beam/issues/20497)
+})
+class SamzaStoreWriteBuffer<V> {
+  private final KeyValueStore<ByteArray, V> store;
+  private final int maxBufferedWrites;
+  // an empty value marks a pending delete
+  private final Map<ByteArray, Optional<V>> pendingWrites;
+
+  SamzaStoreWriteBuffer(KeyValueStore<ByteArray, V> store, int maxBufferedWrites) {
+    this.store = store;
+    this.maxBufferedWrites = maxBufferedWrites;
+    this.pendingWrites = new ConcurrentHashMap<>();
+  }
+
+  V get(ByteArray key) {
+    final Optional<V> pending = pendingWrites.get(key);
+    if (pending != null) {
+      return pending.orElse(null);
+    }
+    return store.get(key);
+  }
+
+  /** Returns the values of the given keys that exist, in the order of the keys. */
+  Map<ByteArray, V> getAll(List<ByteArray> keys) {
+    if (pendingWrites.isEmpty()) {
+      return store.getAll(keys);
+    }
+
+    final List<ByteArray> unbufferedKeys = new ArrayList<>(keys.size());
+    for (ByteArray key : keys) {
+      if (!pendingWrites.containsKey(key)) {
+        unbufferedKeys.add(key);
+      }
+    }
+    final Map<ByteArray, V> stored =
+        unbufferedKeys.isEmpty() ? new LinkedHashMap<>() : store.getAll(unbufferedKeys);
+
+    final Map<ByteArray, V> result = new LinkedHashMap<>();
+    for (ByteArray key : keys) {
+      final Optional<V> pending = pendingWrites.get(key);
+      final V value = pending != null ? pending.orElse(null) : stored.get(key);
+      if (value != null) {
+        result.put(key, value);
+      }
+    }
+    return result;
+  }
+
+  void put(ByteArray key, V value) {
+    if (maxBufferedWrites <= 0) {
+      store.put(key, value);
+      return;
+    }
+    pendingWrites.put(key, Optional.of(value));
+    flushIfFull();
+  }
+
+  void delete(ByteArray key) {
+    if (maxBufferedWrites <= 0) {
+      store.delete(key);
+      return;
+    }
+    pendingWrites.put(key, Optional.empty());
+    flushIfFull();
+  }
+
+  void deleteAll(List<ByteArray> keys) {
+    if (maxBufferedWrites <= 0) {
+      store.deleteAll(keys);
+      return;
+    }
+    keys.forEach(key -> pendingWrites.put(key, Optional.empty()));
+    flushIfFull();
+  }
+
+  KeyValueIterator<ByteArray, V> range(ByteArray from, ByteArray to) {
+    flush();
+    return store.range(from, to);
+  }
+
+  /** Writes all buffered mutations to the store. */
+  void flush() {
+    if (pendingWrites.isEmpty()) {
+      return;
+    }
+
+    final List<Map.Entry<ByteArray, Optional<V>>> flushed =
+        new ArrayList<>(pendingWrites.entrySet().size());
+    final List<Entry<ByteArray, V>> puts = new ArrayList<>();
+    final List<ByteArray> deletes = new ArrayList<>();
+    for (Map.Entry<ByteArray, Optional<V>> pending : pendingWrites.entrySet()) {
+      final Map.Entry<ByteArray, Optional<V>> write =
+          new AbstractMap.SimpleImmutableEntry<>(pending);
+      flushed.add(write);
+      if (write.getValue().isPresent()) {
+        puts.add(new Entry<>(write.getKey(), write.getValue().get()));
+      } else {
+        deletes.add(write.getKey());
+      }
+    }
+
+    if (!puts.isEmpty()) {
+      store.putAll(puts);
+    }
+    if (!deletes.isEmpty()) {
+      store.deleteAll(deletes);
+    }
+    // keep mutations that were buffered concurrently while flushing
+    flushed.forEach(write -> pendingWrites.remove(write.getKey(), write.getValue()));
+  }
+
+  int getBufferedWriteCount() {
+    return pendingWrites.size();
+  }
+
+  private void flushIfFull() {
+    if (pendingWrites.size() >= maxBufferedWrites) {
+      flush();
+    }
+  }
+}
@@ -19,6 +19,7 @@ package org.apache.beam.runners.samza.runtime;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
@@ -236,4 +237,41 @@ public class AsyncDoFnRunnerTest implements Serializable {
     // The appleKey in keyedOutputFutures map should be removed
     assertFalse(asyncDoFnRunner.hasOutputFuturesForKey(appleKey));
   }
+
+  @Test
+  public void testMaxInFlightElementsPerKey() throws Exception {
+    // With one element in flight per key, an element is only handed over once the previous
+    // element of the same key has been processed.
+    final DoFnRunner<KV<String, Integer>, Void> doFnRunner = mock(DoFnRunner.class);
+    final AtomicInteger processed = new AtomicInteger(0);
+    doAnswer(
+            invocation -> {
+              Thread.sleep(50);
+              processed.incrementAndGet();
+              return null;
+            })
+        .when(doFnRunner)
+        .processElement(any());
+
+    SamzaPipelineOptions options = PipelineOptionsFactory.as(SamzaPipelineOptions.class);
+    options.setNumThreadsForProcessElement(4);
+    options.setMaxInFlightElementsPerKey(1);
+
+    final OpEmitter<Void> opEmitter = new OpAdapter.OpEmitterImpl<>();
+    final FutureCollector<Void> futureCollector = new FutureCollectorImpl<>();
+    futureCollector.prepare();
+
+    final AsyncDoFnRunner<KV<String, Integer>, Void> asyncDoFnRunner =
+        AsyncDoFnRunner.create(doFnRunner, opEmitter, futureCollector, true, options);
+
+    asyncDoFnRunner.processElement(WindowedValue.valueInGlobalWindow(KV.of("apple", 1)));
+    asyncDoFnRunner.processElement(WindowedValue.valueInGlobalWindow(KV.of("apple", 2)));
+    assertTrue(processed.get() >= 1);
+    asyncDoFnRunner.processElement(WindowedValue.valueInGlobalWindow(KV.of("apple", 3)));
+    assertTrue(processed.get() >= 2);
+
+    futureCollector.finish().toCompletableFuture().get();
+    assertEquals(3, processed.get());
+    assertFalse(asyncDoFnRunner.hasOutputFuturesForKey("apple"));
+  }
 }
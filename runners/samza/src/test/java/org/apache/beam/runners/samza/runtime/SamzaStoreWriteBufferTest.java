@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.samza.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.beam.runners.samza.runtime.SamzaStoreStateInternals.ByteArray;
+import org.apache.beam.runners.samza.runtime.SamzaStoreStateInternals.ByteArraySerdeFactory;
+import org.apache.samza.metrics.MetricsRegistryMap;
+import org.apache.samza.serializers.StringSerde;
+import org.apache.samza.storage.kv.KeyValueIterator;
+import org.apache.samza.storage.kv.KeyValueStore;
+import org.apache.samza.storage.kv.KeyValueStoreMetrics;
+import org.apache.samza.storage.kv.SerializedKeyValueStore;
+import org.apache.samza.storage.kv.SerializedKeyValueStoreMetrics;
+import org.apache.samza.storage.kv.inmemory.InMemoryKeyValueStore;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link SamzaStoreWriteBuffer}. */
+public class SamzaStoreWriteBufferTest {
+  private KeyValueStore<ByteArray, String> store;
+
+  @Before
+  public void setUp() {
+    store =
+        new SerializedKeyValueStore<>(
+            new InMemoryKeyValueStore(
+                new KeyValueStoreMetrics("beamStore", new MetricsRegistryMap())),
+            new ByteArraySerdeFactory.ByteArraySerde(),
+            new StringSerde("UTF-8"),
+            new SerializedKeyValueStoreMetrics("beamStore", new MetricsRegistryMap()));
+  }
+
+  private static ByteArray key(String key) {
+    return ByteArray.of(key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testWritesAreVisibleBeforeFlush() {
+    final SamzaStoreWriteBuffer<String> buffer = new SamzaStoreWriteBuffer<>(store, 100);
+    store.put(key("a"), "stored");
+
+    buffer.put(key("a"), "a1");
+    buffer.put(key("a"), "a2");
+    buffer.put(key("b"), "b1");
+    buffer.delete(key("b"));
+
+    assertEquals("a2", buffer.get(key("a")));
+    assertNull(buffer.get(key("b")));
+    assertEquals("stored", store.get(key("a")));
+    assertEquals(2, buffer.getBufferedWriteCount());
+
+    buffer.flush();
+
+    assertEquals(0, buffer.getBufferedWriteCount());
+    assertEquals("a2", store.get(key("a")));
+    assertNull(store.get(key("b")));
+  }
+
+  @Test
+  public void testGetAllMergesBufferedWritesInKeyOrder() {
+    final SamzaStoreWriteBuffer<String> buffer = new SamzaStoreWriteBuffer<>(store, 100);
+    store.put(key("a"), "a0");
+    store.put(key("b"), "b0");
+    store.put(key("c"), "c0");
+
+    buffer.put(key("b"), "b1");
+    buffer.delete(key("c"));
+    buffer.put(key("d"), "d1");
+
+    assertEquals(
+        Arrays.asList("a0", "b1", "d1"),
+        new ArrayList<>(
+            buffer.getAll(Arrays.asList(key("a"), key("b"), key("c"), key("d"))).values()));
+  }
+
+  @Test
+  public void testFlushesWhenFull() {
+    final SamzaStoreWriteBuffer<String> buffer = new SamzaStoreWriteBuffer<>(store, 2);
+
+    buffer.put(key("a"), "a1");
+    assertNull(store.get(key("a")));
+    buffer.put(key("b"), "b1");
+
+    assertEquals(0, buffer.getBufferedWriteCount());
+    assertEquals("a1", store.get(key("a")));
+    assertEquals("b1", store.get(key("b")));
+  }
+
+  @Test
+  public void testRangeSeesBufferedWrites() {
+    final SamzaStoreWriteBuffer<String> buffer = new SamzaStoreWriteBuffer<>(store, 100);
+    store.put(key("a"), "a0");
+    buffer.put(key("b"), "b1");
+    buffer.delete(key("a"));
+
+    final List<String> values = new ArrayList<>();
+    final KeyValueIterator<ByteArray, String> iterator = buffer.range(key("a"), key("z"));
+    iterator.forEachRemaining(entry -> values.add(entry.getValue()));
+    iterator.close();
+
+    assertEquals(Arrays.asList("b1"), values);
+  }
+
+  @Test
+  public void testWritesThroughWhenDisabled() {
+    final SamzaStoreWriteBuffer<String> buffer = new SamzaStoreWriteBuffer<>(store, 0);
+
+    buffer.put(key("a"), "a1");
+
+    assertEquals("a1", store.get(key("a")));
+    assertEquals(0, buffer.getBufferedWriteCount());
+    assertFalse(buffer.getAll(Arrays.asList(key("a"))).isEmpty());
+  }
+}
@@ -39,6 +39,7 @@ import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.transforms.windowing.IntervalWindow;
@@ -165,10 +166,17 @@ public class EncoderHelpers {
    * delegating to a Beam {@link Coder} underneath.
    *
    * <p>Note: For common types, if available, default Spark {@link Encoder}s are used instead.
+   * {@link KV}s of a {@link KvCoder} are mapped to a {@link StructType} with fields {@code key} and
+   * {@code value} so that nested primitives remain visible to Spark as columns.
    *
    * @param coder Beam {@link Coder}
    */
   public static <T> Encoder<T> encoderFor(Coder<T> coder) {
+    if (coder instanceof KvCoder) {
+      KvCoder<?, ?> kvCoder = (KvCoder<?, ?>) coder;
+      return (Encoder<T>)
+          kvEncoder(encoderFor(kvCoder.getKeyCoder()), encoderFor(kvCoder.getValueCoder()));
+    }
     Encoder<T> enc = getOrCreateDefaultEncoder(coder.getEncodedTypeDescriptor().getRawType());
     return enc != null ? enc : binaryEncoder(coder, true);
   }
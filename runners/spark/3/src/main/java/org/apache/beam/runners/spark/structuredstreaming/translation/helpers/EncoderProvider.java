@@ -45,11 +45,11 @@ public interface EncoderProvider {
   }
 
   default <K, V> Encoder<K> keyEncoderOf(KvCoder<K, V> coder) {
-    return encoderOf(coder.getKeyCoder(), encoderFactory());
+    return encoderOf(coder.getKeyCoder());
   }
 
   default <K, V> Encoder<V> valueEncoderOf(KvCoder<K, V> coder) {
-    return encoderOf(coder.getValueCoder(), encoderFactory());
+    return encoderOf(coder.getValueCoder());
   }
 
   default <T> Factory<T> encoderFactory() {
@@ -30,6 +30,7 @@ import static org.apache.beam.runners.spark.structuredstreaming.translation.help
 import static org.apache.beam.runners.spark.structuredstreaming.translation.utils.ScalaInterop.tuple;
 import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Predicates.notNull;
 import static org.apache.spark.sql.types.DataTypes.IntegerType;
+import static org.apache.spark.sql.types.DataTypes.LongType;
 import static org.apache.spark.sql.types.DataTypes.StringType;
 import static org.apache.spark.sql.types.DataTypes.createStructField;
 import static org.apache.spark.sql.types.DataTypes.createStructType;
@@ -59,6 +60,7 @@ import org.apache.beam.sdk.coders.DelegateCoder;
 import org.apache.beam.sdk.coders.DoubleCoder;
 import org.apache.beam.sdk.coders.FloatCoder;
 import org.apache.beam.sdk.coders.InstantCoder;
+import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.coders.ListCoder;
 import org.apache.beam.sdk.coders.StringUtf8Coder;
 import org.apache.beam.sdk.coders.VarIntCoder;
@@ -225,6 +227,35 @@ public class EncoderHelpersTest {
     assertThat(dataset.collectAsList(), equalTo(data));
   }
 
+  @Test
+  public void testEncoderForNestedKVCoder() {
+    List<KV<String, KV<Integer, Long>>> data =
+        asList(KV.of("a", KV.of(1, 1L)), KV.of("b", KV.of(null, 2L)));
+
+    Encoder<KV<String, KV<Integer, Long>>> encoder =
+        encoderFor(
+            KvCoder.of(StringUtf8Coder.of(), KvCoder.of(VarIntCoder.of(), VarLongCoder.of())));
+    serializeAndDeserialize(data.get(0), encoder);
+
+    Dataset<KV<String, KV<Integer, Long>>> dataset = createDataset(data, encoder);
+
+    StructType nestedSchema =
+        createStructType(
+            new StructField[] {
+              createStructField("key", IntegerType, true),
+              createStructField("value", LongType, true)
+            });
+    StructType kvSchema =
+        createStructType(
+            new StructField[] {
+              createStructField("key", StringType, true),
+              createStructField("value", nestedSchema, true)
+            });
+
+    assertThat(dataset.schema(), equalTo(kvSchema));
+    assertThat(dataset.collectAsList(), equalTo(data));
+  }
+
   @Test
   public void testOneOffEncoder() {
     List<Coder<?>> coders = ImmutableList.copyOf(BASIC_CASES.keySet());
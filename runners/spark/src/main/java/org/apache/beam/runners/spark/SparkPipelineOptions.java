@@ -86,4 +86,13 @@ public interface SparkPipelineOptions extends SparkCommonPipelineOptions {
   boolean isCacheDisabled();
 
   void setCacheDisabled(boolean value);
+
+  @Description(
+      "A value between 0-1 to describe the fraction of the executor heap used to cache decoded "
+          + "side inputs. The cache is shared by all tasks of an executor and sized by the first "
+          + "task that uses it.")
+  @Default.Double(0.2)
+  Double getSideInputCacheHeapFraction();
+
+  void setSideInputCacheHeapFraction(Double sideInputCacheHeapFraction);
 }
@@ -68,6 +68,9 @@ public class SparkStateInternals<K> implements StateInternals {
   private final K key;
   // Serializable state for internals (namespace to state tag to coded value).
   private final Table<String, String, byte[]> stateTable;
+  // Decoded values of the cells accessed through this instance. Only cells that were written are
+  // encoded again when the state is handed back to Spark, and each cell at most once.
+  private final Table<String, String, DecodedCell<?>> decodedCells = HashBasedTable.create();
 
   private SparkStateInternals(K key) {
     this.key = key;
@@ -89,6 +92,13 @@ public class SparkStateInternals<K> implements StateInternals {
   }
 
   public Table<String, String, byte[]> getState() {
+    for (Table.Cell<String, String, DecodedCell<?>> cell : decodedCells.cellSet()) {
+      DecodedCell<?> decoded = cell.getValue();
+      if (decoded.dirty) {
+        stateTable.put(cell.getRowKey(), cell.getColumnKey(), decoded.encode());
+        decoded.dirty = false;
+      }
+    }
     return stateTable;
   }
 
@@ -180,6 +190,23 @@ public class SparkStateInternals<K> implements StateInternals {
     }
   }
 
+  /** The decoded value of a state cell and whether it changed since it was last encoded. */
+  private static class DecodedCell<T> {
+    private final Coder<T> coder;
+    private final T value;
+    private boolean dirty;
+
+    private DecodedCell(Coder<T> coder, T value, boolean dirty) {
+      this.coder = coder;
+      this.value = value;
+      this.dirty = dirty;
+    }
+
+    private byte[] encode() {
+      return CoderHelpers.toByteArray(value, coder);
+    }
+  }
+
   private class AbstractState<T> {
     final StateNamespace namespace;
     final String id;
@@ -191,19 +218,35 @@ public class SparkStateInternals<K> implements StateInternals {
       this.coder = coder;
     }
 
+    /**
+     * Returns the decoded value of this cell. The value is shared with later reads, so callers that
+     * modify it must write it back with {@link #writeValue}.
+     */
+    @SuppressWarnings("unchecked")
     T readValue() {
-      byte[] buf = stateTable.get(namespace.stringKey(), id);
-      if (buf != null) {
-        return CoderHelpers.fromByteArray(buf, coder);
+      DecodedCell<T> cell = (DecodedCell<T>) decodedCells.get(namespace.stringKey(), id);
+      if (cell == null) {
+        byte[] buf = stateTable.get(namespace.stringKey(), id);
+        if (buf == null) {
+          return null;
+        }
+        cell = new DecodedCell<>(coder, CoderHelpers.fromByteArray(buf, coder), false);
+        decodedCells.put(namespace.stringKey(), id, cell);
       }
-      return null;
+      return cell.value;
     }
 
     void writeValue(T input) {
-      stateTable.put(namespace.stringKey(), id, CoderHelpers.toByteArray(input, coder));
+      decodedCells.put(namespace.stringKey(), id, new DecodedCell<>(coder, input, true));
+    }
+
+    boolean isCellEmpty() {
+      return !decodedCells.contains(namespace.stringKey(), id)
+          && !stateTable.contains(namespace.stringKey(), id);
     }
 
     public void clear() {
+      decodedCells.remove(namespace.stringKey(), id);
       stateTable.remove(namespace.stringKey(), id);
     }
 
@@ -289,7 +332,7 @@ public class SparkStateInternals<K> implements StateInternals {
 
         @Override
         public Boolean read() {
-          return stateTable.get(namespace.stringKey(), id) == null;
+          return isCellEmpty();
         }
       };
     }
@@ -322,17 +365,26 @@ public class SparkStateInternals<K> implements StateInternals {
 
     @Override
     public OutputT read() {
-      return combineFn.extractOutput(getAccum());
+      return combineFn.extractOutput(accumulator());
     }
 
     @Override
     public void add(InputT input) {
-      AccumT accum = combineFn.addInput(getAccum(), input);
+      AccumT accum = combineFn.addInput(accumulator(), input);
       writeValue(accum);
     }
 
     @Override
     public AccumT getAccum() {
+      AccumT accum = readValue();
+      if (accum == null) {
+        return combineFn.createAccumulator();
+      }
+      // callers may modify or merge into the returned accumulator
+      return CoderHelpers.fromByteArray(CoderHelpers.toByteArray(accum, coder), coder);
+    }
+
+    private AccumT accumulator() {
       AccumT accum = readValue();
       if (accum == null) {
         accum = combineFn.createAccumulator();
@@ -350,14 +402,14 @@ public class SparkStateInternals<K> implements StateInternals {
 
         @Override
         public Boolean read() {
-          return stateTable.get(namespace.stringKey(), id) == null;
+          return isCellEmpty();
         }
       };
     }
 
     @Override
     public void addAccum(AccumT accum) {
-      accum = combineFn.mergeAccumulators(Arrays.asList(getAccum(), accum));
+      accum = combineFn.mergeAccumulators(Arrays.asList(accumulator(), accum));
       writeValue(accum);
     }
 
@@ -444,7 +496,7 @@ public class SparkStateInternals<K> implements StateInternals {
           if (sparkMapState == null) {
             return Collections.emptyList();
           }
-          return sparkMapState.keySet();
+          return ImmutableList.copyOf(sparkMapState.keySet());
         }
 
         @Override
@@ -483,7 +535,7 @@ public class SparkStateInternals<K> implements StateInternals {
           if (sparkMapState == null) {
             return Collections.emptyList();
           }
-          return sparkMapState.entrySet();
+          return ImmutableList.copyOf(sparkMapState.entrySet());
         }
 
         @Override
@@ -498,7 +550,7 @@ public class SparkStateInternals<K> implements StateInternals {
       return new ReadableState<Boolean>() {
         @Override
         public Boolean read() {
-          return stateTable.get(namespace.stringKey(), id) == null;
+          return isCellEmpty();
         }
 
         @Override
@@ -557,7 +609,7 @@ public class SparkStateInternals<K> implements StateInternals {
       return new ReadableState<Boolean>() {
         @Override
         public Boolean read() {
-          return stateTable.get(namespace.stringKey(), id) == null;
+          return isCellEmpty();
         }
 
         @Override
@@ -569,16 +621,16 @@ public class SparkStateInternals<K> implements StateInternals {
 
     @Override
     public Iterable<InputT> read() {
+      return new HashSet<>(readAsSet());
+    }
+
+    private Set<InputT> readAsSet() {
       Set<InputT> value = readValue();
       if (value == null) {
         value = new HashSet<>();
       }
       return value;
     }
-
-    private Set<InputT> readAsSet() {
-      return (Set<InputT>) read();
-    }
   }
 
   private final class SparkBagState<T> extends AbstractState<List<T>> implements BagState<T> {
@@ -593,20 +645,24 @@ public class SparkStateInternals<K> implements StateInternals {
 
     @Override
     public List<T> read() {
-      List<T> value = super.readValue();
-      if (value == null) {
-        value = new ArrayList<>();
-      }
-      return value;
+      return new ArrayList<>(readAsList());
     }
 
     @Override
     public void add(T input) {
-      List<T> value = read();
+      List<T> value = readAsList();
       value.add(input);
       writeValue(value);
     }
 
+    private List<T> readAsList() {
+      List<T> value = super.readValue();
+      if (value == null) {
+        value = new ArrayList<>();
+      }
+      return value;
+    }
+
     @Override
     public ReadableState<Boolean> isEmpty() {
       return new ReadableState<Boolean>() {
@@ -617,7 +673,7 @@ public class SparkStateInternals<K> implements StateInternals {
 
         @Override
         public Boolean read() {
-          return stateTable.get(namespace.stringKey(), id) == null;
+          return isCellEmpty();
         }
       };
     }
@@ -178,7 +178,7 @@ public class MultiDoFnFunction<InputT, OutputT>
         DoFnRunners.simpleRunner(
             options.get(),
             doFn,
-            CachedSideInputReader.of(new SparkSideInputReader(sideInputs)),
+            CachedSideInputReader.of(new SparkSideInputReader(sideInputs, options.get())),
             processor.getOutputManager(),
             mainOutputTag,
             additionalOutputTags,
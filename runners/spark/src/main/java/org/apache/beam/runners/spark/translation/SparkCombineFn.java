@@ -822,7 +822,9 @@ public class SparkCombineFn<InputT, ValueT, AccumT, OutputT> implements Serializ
 
   SparkCombineContext ctxtForWindows(Collection<BoundedWindow> windows) {
     if (combineContext == null) {
-      combineContext = new SparkCombineContext(options.get(), new SparkSideInputReader(sideInputs));
+      combineContext =
+          new SparkCombineContext(
+              options.get(), new SparkSideInputReader(sideInputs, options.get()));
     }
     return combineContext.forInput(windows);
   }
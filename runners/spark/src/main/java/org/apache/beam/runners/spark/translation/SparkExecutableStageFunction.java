@@ -17,6 +17,7 @@
  */
 package org.apache.beam.runners.spark.translation;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
@@ -57,6 +58,8 @@ import org.apache.beam.runners.spark.util.ByteArray;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.fn.data.FnDataReceiver;
 import org.apache.beam.sdk.io.FileSystems;
+import org.apache.beam.sdk.metrics.MetricsEnvironment;
+import org.apache.beam.sdk.options.PortablePipelineOptions;
 import org.apache.beam.sdk.transforms.join.RawUnionValue;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.util.WindowedValue;
@@ -136,7 +139,11 @@ class SparkExecutableStageFunction<InputT, SideInputT>
       return Collections.emptyIterator();
     }
 
-    try (ExecutableStageContext stageContext = contextFactory.get(jobInfo)) {
+    // Report metrics of the runner, e.g. the bundle queue time, as metrics of this stage.
+    MetricsContainerImpl metricsContainer =
+        metricsAccumulator.value().getContainer(stagePayload.getInput());
+    try (ExecutableStageContext stageContext = contextFactory.get(jobInfo);
+        Closeable metricsScope = MetricsEnvironment.scopedMetricsContainer(metricsContainer)) {
       ExecutableStage executableStage = ExecutableStage.fromPayload(stagePayload);
       try (StageBundleFactory stageBundleFactory =
           stageContext.getStageBundleFactory(executableStage)) {
@@ -261,10 +268,15 @@ class SparkExecutableStageFunction<InputT, SideInputT>
                         .collect(Collectors.toList());
               }
             });
+    int sideInputResponseCacheMb =
+        pipelineOptions.get().as(PortablePipelineOptions.class).getSideInputResponseCacheMb();
     try {
       sideInputHandler =
-          StateRequestHandlers.forSideInputHandlerFactory(
-              ProcessBundleDescriptors.getSideInputs(executableStage), sideInputHandlerFactory);
+          StateRequestHandlers.forImmutableSideInputHandlerFactory(
+              jobInfo.jobId() + "/" + String.join(",", stagePayload.getTransformsList()),
+              ProcessBundleDescriptors.getSideInputs(executableStage),
+              sideInputHandlerFactory,
+              sideInputResponseCacheMb * 1024L * 1024L);
     } catch (IOException e) {
       throw new RuntimeException("Failed to setup state handler", e);
     }
@@ -199,7 +199,7 @@ public class ParDoStateUpdateFn<KeyT, ValueT, InputT extends KV<KeyT, ValueT>, O
         DoFnRunners.simpleRunner(
             options.get(),
             doFn,
-            CachedSideInputReader.of(new SparkSideInputReader(sideInputs)),
+            CachedSideInputReader.of(new SparkSideInputReader(sideInputs, options.get())),
             processor.getOutputManager(),
             (TupleTag<OutputT>) mainOutputTag,
             additionalOutputTags,
@@ -58,9 +58,9 @@ public class CachedSideInputReader implements SideInputReader {
   public <T> @Nullable T get(PCollectionView<T> view, BoundedWindow window) {
     @SuppressWarnings("unchecked")
     final Cache<Key<T>, Value<T>> materializedCasted =
-        (Cache) SideInputStorage.getMaterializedSideInputs();
+        (Cache) SideInputStorage.getSideInputs(cacheHeapFraction());
 
-    Key<T> sideInputKey = new Key<>(view, window);
+    Key<T> sideInputKey = new Key<>(view, window, broadcastId(view));
 
     try {
       Value<T> cachedResult =
@@ -68,12 +68,13 @@ public class CachedSideInputReader implements SideInputReader {
               sideInputKey,
               () -> {
                 final T result = delegate.get(view, window);
+                final long size = SizeEstimator.estimate(result);
                 LOG.debug(
                     "Caching de-serialized side input for {} of size [{}B] in memory.",
                     sideInputKey,
-                    SizeEstimator.estimate(result));
+                    size);
 
-                return new Value<>(result);
+                return new Value<>(result, size);
               });
       return cachedResult.getValue();
     } catch (ExecutionException e) {
@@ -81,6 +82,18 @@ public class CachedSideInputReader implements SideInputReader {
     }
   }
 
+  private double cacheHeapFraction() {
+    return delegate instanceof SparkSideInputReader
+        ? ((SparkSideInputReader) delegate).getCacheHeapFraction()
+        : SideInputStorage.DEFAULT_MAX_HEAP_FRACTION;
+  }
+
+  private long broadcastId(PCollectionView<?> view) {
+    return delegate instanceof SparkSideInputReader
+        ? ((SparkSideInputReader) delegate).getBroadcastId(view)
+        : -1L;
+  }
+
   @Override
   public <T> boolean contains(PCollectionView<T> view) {
     return delegate.contains(view);
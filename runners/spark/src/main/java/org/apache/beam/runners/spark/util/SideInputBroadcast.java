@@ -20,6 +20,8 @@ package org.apache.beam.runners.spark.util;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.concurrent.ExecutionException;
+import org.apache.beam.runners.spark.util.SideInputStorage.Value;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
@@ -51,13 +53,47 @@ public class SideInputBroadcast<T> implements Serializable {
     return new SideInputBroadcast<>(bytes, coder);
   }
 
-  public synchronized T getValue() {
+  public T getValue() {
+    return getValue(SideInputStorage.DEFAULT_MAX_HEAP_FRACTION);
+  }
+
+  /**
+   * Returns the decoded value, which is shared with other tasks through a cache using at most
+   * {@code maxHeapFraction} of the maximum heap.
+   */
+  synchronized T getValue(double maxHeapFraction) {
     if (value == null) {
-      value = deserialize();
+      value = getOrDecode(maxHeapFraction);
     }
     return value;
   }
 
+  /** Returns the id of the underlying Spark broadcast. */
+  public long getBroadcastId() {
+    return bcast.id();
+  }
+
+  /**
+   * Decodes the broadcast once per executor. Tasks deserialize their own copy of this helper, so
+   * the decoded value is shared through {@link SideInputStorage} rather than this instance.
+   */
+  @SuppressWarnings("unchecked")
+  private T getOrDecode(double maxHeapFraction) {
+    try {
+      Value<?> decoded =
+          SideInputStorage.getSideInputs(maxHeapFraction)
+              .get(
+                  bcast.id(),
+                  () -> {
+                    T val = deserialize();
+                    return new Value<>(val, SizeEstimator.estimate(val));
+                  });
+      return (T) decoded.getValue();
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
   public void broadcast(JavaSparkContext jsc) {
     this.bcast = jsc.broadcast(bytes);
   }
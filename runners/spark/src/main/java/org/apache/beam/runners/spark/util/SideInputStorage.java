@@ -21,30 +21,65 @@ import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.values.PCollectionView;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.Cache;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.CacheBuilder;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Cache deserialized side inputs for executor so every task doesn't need to deserialize them again.
- * Side inputs are stored in {@link Cache} with 5 minutes expireAfterAccess.
+ * Side inputs are stored in {@link Cache} with 5 minutes expireAfterAccess. Decoded broadcasts and
+ * materialized views share a single budget of the estimated size of their entries, a fraction of
+ * the maximum heap, and the least recently used entries are evicted first.
  */
 @SuppressWarnings({
   "nullness" // TODO(https://github.com/apache/beam/issues/20497)
 })
 class SideInputStorage {
 
-  /** JVM deserialized side input cache. */
-  private static final Cache<Key<?>, Value<?>> materializedSideInputs =
-      CacheBuilder.newBuilder().expireAfterAccess(5, TimeUnit.MINUTES).build();
+  /** Default fraction of the maximum heap used by the cache. */
+  static final double DEFAULT_MAX_HEAP_FRACTION = 0.2;
 
-  static Cache<Key<?>, Value<?>> getMaterializedSideInputs() {
-    return materializedSideInputs;
+  /**
+   * JVM side input cache, created by the first task using it. Holds decoded broadcasts by their
+   * {@code Long} broadcast id and materialized views by {@link Key}.
+   */
+  private static volatile Cache<Object, Value<?>> sideInputs;
+
+  /**
+   * Returns the cache shared by all tasks of the executor. It is created on first use with a budget
+   * of {@code maxHeapFraction} of the maximum heap, later calls return the same cache.
+   */
+  static Cache<Object, Value<?>> getSideInputs(double maxHeapFraction) {
+    if (sideInputs == null) {
+      synchronized (SideInputStorage.class) {
+        if (sideInputs == null) {
+          sideInputs = createCache((long) (Runtime.getRuntime().maxMemory() * maxHeapFraction));
+        }
+      }
+    }
+    return sideInputs;
   }
 
   /**
-   * Composite key of {@link PCollectionView} and {@link BoundedWindow} used to identify
-   * materialized results.
+   * Creates a cache bounded to {@code maxWeight} bytes. Guava splits the maximum weight evenly
+   * between the segments of a cache, so a single segment is used to let one entry use the whole
+   * budget.
+   */
+  @VisibleForTesting
+  static Cache<Object, Value<?>> createCache(long maxWeight) {
+    return CacheBuilder.newBuilder()
+        .concurrencyLevel(1)
+        .expireAfterAccess(5, TimeUnit.MINUTES)
+        .maximumWeight(maxWeight)
+        .<Object, Value<?>>weigher((key, value) -> value.getWeight())
+        .build();
+  }
+
+  /**
+   * Composite key of {@link PCollectionView}, {@link BoundedWindow} and the id of the broadcast
+   * holding the side input used to identify materialized results. The broadcast id distinguishes
+   * the contents of a side input whose view was replaced and broadcast again.
    *
    * @param <T> type of result
    */
@@ -52,10 +87,12 @@ class SideInputStorage {
 
     private final PCollectionView<T> view;
     private final BoundedWindow window;
+    private final long broadcastId;
 
-    Key(PCollectionView<T> view, BoundedWindow window) {
+    Key(PCollectionView<T> view, BoundedWindow window, long broadcastId) {
       this.view = view;
       this.window = window;
+      this.broadcastId = broadcastId;
     }
 
     @Override
@@ -67,12 +104,14 @@ class SideInputStorage {
         return false;
       }
       Key<?> key = (Key<?>) o;
-      return Objects.equals(view, key.view) && Objects.equals(window, key.window);
+      return broadcastId == key.broadcastId
+          && Objects.equals(view, key.view)
+          && Objects.equals(window, key.window);
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(view, window);
+      return Objects.hash(view, window, broadcastId);
     }
 
     @Override
@@ -85,6 +124,8 @@ class SideInputStorage {
           + pName
           + "], window="
           + window
+          + ", broadcastId="
+          + broadcastId
           + '}';
     }
   }
@@ -95,13 +136,19 @@ class SideInputStorage {
    */
   public static class Value<T> {
     final T value;
+    final int weight;
 
-    Value(T value) {
+    Value(T value, long sizeBytes) {
       this.value = value;
+      this.weight = (int) Math.min(Integer.MAX_VALUE, sizeBytes);
     }
 
     public T getValue() {
       return value;
     }
+
+    int getWeight() {
+      return weight;
+    }
   }
 }
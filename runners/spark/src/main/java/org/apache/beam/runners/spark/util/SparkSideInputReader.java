@@ -24,8 +24,10 @@ import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import org.apache.beam.runners.core.InMemoryMultimapSideInputView;
 import org.apache.beam.runners.core.SideInputReader;
+import org.apache.beam.runners.spark.SparkPipelineOptions;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.transforms.Materializations;
 import org.apache.beam.sdk.transforms.Materializations.IterableView;
 import org.apache.beam.sdk.transforms.Materializations.MultimapView;
@@ -46,10 +48,24 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 })
 public class SparkSideInputReader implements SideInputReader {
   private final Map<TupleTag<?>, KV<WindowingStrategy<?, ?>, SideInputBroadcast<?>>> sideInputs;
+  private final double cacheHeapFraction;
 
   public SparkSideInputReader(
       Map<TupleTag<?>, KV<WindowingStrategy<?, ?>, SideInputBroadcast<?>>> sideInputs) {
+    this(sideInputs, SideInputStorage.DEFAULT_MAX_HEAP_FRACTION);
+  }
+
+  public SparkSideInputReader(
+      Map<TupleTag<?>, KV<WindowingStrategy<?, ?>, SideInputBroadcast<?>>> sideInputs,
+      PipelineOptions options) {
+    this(sideInputs, options.as(SparkPipelineOptions.class).getSideInputCacheHeapFraction());
+  }
+
+  private SparkSideInputReader(
+      Map<TupleTag<?>, KV<WindowingStrategy<?, ?>, SideInputBroadcast<?>>> sideInputs,
+      double cacheHeapFraction) {
     this.sideInputs = sideInputs;
+    this.cacheHeapFraction = cacheHeapFraction;
   }
 
   @Override
@@ -67,7 +83,7 @@ public class SparkSideInputReader implements SideInputReader {
     // a tag will point to all matching sideInputs, that is all windows.
     // now that we've obtained the appropriate sideInputWindow, all that's left is to filter by it.
     Iterable<WindowedValue<?>> availableSideInputs =
-        (Iterable<WindowedValue<?>>) windowedBroadcastHelper.getValue().getValue();
+        (Iterable<WindowedValue<?>>) windowedBroadcastHelper.getValue().getValue(cacheHeapFraction);
     Iterable<?> sideInputForWindow =
         StreamSupport.stream(availableSideInputs.spliterator(), false)
             .filter(
@@ -77,8 +93,6 @@ public class SparkSideInputReader implements SideInputReader {
                   }
                   return Iterables.contains(sideInputCandidate.getWindows(), sideInputWindow);
                 })
-            .collect(Collectors.toList())
-            .stream()
             .map(WindowedValue::getValue)
             .collect(Collectors.toList());
 
@@ -103,6 +117,23 @@ public class SparkSideInputReader implements SideInputReader {
     }
   }
 
+  /**
+   * Returns the id of the broadcast holding the side input of the given view, or {@code -1} if the
+   * view is not available.
+   */
+  long getBroadcastId(PCollectionView<?> view) {
+    KV<WindowingStrategy<?, ?>, SideInputBroadcast<?>> windowedBroadcastHelper =
+        sideInputs.get(view.getTagInternal());
+    return windowedBroadcastHelper == null
+        ? -1L
+        : windowedBroadcastHelper.getValue().getBroadcastId();
+  }
+
+  /** Returns the fraction of the maximum heap which may be used to cache side inputs. */
+  double getCacheHeapFraction() {
+    return cacheHeapFraction;
+  }
+
   @Override
   public <T> boolean contains(PCollectionView<T> view) {
     return sideInputs.containsKey(view.getTagInternal());
@@ -17,8 +17,17 @@
  */
 package org.apache.beam.runners.spark.stateful;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
 import org.apache.beam.runners.core.StateInternals;
 import org.apache.beam.runners.core.StateInternalsTest;
+import org.apache.beam.runners.core.StateNamespaces;
+import org.apache.beam.runners.core.StateTag;
+import org.apache.beam.runners.core.StateTags;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.state.BagState;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
@@ -30,4 +39,23 @@ public class SparkStateInternalsTest extends StateInternalsTest {
   protected StateInternals createStateInternals() {
     return SparkStateInternals.forKey("dummyKey");
   }
+
+  @Test
+  public void testStateSurvivesRoundTripThroughSparkState() {
+    StateTag<BagState<String>> tag = StateTags.bag("bag", StringUtf8Coder.of());
+    SparkStateInternals<String> first = SparkStateInternals.forKey("key");
+    first.state(StateNamespaces.global(), tag).add("a");
+    first.state(StateNamespaces.global(), tag).add("b");
+
+    SparkStateInternals<String> second =
+        SparkStateInternals.forKeyAndState("key", first.getState());
+    BagState<String> bag = second.state(StateNamespaces.global(), tag);
+    assertThat(bag.read(), containsInAnyOrder("a", "b"));
+    bag.add("c");
+
+    SparkStateInternals<String> third =
+        SparkStateInternals.forKeyAndState("key", second.getState());
+    assertThat(
+        third.state(StateNamespaces.global(), tag).read(), containsInAnyOrder("a", "b", "c"));
+  }
 }
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.spark.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
+import org.apache.beam.sdk.transforms.windowing.IntervalWindow;
+import org.apache.beam.sdk.values.PCollectionView;
+import org.joda.time.Instant;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link CachedSideInputReader}. */
+@RunWith(JUnit4.class)
+@SuppressWarnings("unchecked")
+public class CachedSideInputReaderTest {
+
+  /** Returns a reader for a task whose side inputs are held by the broadcast with the given id. */
+  private static SparkSideInputReader taskReader(
+      PCollectionView<String> view, long broadcastId, String value) {
+    SparkSideInputReader reader = mock(SparkSideInputReader.class);
+    when(reader.getCacheHeapFraction()).thenReturn(SideInputStorage.DEFAULT_MAX_HEAP_FRACTION);
+    when(reader.getBroadcastId(view)).thenReturn(broadcastId);
+    when(reader.get(view, GlobalWindow.INSTANCE)).thenReturn(value);
+    return reader;
+  }
+
+  @Test
+  public void testReusesViewAcrossTasks() {
+    PCollectionView<String> view = mock(PCollectionView.class);
+    SparkSideInputReader firstTask = taskReader(view, 1L, "value");
+    SparkSideInputReader secondTask = taskReader(view, 1L, "value");
+
+    assertEquals("value", CachedSideInputReader.of(firstTask).get(view, GlobalWindow.INSTANCE));
+    assertEquals("value", CachedSideInputReader.of(secondTask).get(view, GlobalWindow.INSTANCE));
+
+    verify(firstTask, times(1)).get(view, GlobalWindow.INSTANCE);
+    verify(secondTask, times(0)).get(view, GlobalWindow.INSTANCE);
+  }
+
+  @Test
+  public void testDoesNotReuseViewOfPreviousMicroBatch() {
+    PCollectionView<String> view = mock(PCollectionView.class);
+    // Replacing the view of a side input broadcasts its new contents under a new id.
+    SparkSideInputReader firstBatch = taskReader(view, 1L, "old");
+    SparkSideInputReader secondBatch = taskReader(view, 2L, "new");
+
+    assertEquals("old", CachedSideInputReader.of(firstBatch).get(view, GlobalWindow.INSTANCE));
+    assertEquals("new", CachedSideInputReader.of(secondBatch).get(view, GlobalWindow.INSTANCE));
+  }
+
+  @Test
+  public void testCachesViewPerWindow() {
+    PCollectionView<String> view = mock(PCollectionView.class);
+    BoundedWindow window = new IntervalWindow(new Instant(0), new Instant(10));
+    SparkSideInputReader reader = taskReader(view, 1L, "global");
+    when(reader.get(view, window)).thenReturn("interval");
+    CachedSideInputReader cachedReader = CachedSideInputReader.of(reader);
+
+    assertEquals("global", cachedReader.get(view, GlobalWindow.INSTANCE));
+    assertEquals("interval", cachedReader.get(view, window));
+    assertEquals("global", cachedReader.get(view, GlobalWindow.INSTANCE));
+    assertEquals("interval", cachedReader.get(view, window));
+
+    verify(reader, times(1)).get(view, GlobalWindow.INSTANCE);
+    verify(reader, times(1)).get(view, window);
+  }
+}
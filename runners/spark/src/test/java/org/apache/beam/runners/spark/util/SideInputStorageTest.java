@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.spark.util;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.beam.runners.spark.util.SideInputStorage.Value;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.Cache;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SideInputStorage}. */
+@RunWith(JUnit4.class)
+public class SideInputStorageTest {
+
+  @Test
+  public void testSingleEntryMayUseWholeBudget() {
+    Cache<Object, Value<?>> cache = SideInputStorage.createCache(1000);
+
+    // Larger than the share of a single segment if the budget were split between segments.
+    cache.put(1L, new Value<>("a", 900));
+
+    assertNotNull(cache.getIfPresent(1L));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsedEntries() {
+    Cache<Object, Value<?>> cache = SideInputStorage.createCache(1000);
+
+    cache.put(1L, new Value<>("a", 400));
+    cache.put(2L, new Value<>("b", 400));
+    cache.getIfPresent(1L);
+    cache.put(3L, new Value<>("c", 400));
+
+    assertNotNull(cache.getIfPresent(1L));
+    assertNull(cache.getIfPresent(2L));
+    assertNotNull(cache.getIfPresent(3L));
+  }
+
+  @Test
+  public void testDoesNotKeepEntriesLargerThanBudget() {
+    Cache<Object, Value<?>> cache = SideInputStorage.createCache(1000);
+
+    cache.put(1L, new Value<>("a", 1001));
+
+    assertNull(cache.getIfPresent(1L));
+  }
+
+  @Test
+  public void testSharedBetweenCallers() {
+    assertSame(
+        SideInputStorage.getSideInputs(SideInputStorage.DEFAULT_MAX_HEAP_FRACTION),
+        SideInputStorage.getSideInputs(0.5));
+  }
+}
@@ -36,7 +36,8 @@ import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Immuta
 public class ManagedChannelFactory {
   /**
    * Creates a {@link ManagedChannel} relying on the {@link ManagedChannelBuilder} to choose the
-   * channel type.
+   * channel type. Channels to {@code unix://} addresses, which the {@link ManagedChannelBuilder}
+   * does not support, are backed by an {@link EpollDomainSocketChannel} instead.
    */
   public static ManagedChannelFactory createDefault() {
     return new ManagedChannelFactory(Type.DEFAULT, Collections.emptyList(), false);
@@ -61,18 +62,18 @@ public class ManagedChannelFactory {
     ManagedChannelBuilder<?> channelBuilder;
     switch (type) {
       case EPOLL:
-        SocketAddress address = SocketAddressFactory.createFrom(apiServiceDescriptor.getUrl());
-        channelBuilder =
-            NettyChannelBuilder.forAddress(address)
-                .channelType(
-                    address instanceof DomainSocketAddress
-                        ? EpollDomainSocketChannel.class
-                        : EpollSocketChannel.class)
-                .eventLoopGroup(new EpollEventLoopGroup());
+        channelBuilder = createEpollChannelBuilder(apiServiceDescriptor);
         break;
 
       case DEFAULT:
-        channelBuilder = ManagedChannelBuilder.forTarget(apiServiceDescriptor.getUrl());
+        if (apiServiceDescriptor
+            .getUrl()
+            .startsWith(SocketAddressFactory.UNIX_DOMAIN_SOCKET_PREFIX)) {
+          org.apache.beam.vendor.grpc.v1p69p0.io.netty.channel.epoll.Epoll.ensureAvailability();
+          channelBuilder = createEpollChannelBuilder(apiServiceDescriptor);
+        } else {
+          channelBuilder = ManagedChannelBuilder.forTarget(apiServiceDescriptor.getUrl());
+        }
         break;
 
       case IN_PROCESS:
@@ -101,6 +102,17 @@ public class ManagedChannelFactory {
     return channelBuilder.build();
   }
 
+  private static ManagedChannelBuilder<?> createEpollChannelBuilder(
+      ApiServiceDescriptor apiServiceDescriptor) {
+    SocketAddress address = SocketAddressFactory.createFrom(apiServiceDescriptor.getUrl());
+    return NettyChannelBuilder.forAddress(address)
+        .channelType(
+            address instanceof DomainSocketAddress
+                ? EpollDomainSocketChannel.class
+                : EpollSocketChannel.class)
+        .eventLoopGroup(new EpollEventLoopGroup());
+  }
+
   /** The channel type. */
   private enum Type {
     EPOLL,
@@ -34,10 +34,24 @@ public class InProcessServerFactory extends ServerFactory {
   private static final AtomicInteger serviceNameUniqifier = new AtomicInteger();
 
   public static InProcessServerFactory create() {
-    return new InProcessServerFactory();
+    return new InProcessServerFactory(false);
   }
 
-  private InProcessServerFactory() {}
+  /**
+   * Creates a {@link InProcessServerFactory} whose servers run the service handlers on the thread
+   * that sent the message instead of handing it to a separate executor.
+   *
+   * <p>The service handlers must not block for long since they hold up the sender.
+   */
+  public static InProcessServerFactory createDirectExecutor() {
+    return new InProcessServerFactory(true);
+  }
+
+  private final boolean directExecutor;
+
+  private InProcessServerFactory(boolean directExecutor) {
+    this.directExecutor = directExecutor;
+  }
 
   @Override
   public Server allocateAddressAndCreate(
@@ -51,6 +65,9 @@ public class InProcessServerFactory extends ServerFactory {
                 serverBuilder.addService(
                     ServerInterceptors.intercept(
                         service, GrpcContextHeaderAccessorProvider.interceptor())));
+    if (directExecutor) {
+      serverBuilder.directExecutor();
+    }
     return serverBuilder.build().start();
   }
 
@@ -64,6 +81,9 @@ public class InProcessServerFactory extends ServerFactory {
                 builder.addService(
                     ServerInterceptors.intercept(
                         service, GrpcContextHeaderAccessorProvider.interceptor())));
+    if (directExecutor) {
+      builder.directExecutor();
+    }
     return builder.build().start();
   }
 }
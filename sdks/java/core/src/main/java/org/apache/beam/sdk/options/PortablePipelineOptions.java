@@ -90,6 +90,20 @@ public interface PortablePipelineOptions extends PipelineOptions, FileStagingOpt
 
   void setLoadBalanceBundles(boolean loadBalanceBundles);
 
+  @Description(
+      "Serve the data and state APIs to SDK workers of PROCESS environments over unix domain sockets instead of TCP. This avoids the network stack for the elements exchanged with SDK workers on the same host. Requires epoll support on the runner (Linux) and an SDK harness that can connect to unix:// endpoints, which the Java SDK harness does by default; falls back to TCP if epoll is not available.")
+  @Default.Boolean(false)
+  boolean getUseDomainSocketDataPlane();
+
+  void setUseDomainSocketDataPlane(boolean useDomainSocketDataPlane);
+
+  @Description(
+      "Size in MB of the cache of encoded side input responses shared by the executable stages of a runner worker, such as a Flink TaskManager or a Spark executor. It is only used for side inputs which do not change while the stage runs, such as the side inputs of batch pipelines. 0 disables the cache.")
+  @Default.Integer(64)
+  int getSideInputResponseCacheMb();
+
+  void setSideInputResponseCacheMb(int sideInputResponseCacheMb);
+
   @Description("The output path for the executable file to be created.")
   @Nullable
   String getOutputExecutablePath();
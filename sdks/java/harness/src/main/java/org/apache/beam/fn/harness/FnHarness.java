@@ -271,8 +271,53 @@ public class FnHarness {
       OutboundObserverFactory outboundObserverFactory,
       Cache<Object, Object> processWideCache)
       throws Exception {
+    main(
+        id,
+        options,
+        runnerCapabilites,
+        loggingApiServiceDescriptor,
+        controlApiServiceDescriptor,
+        statusApiServiceDescriptor,
+        channelFactory,
+        channelFactory,
+        outboundObserverFactory,
+        processWideCache);
+  }
+
+  /**
+   * Run a FnHarness with the given id and options that attaches to the specified logging and
+   * control API service descriptors using the given channel factories and outbound observer
+   * factory. The channels of the data and state APIs are created by {@code dataChannelFactory}, all
+   * other channels by {@code channelFactory}.
+   *
+   * @param id Harness ID
+   * @param options The options for this pipeline
+   * @param runnerCapabilites
+   * @param loggingApiServiceDescriptor
+   * @param controlApiServiceDescriptor
+   * @param statusApiServiceDescriptor
+   * @param channelFactory
+   * @param dataChannelFactory
+   * @param outboundObserverFactory
+   * @param processWideCache
+   * @throws Exception
+   */
+  public static void main(
+      String id,
+      PipelineOptions options,
+      Set<String> runnerCapabilites,
+      Endpoints.ApiServiceDescriptor loggingApiServiceDescriptor,
+      Endpoints.ApiServiceDescriptor controlApiServiceDescriptor,
+      Endpoints.ApiServiceDescriptor statusApiServiceDescriptor,
+      ManagedChannelFactory channelFactory,
+      ManagedChannelFactory dataChannelFactory,
+      OutboundObserverFactory outboundObserverFactory,
+      Cache<Object, Object> processWideCache)
+      throws Exception {
     channelFactory =
         channelFactory.withInterceptors(ImmutableList.of(AddHarnessIdInterceptor.create(id)));
+    dataChannelFactory =
+        dataChannelFactory.withInterceptors(ImmutableList.of(AddHarnessIdInterceptor.create(id)));
 
     IdGenerator idGenerator = IdGenerators.decrementingLongs();
     ShortIdMap metricsShortIds = new ShortIdMap();
@@ -303,10 +348,11 @@ public class FnHarness {
           BeamFnControlGrpc.newBlockingStub(channel);
 
       BeamFnDataGrpcClient beamFnDataMultiplexer =
-          new BeamFnDataGrpcClient(options, channelFactory::forDescriptor, outboundObserverFactory);
+          new BeamFnDataGrpcClient(
+              options, dataChannelFactory::forDescriptor, outboundObserverFactory);
 
       BeamFnStateGrpcClientCache beamFnStateGrpcClientCache =
-          new BeamFnStateGrpcClientCache(idGenerator, channelFactory, outboundObserverFactory);
+          new BeamFnStateGrpcClientCache(idGenerator, dataChannelFactory, outboundObserverFactory);
 
       FinalizeBundleHandler finalizeBundleHandler = new FinalizeBundleHandler(executorService);
 
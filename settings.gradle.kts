@@ -115,6 +115,7 @@ include(":it:mongodb")
 include(":it:splunk")
 include(":it:neo4j")
 include(":runners:core-java")
+include(":runners:core-java:jmh")
 include(":runners:direct-java")
 include(":runners:extensions-java:metrics")
 /* Begin Flink Runner related settings */
@@ -138,6 +139,7 @@ include(":runners:flink:1.18:job-server-container")
 include(":runners:flink:1.19")
 include(":runners:flink:1.19:job-server")
 include(":runners:flink:1.19:job-server-container")
+include(":runners:flink:jmh")
 /* End Flink Runner related settings */
 include(":runners:twister2")
 include(":runners:google-cloud-dataflow-java")